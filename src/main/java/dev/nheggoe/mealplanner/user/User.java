@@ -1,10 +1,15 @@
 package dev.nheggoe.mealplanner.user;
 
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
 import dev.nheggoe.mealplanner.user.inventory.InventoryManager;
+import dev.nheggoe.mealplanner.user.planner.CookableRecipeView;
+import dev.nheggoe.mealplanner.user.planner.RecipeCostEngine;
 import dev.nheggoe.mealplanner.user.recipe.RecipeManager;
+import dev.nheggoe.mealplanner.util.DayClock;
 import dev.nheggoe.mealplanner.util.InputScanner;
 import dev.nheggoe.mealplanner.util.OutputHandler;
 import dev.nheggoe.mealplanner.util.input.CommandInput;
+import java.util.List;
 
 /**
  * The User class encapsulates information about a user, including their name, personal inventory,
@@ -21,32 +26,43 @@ public class User {
 
   private final InventoryManager inventoryManager;
   private final RecipeManager recipeManager;
+  private final CookableRecipeView cookableRecipeView;
+  private final RecipeCostEngine recipeCostEngine;
+  private final WasteLog wasteLog;
 
   private String name;
-  private float wastedValue;
   private CommandInput commandInput;
 
   /**
    * Default constructor for the User class. Initializes the input scanner, output handler,
    * inventory manager, and recipe manager. The InputScanner facilitates user interaction. The
    * OutputHandler manages user output. The InventoryManager handles inventory tasks. The
-   * RecipeManager manages recipe-related tasks.
+   * RecipeManager manages recipe-related tasks. The CookableRecipeView listens to both managers to
+   * keep track of the recipes that can be cooked, and the RecipeCostEngine to keep the recipes
+   * priced.
    */
   public User() {
     outputHandler = new OutputHandler();
     inputScanner = new InputScanner(outputHandler);
     inventoryManager = new InventoryManager(inputScanner, outputHandler);
     recipeManager = new RecipeManager(inputScanner, outputHandler);
-    wastedValue = 0;
+    cookableRecipeView = new CookableRecipeView();
+    recipeManager.addRecipeListener(cookableRecipeView);
+    inventoryManager.addStorageListener(cookableRecipeView);
+    recipeCostEngine = new RecipeCostEngine();
+    recipeManager.addRecipeListener(recipeCostEngine);
+    inventoryManager.addStorageListener(recipeCostEngine);
+    wasteLog = new WasteLog();
   }
 
   /**
-   * Adds a specified value to the user's wasted value tracker.
+   * Records the given ingredient lots as wasted today in the user's waste log.
    *
-   * @param wastedValue the value to be added to the wasted value total.
+   * @param wastedIngredients the lots that have been thrown away.
    */
-  public void addWastedValue(float wastedValue) {
-    this.wastedValue += wastedValue;
+  public void addWaste(List<Ingredient> wastedIngredients) {
+    int today = DayClock.today();
+    wastedIngredients.forEach(ingredient -> wasteLog.record(ingredient, today));
   }
 
   /**
@@ -121,7 +137,39 @@ public class User {
     return recipeManager;
   }
 
-  public float getWastedValue() {
-    return wastedValue;
+  /**
+   * Provides access to the view of the recipes the user can cook from a single storage.
+   *
+   * @return the CookableRecipeView kept up to date with the user's recipes and storages.
+   */
+  public CookableRecipeView getCookableRecipeView() {
+    return cookableRecipeView;
+  }
+
+  /**
+   * Provides access to the engine pricing the user's recipes from the lots in their storages.
+   *
+   * @return the RecipeCostEngine kept up to date with the user's recipes and storages.
+   */
+  public RecipeCostEngine getRecipeCostEngine() {
+    return recipeCostEngine;
+  }
+
+  /**
+   * Retrieves the total value of the ingredients the user has wasted.
+   *
+   * @return the wasted value in minor units (øre).
+   */
+  public long getWastedValue() {
+    return wasteLog.getTotalValue();
+  }
+
+  /**
+   * Provides access to the log of every ingredient lot the user has wasted.
+   *
+   * @return the WasteLog of the user.
+   */
+  public WasteLog getWasteLog() {
+    return wasteLog;
   }
 }
@@ -0,0 +1,381 @@
+package dev.nheggoe.mealplanner.user;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.recipe.RequirementVector;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Append-only log of the ingredients a user has wasted, one event per expired lot that has been
+ * removed.
+ *
+ * <p>Events are kept in columns of primitive arrays: the ingredient id, the base unit and amount,
+ * the value, and the day of each event. Every event is also added to prefix sums per ingredient and
+ * base unit at two levels: monthly sums of everything recorded up to the end of each month, and
+ * daily sums of everything recorded from the start of the month up to each day. The waste up to a
+ * day is the monthly sum of the month before plus the daily sum of the day, so a query over any
+ * range of days reads four sums, however long the range and however many events have been
+ * recorded. Sums are only kept for months and days in which something was wasted, and are looked
+ * up by the closest earlier month or day.
+ *
+ * <p>Recording an event updates the sums of its day and of the later days of its month, and the
+ * sums of its month and of every later month, so events are recorded fastest in day order.
+ *
+ * <p>The log is thread-safe: every method holds the lock of the log.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class WasteLog {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final ValidUnit[] UNITS = ValidUnit.values();
+  private static final int MONTHS_PER_YEAR = 12;
+
+  private int[] ingredientIds;
+  private byte[] baseUnits;
+  private double[] amounts;
+  private long[] values;
+  private int[] days;
+  private int size;
+  private int firstDay;
+
+  private final NavigableMap<Integer, Map<Long, Total>> dailySums;
+  private final NavigableMap<Integer, Map<Long, Total>> monthlySums;
+  private long totalValue;
+
+  /**
+   * The waste of one ingredient in one base unit over a range of days.
+   *
+   * @param ingredientId the id of the ingredient, see IngredientRegistry
+   * @param baseUnit the base unit of the amount
+   * @param amount the amount wasted, in the base unit
+   * @param value the value wasted, in minor units (øre)
+   * @param count the number of lots wasted
+   */
+  public record WasteTotal(
+      int ingredientId, ValidUnit baseUnit, double amount, long value, int count) {}
+
+  /** Constructs an empty WasteLog. */
+  public WasteLog() {
+    ingredientIds = new int[INITIAL_CAPACITY];
+    baseUnits = new byte[INITIAL_CAPACITY];
+    amounts = new double[INITIAL_CAPACITY];
+    values = new long[INITIAL_CAPACITY];
+    days = new int[INITIAL_CAPACITY];
+    firstDay = Integer.MAX_VALUE;
+    dailySums = new TreeMap<>();
+    monthlySums = new TreeMap<>();
+  }
+
+  /**
+   * Records a wasted ingredient lot.
+   *
+   * @param ingredient the lot that was wasted
+   * @param day the day it was wasted, in days since the epoch
+   */
+  public synchronized void record(Ingredient ingredient, int day) {
+    ValidUnit baseUnit = UnitConverter.getBaseUnit(ingredient.getUnit());
+    double amount =
+        ingredient.getAmount() * UnitConverter.getFactor(ingredient.getUnit(), baseUnit);
+    record(ingredient.getIngredientId(), baseUnit, amount, ingredient.getValue(), day);
+  }
+
+  /**
+   * Records a wasted amount of an ingredient.
+   *
+   * @param ingredientId the id of the ingredient, see IngredientRegistry
+   * @param baseUnit the base unit of the amount
+   * @param amount the amount wasted, in the base unit
+   * @param value the value wasted, in minor units (øre)
+   * @param day the day it was wasted, in days since the epoch
+   * @throws IllegalArgumentException if the amount or the value is negative, or the unit is not a
+   *     base unit
+   */
+  public synchronized void record(
+      int ingredientId, ValidUnit baseUnit, double amount, long value, int day) {
+    if (amount < 0 || value < 0) {
+      throw new IllegalArgumentException("Wasted amount and value cannot be negative.");
+    }
+    if (baseUnit == null || baseUnit == ValidUnit.UNKNOWN) {
+      throw new IllegalArgumentException("Unit cannot be null or unknown.");
+    }
+    if (UnitConverter.getBaseUnit(baseUnit) != baseUnit) {
+      throw new IllegalArgumentException(baseUnit + " is not a base unit.");
+    }
+    if (size == days.length) {
+      int capacity = size * 2;
+      ingredientIds = Arrays.copyOf(ingredientIds, capacity);
+      baseUnits = Arrays.copyOf(baseUnits, capacity);
+      amounts = Arrays.copyOf(amounts, capacity);
+      values = Arrays.copyOf(values, capacity);
+      days = Arrays.copyOf(days, capacity);
+    }
+    ingredientIds[size] = ingredientId;
+    baseUnits[size] = (byte) baseUnit.ordinal();
+    amounts[size] = amount;
+    values[size] = value;
+    days[size] = day;
+    size++;
+    firstDay = Math.min(firstDay, day);
+
+    long key = RequirementVector.keyOf(ingredientId, baseUnit);
+    LocalDate date = LocalDate.ofEpochDay(day);
+    int monthStart = (int) date.withDayOfMonth(1).toEpochDay();
+    int monthEnd = (int) date.withDayOfMonth(date.lengthOfMonth()).toEpochDay();
+    addFrom(dailySums, day, monthStart, monthEnd, key, amount, value);
+    addFrom(monthlySums, monthOf(date), Integer.MIN_VALUE, Integer.MAX_VALUE, key, amount, value);
+    totalValue += value;
+  }
+
+  /**
+   * Retrieves the number of events recorded.
+   *
+   * @return the number of events
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Retrieves the earliest day anything was wasted on.
+   *
+   * @return the day, in days since the epoch, or Integer.MAX_VALUE if nothing has been recorded
+   */
+  public synchronized int getFirstDay() {
+    return firstDay;
+  }
+
+  /**
+   * Retrieves the ingredient id of the given event.
+   *
+   * @param index the index of the event, in the order it was recorded
+   * @return the ingredient id
+   */
+  public synchronized int getIngredientId(int index) {
+    return ingredientIds[checkIndex(index)];
+  }
+
+  /**
+   * Retrieves the base unit of the amount of the given event.
+   *
+   * @param index the index of the event, in the order it was recorded
+   * @return the base unit
+   */
+  public synchronized ValidUnit getBaseUnit(int index) {
+    return UNITS[baseUnits[checkIndex(index)]];
+  }
+
+  /**
+   * Retrieves the amount of the given event.
+   *
+   * @param index the index of the event, in the order it was recorded
+   * @return the amount, in the base unit of the event
+   */
+  public synchronized double getAmount(int index) {
+    return amounts[checkIndex(index)];
+  }
+
+  /**
+   * Retrieves the value of the given event.
+   *
+   * @param index the index of the event, in the order it was recorded
+   * @return the value in minor units (øre)
+   */
+  public synchronized long getValue(int index) {
+    return values[checkIndex(index)];
+  }
+
+  /**
+   * Retrieves the day of the given event.
+   *
+   * @param index the index of the event, in the order it was recorded
+   * @return the day, in days since the epoch
+   */
+  public synchronized int getDay(int index) {
+    return days[checkIndex(index)];
+  }
+
+  /**
+   * Retrieves the value of everything wasted.
+   *
+   * @return the value in minor units (øre)
+   */
+  public synchronized long getTotalValue() {
+    return totalValue;
+  }
+
+  /**
+   * Retrieves the value wasted from the first to the last given day, inclusive.
+   *
+   * @param fromDay the first day, in days since the epoch
+   * @param toDay the last day, in days since the epoch
+   * @return the value in minor units (øre)
+   */
+  public synchronized long getTotalValue(int fromDay, int toDay) {
+    return getTotalsByIngredient(fromDay, toDay).stream().mapToLong(WasteTotal::value).sum();
+  }
+
+  /**
+   * Retrieves the waste of every ingredient over all time.
+   *
+   * @return the waste per ingredient and base unit, most valuable first
+   */
+  public synchronized List<WasteTotal> getTotalsByIngredient() {
+    return toWasteTotals(monthlySums.isEmpty() ? Map.of() : monthlySums.lastEntry().getValue());
+  }
+
+  /**
+   * Retrieves the waste of every ingredient from the first to the last given day, inclusive.
+   *
+   * @param fromDay the first day, in days since the epoch
+   * @param toDay the last day, in days since the epoch
+   * @return the waste per ingredient and base unit, most valuable first; empty if the range is
+   *     empty
+   */
+  public synchronized List<WasteTotal> getTotalsByIngredient(int fromDay, int toDay) {
+    Map<Long, Total> totals = new HashMap<>();
+    if (fromDay <= toDay) {
+      addSumsUpTo(totals, toDay, 1);
+      addSumsUpTo(totals, fromDay - 1, -1);
+      totals.values().removeIf(total -> total.count == 0);
+    }
+    return toWasteTotals(totals);
+  }
+
+  /**
+   * Checks that the given index refers to a recorded event.
+   *
+   * @param index the index to be checked
+   * @return the index
+   * @throws IndexOutOfBoundsException if no event has the index
+   */
+  private int checkIndex(int index) {
+    return Objects.checkIndex(index, size);
+  }
+
+  /**
+   * Adds or subtracts everything wasted up to the given day, inclusive, to or from the given
+   * totals, read from the monthly sums of the month before the day and the daily sums of the day.
+   *
+   * @param totals the totals to be added to
+   * @param day the last day to include, in days since the epoch
+   * @param sign 1 to add the sums, -1 to subtract them
+   */
+  private void addSumsUpTo(Map<Long, Total> totals, int day, int sign) {
+    int month = monthOf(LocalDate.ofEpochDay(day));
+    Map.Entry<Integer, Map<Long, Total>> monthly = monthlySums.floorEntry(month - 1);
+    if (monthly != null) {
+      addAll(totals, monthly.getValue(), sign);
+    }
+    Map.Entry<Integer, Map<Long, Total>> daily = dailySums.floorEntry(day);
+    if (daily != null && monthOf(LocalDate.ofEpochDay(daily.getKey())) == month) {
+      addAll(totals, daily.getValue(), sign);
+    }
+  }
+
+  /**
+   * Adds an event to one level of prefix sums: to the sums at its position and at every later
+   * position up to the last one. The sums at its position are created from the closest earlier
+   * sums, unless those are before the first position.
+   *
+   * @param sums the prefix sums, keyed by position
+   * @param position the position of the event
+   * @param first the first position the sums are counted from
+   * @param last the last position the event is to be added to
+   * @param key the key of the ingredient and base unit
+   * @param amount the amount to be added
+   * @param value the value to be added
+   */
+  private static void addFrom(
+      NavigableMap<Integer, Map<Long, Total>> sums,
+      int position,
+      int first,
+      int last,
+      long key,
+      double amount,
+      long value) {
+    if (!sums.containsKey(position)) {
+      Map.Entry<Integer, Map<Long, Total>> before = sums.floorEntry(position);
+      Map<Long, Total> created = new HashMap<>();
+      if (before != null && before.getKey() >= first) {
+        addAll(created, before.getValue(), 1);
+      }
+      sums.put(position, created);
+    }
+    for (Map<Long, Total> totals : sums.subMap(position, true, last, true).values()) {
+      Total total = totals.computeIfAbsent(key, k -> new Total());
+      total.amount += amount;
+      total.value += value;
+      total.count++;
+    }
+  }
+
+  /**
+   * Adds or subtracts every total of the given sums to or from the given totals.
+   *
+   * @param totals the totals to be added to
+   * @param sums the sums to be added
+   * @param sign 1 to add the sums, -1 to subtract them
+   */
+  private static void addAll(Map<Long, Total> totals, Map<Long, Total> sums, int sign) {
+    sums.forEach(
+        (key, part) -> {
+          Total total = totals.computeIfAbsent(key, k -> new Total());
+          total.amount += sign * part.amount;
+          total.value += sign * part.value;
+          total.count += sign * part.count;
+        });
+  }
+
+  /**
+   * Converts totals into waste totals, most valuable first.
+   *
+   * @param totals the totals, keyed by ingredient id and base unit
+   * @return the waste totals
+   */
+  private static List<WasteTotal> toWasteTotals(Map<Long, Total> totals) {
+    List<WasteTotal> wasteTotals = new ArrayList<>();
+    totals.forEach(
+        (key, total) ->
+            wasteTotals.add(
+                new WasteTotal(
+                    RequirementVector.ingredientIdOf(key),
+                    RequirementVector.baseUnitOf(key),
+                    total.amount,
+                    total.value,
+                    total.count)));
+    wasteTotals.sort(
+        Comparator.comparingLong(WasteTotal::value)
+            .reversed()
+            .thenComparingInt(WasteTotal::ingredientId)
+            .thenComparing(WasteTotal::baseUnit));
+    return wasteTotals;
+  }
+
+  /**
+   * Retrieves the month of the given date.
+   *
+   * @param date the date
+   * @return the number of months since year 0
+   */
+  private static int monthOf(LocalDate date) {
+    return date.getYear() * MONTHS_PER_YEAR + date.getMonthValue() - 1;
+  }
+
+  /** Sum of the waste of one ingredient in one base unit. */
+  private static final class Total {
+    private double amount;
+    private long value;
+    private int count;
+  }
+}
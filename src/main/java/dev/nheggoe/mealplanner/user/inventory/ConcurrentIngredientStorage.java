@@ -0,0 +1,64 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * An IngredientStorage that can be shared between threads, for instance between several sessions
+ * and background jobs such as expiry sweeps and reports. Changes to an ingredient are guarded by
+ * one of a fixed number of striped locks chosen by the ingredient id, so threads working on
+ * different ingredients rarely wait for each other and no lock is held across the whole storage.
+ *
+ * <p>Lots are kept in concurrent collections, so listing or searching the storage never blocks
+ * and never fails while it is being changed, but may not reflect changes that are still in
+ * progress. Registered listeners are notified while the lock of the changed ingredient is held,
+ * and must therefore be thread-safe themselves. They should not wait for a lock shared across
+ * ingredients during a notification, since every change of the storage would then wait for it.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class ConcurrentIngredientStorage extends IngredientStorage {
+  private static final int DEFAULT_STRIPES = 16;
+
+  private final ReentrantLock[] locks;
+
+  /**
+   * Constructs a concurrent storage with the default number of lock stripes.
+   *
+   * @param storageName the name of the storage
+   */
+  public ConcurrentIngredientStorage(String storageName) {
+    this(storageName, DEFAULT_STRIPES);
+  }
+
+  /**
+   * Constructs a concurrent storage with the given number of lock stripes.
+   *
+   * @param storageName the name of the storage
+   * @param stripes the number of locks the ingredient ids are spread over
+   * @throws IllegalArgumentException if the number of stripes is not positive
+   */
+  public ConcurrentIngredientStorage(String storageName, int stripes) {
+    super(storageName, true);
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("Number of stripes must be positive");
+    }
+    locks = new ReentrantLock[stripes];
+    for (int i = 0; i < stripes; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  @Override
+  protected <T> T withLock(int ingredientId, Supplier<T> action) {
+    // ingredient ids are dense, so consecutive ingredients get different stripes
+    ReentrantLock lock = locks[Math.floorMod(ingredientId, locks.length)];
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Keeps every ingredient lot of every registered storage sorted by its expiry day (epoch day).
+ * Queries such as "expired" or "expiring within N days" are answered as range queries on the
+ * sorted index, so only the matching lots are visited instead of every lot in every storage. Each
+ * storage has its own slice of the index, so a query on one storage never visits the lots of the
+ * others.
+ *
+ * <p>The index is thread-safe without a lock of its own: the slices are concurrent sorted maps, so
+ * storages that are changed by several threads notify it concurrently, and never wait for each
+ * other while they hold the lock of an ingredient. A query reads each slice as it is at the time,
+ * and may miss changes that are still in progress.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class ExpiryIndex implements StorageListener {
+
+  private final Map<IngredientStorage, NavigableMap<LotKey, Ingredient>> lotsByStorage;
+  private final AtomicInteger size;
+
+  /** Constructs an empty ExpiryIndex. */
+  public ExpiryIndex() {
+    lotsByStorage = new ConcurrentHashMap<>();
+    size = new AtomicInteger();
+  }
+
+  @Override
+  public void ingredientAdded(IngredientStorage storage, Ingredient ingredient) {
+    NavigableMap<LotKey, Ingredient> lots =
+        lotsByStorage.computeIfAbsent(storage, key -> new ConcurrentSkipListMap<>());
+    if (lots.put(LotKey.of(ingredient), ingredient) == null) {
+      size.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void ingredientsAdded(
+      IngredientStorage storage,
+      List<Ingredient> addedIngredients,
+      Map<Ingredient, List<Ingredient>> mergedIngredients) {
+    addedIngredients.forEach(ingredient -> ingredientAdded(storage, ingredient));
+  }
+
+  @Override
+  public void ingredientRemoved(IngredientStorage storage, Ingredient ingredient) {
+    NavigableMap<LotKey, Ingredient> lots = lotsByStorage.get(storage);
+    if (lots != null && lots.remove(LotKey.of(ingredient)) != null) {
+      size.decrementAndGet();
+    }
+  }
+
+  /**
+   * Removes every lot of the given storage from the index, used when the storage itself is removed.
+   *
+   * @param storage the storage whose lots are to be removed from the index
+   */
+  public void removeStorage(IngredientStorage storage) {
+    NavigableMap<LotKey, Ingredient> lots = lotsByStorage.remove(storage);
+    if (lots != null) {
+      size.addAndGet(-lots.size());
+    }
+  }
+
+  /**
+   * Finds all lots that expire before the given day, grouped by the storage holding them.
+   *
+   * @param epochDay the first day that is not included in the result
+   * @return the matching lots in expiry order, grouped by storage
+   */
+  public Map<IngredientStorage, List<Ingredient>> findExpiringBefore(int epochDay) {
+    return group(lots -> lots.headMap(LotKey.first(epochDay), false));
+  }
+
+  /**
+   * Finds the lots of a single storage that expire before the given day, without visiting the lots
+   * of any other storage.
+   *
+   * @param storage the storage holding the lots
+   * @param epochDay the first day that is not included in the result
+   * @return the matching lots in expiry order; empty if there are none
+   */
+  public List<Ingredient> findExpiringBefore(IngredientStorage storage, int epochDay) {
+    NavigableMap<LotKey, Ingredient> lots = lotsByStorage.get(storage);
+    return lots == null
+        ? List.of()
+        : List.copyOf(lots.headMap(LotKey.first(epochDay), false).values());
+  }
+
+  /**
+   * Finds all lots that expire between the two given days (both inclusive), grouped by the storage
+   * holding them.
+   *
+   * @param fromEpochDay the first day to include
+   * @param toEpochDay the last day to include
+   * @return the matching lots in expiry order, grouped by storage
+   * @throws IllegalArgumentException if the range is empty
+   */
+  public Map<IngredientStorage, List<Ingredient>> findExpiringBetween(
+      int fromEpochDay, int toEpochDay) {
+    if (fromEpochDay > toEpochDay) {
+      throw new IllegalArgumentException("Start date cannot be after end date.");
+    }
+    return group(
+        lots -> lots.subMap(LotKey.first(fromEpochDay), true, LotKey.last(toEpochDay), true));
+  }
+
+  /**
+   * Retrieves the number of lots that are currently indexed.
+   *
+   * @return the number of indexed lots
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Collects the given range of the slice of every storage holding lots in it. Storages are ordered
+   * by the first lot of their range to expire, so the result reads in expiry order.
+   *
+   * @param range selects the part of a slice to be collected
+   * @return a map from storage to the lots of the range held by that storage
+   */
+  private Map<IngredientStorage, List<Ingredient>> group(
+      Function<NavigableMap<LotKey, Ingredient>, NavigableMap<LotKey, Ingredient>> range) {
+    List<Map.Entry<IngredientStorage, List<Ingredient>>> ranges = new ArrayList<>();
+    lotsByStorage.forEach(
+        (storage, lots) -> {
+          List<Ingredient> lotsInRange = List.copyOf(range.apply(lots).values());
+          if (!lotsInRange.isEmpty()) {
+            ranges.add(Map.entry(storage, lotsInRange));
+          }
+        });
+    ranges.sort(Comparator.comparing(entry -> LotKey.of(entry.getValue().getFirst())));
+    Map<IngredientStorage, List<Ingredient>> result = new LinkedHashMap<>();
+    ranges.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+    return result;
+  }
+
+  /**
+   * Position of a lot in the slice of its storage: lots are ordered by expiry day, and lots
+   * expiring on the same day by lot id, so lots with equal content get separate entries.
+   *
+   * @param expiryDay the expiry day of the lot, in days since the epoch
+   * @param lotId the lot id of the lot
+   */
+  private record LotKey(int expiryDay, long lotId) implements Comparable<LotKey> {
+
+    /**
+     * Creates the key of the given lot.
+     *
+     * @param ingredient the lot
+     * @return the key of the lot
+     */
+    private static LotKey of(Ingredient ingredient) {
+      return new LotKey(ingredient.getExpiryDay(), ingredient.getLotId());
+    }
+
+    /**
+     * Creates a key that sorts before every lot expiring on the given day.
+     *
+     * @param expiryDay the expiry day, in days since the epoch
+     * @return the key
+     */
+    private static LotKey first(int expiryDay) {
+      return new LotKey(expiryDay, Long.MIN_VALUE);
+    }
+
+    /**
+     * Creates a key that sorts after every lot expiring on the given day.
+     *
+     * @param expiryDay the expiry day, in days since the epoch
+     * @return the key
+     */
+    private static LotKey last(int expiryDay) {
+      return new LotKey(expiryDay, Long.MAX_VALUE);
+    }
+
+    @Override
+    public int compareTo(LotKey other) {
+      int byDay = Integer.compare(expiryDay, other.expiryDay);
+      return byDay != 0 ? byDay : Long.compare(lotId, other.lotId);
+    }
+  }
+}
@@ -1,26 +1,30 @@
 package dev.nheggoe.mealplanner.user.inventory;
 
 import dev.nheggoe.mealplanner.user.Printable;
+import dev.nheggoe.mealplanner.util.DayClock;
+import dev.nheggoe.mealplanner.util.Money;
 import dev.nheggoe.mealplanner.util.Utility;
 import dev.nheggoe.mealplanner.util.unit.ValidUnit;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents an ingredient with attributes such as name, amount, unit, expiry date, and standard
- * unit price.
+ * unit price. Every ingredient is a separate lot with its own lot id, which never changes, even
+ * when other ingredients are merged into it.
  *
  * @author Nick Heggø
  * @version 2024-12-12
  */
 public class Ingredient implements Printable {
+  private static final AtomicLong NEXT_LOT_ID = new AtomicLong(1);
 
+  private final long lotId = NEXT_LOT_ID.getAndIncrement();
   private final Measurement measurement;
 
-  private LocalDate expiryDate;
-  private float value;
+  private int expiryDay; // days since the epoch, compared against DayClock.today()
+  private long value; // in minor units (øre), see Money
 
   /**
    * Constructs an Ingredient object with the specified parameters.
@@ -61,24 +65,30 @@ public class Ingredient implements Printable {
     return isExpired() ? getExpiredString() : getString();
   }
 
-  // IntelliJ Generated
+  /**
+   * Checks if the given object is the same lot as this ingredient. Lots are compared by lot id
+   * only, since their amount, unit and value change as other ingredients are merged into them.
+   *
+   * @param o the object to compare with
+   * @return true if the object is an ingredient with the same lot id, false otherwise
+   */
   @Override
   public final boolean equals(Object o) {
-    if (!(o instanceof Ingredient that)) {
-      return false;
-    }
-    return Float.compare(value, that.value) == 0
-        && Objects.equals(measurement, that.measurement)
-        && Objects.equals(expiryDate, that.expiryDate);
+    return o instanceof Ingredient that && lotId == that.lotId;
   }
 
-  // IntelliJ Generated
   @Override
   public int hashCode() {
-    int result = Objects.hashCode(measurement);
-    result = 31 * result + Objects.hashCode(expiryDate);
-    result = 31 * result + Float.hashCode(value);
-    return result;
+    return Long.hashCode(lotId);
+  }
+
+  /**
+   * Retrieves the lot id of the ingredient, which is unique and never changes.
+   *
+   * @return the lot id
+   */
+  public long getLotId() {
+    return lotId;
   }
 
   /**
@@ -90,6 +100,15 @@ public class Ingredient implements Printable {
     return measurement.getName();
   }
 
+  /**
+   * Retrieves the id of the ingredient name, shared by every spelling of the name.
+   *
+   * @return the ingredient id
+   */
+  public int getIngredientId() {
+    return measurement.getIngredientId();
+  }
+
   /**
    * Sets the name of the measurement. The name must not be null or empty.
    *
@@ -104,19 +123,27 @@ public class Ingredient implements Printable {
   }
 
   /**
-   * Merges the specified ingredient with the current one.
+   * Merges the specified ingredient with the current one. The value is only added once the amount
+   * has been merged, so a merge that fails leaves the ingredient unchanged.
    *
    * @param ingredientToMerge the ingredient to merge into the current ingredient
+   * @throws IllegalArgumentException if the unit of the ingredient to merge cannot be converted to
+   *     the unit of this ingredient
    */
   public void merge(Ingredient ingredientToMerge) {
     if (isValidToMerge(ingredientToMerge)) {
       Measurement measurementToMerge = ingredientToMerge.getMeasurement();
-      this.value += ingredientToMerge.getValue();
       this.measurement.merge(measurementToMerge);
+      this.value += ingredientToMerge.getValue();
     }
   }
 
-  public float getValue() {
+  /**
+   * Retrieves the value of the ingredient.
+   *
+   * @return the value in minor units (øre)
+   */
+  public long getValue() {
     return value;
   }
 
@@ -133,7 +160,7 @@ public class Ingredient implements Printable {
       throw new IllegalArgumentException("Please enter a more reasonable unit price (max 1000");
     }
 
-    this.value = Math.round(value * 100) / 100.0f; // round it to 2 decimal places
+    this.value = Money.ofMajor(value); // round it to whole øre
   }
 
   /**
@@ -141,14 +168,15 @@ public class Ingredient implements Printable {
    *
    * @return true if the current date is after the expiry date, false otherwise
    */
-  private boolean isExpired() {
-    return LocalDate.now().isAfter(expiryDate);
+  public boolean isExpired() {
+    return expiryDay < DayClock.today();
   }
 
   private String getString() {
-    int dayTilExpiry = getDaysBetween(this.getExpiryDate());
+    int dayTilExpiry = getDaysUntilExpiry();
     return "  - %s: %s %s - Best before: %s (in %d days) Value: %s kr"
-        .formatted(getName(), getAmount(), getUnit(), expiryDate, dayTilExpiry, getValue());
+        .formatted(
+            getName(), getAmount(), getUnit(), getExpiryDate(), dayTilExpiry, Money.format(value));
   }
 
   /**
@@ -158,19 +186,28 @@ public class Ingredient implements Printable {
    * @return a formatted string describing the expired ingredient
    */
   private String getExpiredString() {
-    int daysExpired = Math.abs(getDaysBetween(this.getExpiryDate()));
+    int daysExpired = Math.abs(getDaysUntilExpiry());
     return "  * %s: %s %s - Best before: %s (Expired %d days ago) Value: %s kr"
-        .formatted(getName(), getAmount(), getUnit(), expiryDate, daysExpired, getValue());
+        .formatted(
+            getName(), getAmount(), getUnit(), getExpiryDate(), daysExpired, Money.format(value));
   }
 
   /**
-   * Retrieves the expiry date of the ingredient. If the expiry date is not set, returns a default
-   * date 999 days in the past.
+   * Retrieves the expiry date of the ingredient.
    *
    * @return the LocalDate representing the expiry date.
    */
   public LocalDate getExpiryDate() {
-    return (expiryDate != null) ? expiryDate : LocalDate.now().minusDays(999);
+    return LocalDate.ofEpochDay(expiryDay);
+  }
+
+  /**
+   * Retrieves the expiry date of the ingredient as the number of days since the epoch.
+   *
+   * @return the epoch day on which the ingredient expires
+   */
+  public int getExpiryDay() {
+    return expiryDay;
   }
 
   /**
@@ -183,7 +220,7 @@ public class Ingredient implements Printable {
     if (daysToExpiry < 0) {
       throw new IllegalArgumentException("Days to expiry cannot be negative");
     }
-    this.expiryDate = LocalDate.now().plusDays(daysToExpiry);
+    this.expiryDay = DayClock.today() + daysToExpiry;
   }
 
   public Measurement getMeasurement() {
@@ -246,14 +283,12 @@ public class Ingredient implements Printable {
   }
 
   /**
-   * Calculate the number of days between the current date and a specified future date.
+   * Calculate the number of days between the current date and the expiry date.
    *
-   * @param untilDate the future date until which the number of days is to be calculated
-   * @return the number of days between the current date and the specified future date
-   * @throws IllegalArgumentException if the untilDate is null
+   * @return the number of days until expiry, negative if the ingredient has already expired
    */
-  private int getDaysBetween(LocalDate untilDate) {
-    return (int) ChronoUnit.DAYS.between(LocalDate.now(), untilDate);
+  private int getDaysUntilExpiry() {
+    return expiryDay - DayClock.today();
   }
 
   /**
@@ -287,7 +322,7 @@ public class Ingredient implements Printable {
     setUnit(validUnit);
     setValue(random.nextFloat(50f, 144f));
     // setters do not allow the expiry date to be date before today.
-    expiryDate = LocalDate.now().minusDays(random.nextInt(4, 17));
+    expiryDay = DayClock.today() - random.nextInt(4, 17);
   }
 
   /**
@@ -313,13 +348,14 @@ public class Ingredient implements Printable {
   }
 
   /**
-   * Checks if the name of the current ingredient matches the name of the specified ingredient.
+   * Checks if the name of the current ingredient matches the name of the specified ingredient,
+   * ignoring case and surrounding whitespace in the same way as the storage keys.
    *
    * @param ingredientToMerge the ingredient to compare with the current ingredient
    * @return true if both ingredients have the same name, false otherwise
    */
   private boolean hasSameName(Ingredient ingredientToMerge) {
-    return this.getName().equals(ingredientToMerge.getName());
+    return getIngredientId() == ingredientToMerge.getIngredientId();
   }
 
   /**
@@ -330,6 +366,6 @@ public class Ingredient implements Printable {
    * @return true if both ingredients have the same expiry date, false otherwise
    */
   private boolean hasSameExpiryDate(Ingredient ingredientToMerge) {
-    return this.expiryDate.isEqual(ingredientToMerge.expiryDate);
+    return this.expiryDay == ingredientToMerge.expiryDay;
   }
 }
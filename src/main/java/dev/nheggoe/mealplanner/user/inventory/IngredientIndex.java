@@ -0,0 +1,156 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from ingredient name to the lots of that ingredient, grouped by the storage
+ * holding them. Lookups across the whole inventory therefore only visit the storages that actually
+ * contain the ingredient, and read the lots from the index instead of from the storages.
+ *
+ * <p>The index is thread-safe without a lock of its own. The entry of an ingredient is an
+ * immutable map that is replaced as a whole, atomically per ingredient id, so storages changing
+ * different ingredients never wait for each other, and lookups never wait at all.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class IngredientIndex implements StorageListener {
+  private static final Comparator<Ingredient> EXPIRY_ORDER =
+      Comparator.comparingInt(Ingredient::getExpiryDay).thenComparingLong(Ingredient::getLotId);
+
+  private final Map<Integer, Map<IngredientStorage, List<Ingredient>>> lotsByIngredient;
+
+  /** Constructs an empty IngredientIndex. */
+  public IngredientIndex() {
+    lotsByIngredient = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void ingredientAdded(IngredientStorage storage, Ingredient ingredient) {
+    update(storage, ingredient.getIngredientId(), List.of(ingredient), List.of());
+  }
+
+  @Override
+  public void ingredientsAdded(
+      IngredientStorage storage,
+      List<Ingredient> addedIngredients,
+      Map<Ingredient, List<Ingredient>> mergedIngredients) {
+    if (!addedIngredients.isEmpty()) {
+      int ingredientId = addedIngredients.getFirst().getIngredientId();
+      update(storage, ingredientId, addedIngredients, List.of());
+    }
+  }
+
+  @Override
+  public void ingredientRemoved(IngredientStorage storage, Ingredient ingredient) {
+    update(storage, ingredient.getIngredientId(), List.of(), List.of(ingredient));
+  }
+
+  /**
+   * Removes the given storage from every entry of the index, used when the storage itself is
+   * removed.
+   *
+   * @param storage the storage to be removed from the index
+   */
+  public void removeStorage(IngredientStorage storage) {
+    for (int ingredientId : lotsByIngredient.keySet()) {
+      lotsByIngredient.computeIfPresent(ingredientId, (id, lots) -> without(lots, storage));
+    }
+  }
+
+  /**
+   * Finds the storages holding at least one lot of the specified ingredient.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return an unmodifiable snapshot of the matching storages; empty if no storage holds it
+   */
+  public Set<IngredientStorage> findStorages(String ingredientName) {
+    return findStorages(IngredientRegistry.findId(ingredientName));
+  }
+
+  /**
+   * Finds the storages holding at least one lot of the ingredient with the given id.
+   *
+   * @param ingredientId the id of the ingredient, see IngredientRegistry
+   * @return an unmodifiable snapshot of the matching storages; empty if no storage holds it
+   */
+  public Set<IngredientStorage> findStorages(int ingredientId) {
+    Map<IngredientStorage, List<Ingredient>> lots = lotsByIngredient.get(ingredientId);
+    return lots == null ? Set.of() : lots.keySet();
+  }
+
+  /**
+   * Finds every lot of the specified ingredient, grouped by the storage holding it. The lots are
+   * read from the index rather than from the storages, so a storage that is being changed never
+   * shows up without lots.
+   *
+   * @param ingredientName the name of the ingredient
+   * @return a map from storage to its lots of the ingredient in expiry order; empty if no storage
+   *     holds it
+   */
+  public Map<IngredientStorage, List<Ingredient>> findLots(String ingredientName) {
+    Map<IngredientStorage, List<Ingredient>> lots =
+        lotsByIngredient.get(IngredientRegistry.findId(ingredientName));
+    return lots == null ? Map.of() : lots;
+  }
+
+  /**
+   * Replaces the lots of an ingredient held by a storage with the given lots added and removed. The
+   * entry of the ingredient is replaced rather than changed, so that the maps handed out by the
+   * index never change.
+   *
+   * @param storage the storage holding the lots
+   * @param ingredientId the id of the ingredient
+   * @param added the lots that have been added to the storage
+   * @param removed the lots that have been removed from the storage
+   */
+  private void update(
+      IngredientStorage storage,
+      int ingredientId,
+      List<Ingredient> added,
+      List<Ingredient> removed) {
+    lotsByIngredient.compute(
+        ingredientId,
+        (id, lots) -> {
+          List<Ingredient> storageLots = new ArrayList<>();
+          if (lots != null) {
+            storageLots.addAll(lots.getOrDefault(storage, List.of()));
+          }
+          storageLots.removeAll(removed);
+          storageLots.addAll(added);
+          storageLots.sort(EXPIRY_ORDER);
+          if (storageLots.isEmpty()) {
+            return lots == null ? null : without(lots, storage);
+          }
+          Map<IngredientStorage, List<Ingredient>> updated =
+              new LinkedHashMap<>(lots == null ? Map.of() : lots);
+          updated.put(storage, List.copyOf(storageLots));
+          return Collections.unmodifiableMap(updated);
+        });
+  }
+
+  /**
+   * Creates a copy of the entry of an ingredient without the lots of the given storage.
+   *
+   * @param lots the entry of the ingredient
+   * @param storage the storage to be left out
+   * @return the copy, or null if no other storage holds the ingredient
+   */
+  private static Map<IngredientStorage, List<Ingredient>> without(
+      Map<IngredientStorage, List<Ingredient>> lots, IngredientStorage storage) {
+    if (!lots.containsKey(storage)) {
+      return lots;
+    }
+    Map<IngredientStorage, List<Ingredient>> updated = new LinkedHashMap<>(lots);
+    updated.remove(storage);
+    return updated.isEmpty() ? null : Collections.unmodifiableMap(updated);
+  }
+}
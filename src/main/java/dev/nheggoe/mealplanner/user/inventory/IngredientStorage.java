@@ -1,10 +1,18 @@
 package dev.nheggoe.mealplanner.user.inventory;
 
+import dev.nheggoe.mealplanner.util.DayClock;
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
 import dev.nheggoe.mealplanner.util.Utility;
+import dev.nheggoe.mealplanner.util.unit.DensityRegistry;
 import dev.nheggoe.mealplanner.util.unit.UnitConverter;
 import dev.nheggoe.mealplanner.util.unit.ValidUnit;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * The Inventory class manages collections of ingredients stored in various named collections.
@@ -14,13 +22,77 @@ import java.util.*;
  */
 public class IngredientStorage {
 
-  private final Map<String, List<Ingredient>> ingredientMap;
+  private final boolean concurrent;
+  private final Map<Integer, Map<Integer, Ingredient>> ingredientMap; // lots by expiry day
+  private final Map<Long, Ingredient> lotsById;
+  private final Map<Integer, StockTotal> stockTotals;
+  private final List<StorageListener> listeners;
+  private final AtomicLong totalValue;
   private String storageName;
 
   /** Constructor for the Storage class. */
   public IngredientStorage(String storageName) {
+    this(storageName, false);
+  }
+
+  /**
+   * Constructor for storages that may be shared between threads. A concurrent storage keeps its
+   * lots in concurrent collections, so that reading the storage never fails while another thread
+   * changes it, and lists the lots of an ingredient in expiry order. Changes to one ingredient are
+   * serialized by {@link #withLock(int, Supplier)}.
+   *
+   * @param storageName the name of the storage
+   * @param concurrent true if the storage is to be shared between threads
+   */
+  protected IngredientStorage(String storageName, boolean concurrent) {
     setStorageName(storageName);
-    ingredientMap = new HashMap<>();
+    this.concurrent = concurrent;
+    ingredientMap = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    lotsById = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    stockTotals = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    listeners = new CopyOnWriteArrayList<>();
+    totalValue = new AtomicLong();
+  }
+
+  /**
+   * Runs the given action while holding the lock of the given ingredient. Every read or change
+   * of the lots or the running total of one ingredient goes through this method. A storage used by
+   * a single thread needs no locking, so the action is run directly.
+   *
+   * @param ingredientId the id of the ingredient the action works on
+   * @param action the action to run
+   * @param <T> the result type of the action
+   * @return the result of the action
+   */
+  protected <T> T withLock(int ingredientId, Supplier<T> action) {
+    return action.get();
+  }
+
+  /**
+   * Registers a listener to be notified whenever an ingredient lot is added to, merged into, or
+   * removed from this storage. The listener is told that it has been added, see {@link
+   * StorageListener#listenerAdded(IngredientStorage)}.
+   *
+   * @param listener the listener to register
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addListener(StorageListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    listeners.add(listener);
+    listener.listenerAdded(this);
+  }
+
+  /**
+   * Unregisters a previously registered listener, and tells it that it has been removed.
+   *
+   * @param listener the listener to unregister
+   */
+  public void removeListener(StorageListener listener) {
+    if (listeners.remove(listener)) {
+      listener.listenerRemoved(this);
+    }
   }
 
   /**
@@ -33,11 +105,48 @@ public class IngredientStorage {
     if (newIngredient == null) {
       throw new IllegalArgumentException("Ingredient cannot be null");
     }
-    if (hasMatchingExpiryDate(newIngredient)) {
-      mergeIngredient(newIngredient);
-    } else {
-      addToList(newIngredient);
+    int ingredientId = newIngredient.getIngredientId();
+    withLock(
+        ingredientId,
+        () -> {
+          Ingredient existingIngredient = findLot(ingredientId, newIngredient);
+          if (existingIngredient != null) {
+            mergeIngredient(existingIngredient, newIngredient);
+          } else {
+            addLot(ingredientId, newIngredient);
+          }
+          return null;
+        });
+  }
+
+  /**
+   * Adds many ingredients to the storage at once. The ingredients are grouped by name, and each
+   * group is handled in a single pass: incoming ingredients with the same expiry date are merged
+   * with each other and with the lot already held, the running totals are updated once per lot,
+   * and listeners are notified once per group instead of once per ingredient.
+   *
+   * <p>Every merge is checked before any group is added, so ingredients that cannot be merged into
+   * the lots for their expiry dates leave the storage unchanged.
+   *
+   * @param newIngredients the ingredients to be added to the storage
+   * @throws IllegalArgumentException if the collection or any of its ingredients is null, or an
+   *     ingredient cannot be merged into the lot for its expiry date
+   */
+  public void addIngredients(Collection<Ingredient> newIngredients) {
+    if (newIngredients == null) {
+      throw new IllegalArgumentException("Ingredients cannot be null");
+    }
+    Map<Integer, List<Ingredient>> groups = new LinkedHashMap<>();
+    for (Ingredient newIngredient : newIngredients) {
+      if (newIngredient == null) {
+        throw new IllegalArgumentException("Ingredient cannot be null");
+      }
+      groups
+          .computeIfAbsent(newIngredient.getIngredientId(), id -> new ArrayList<>())
+          .add(newIngredient);
     }
+    groups.forEach((id, group) -> withLock(id, () -> checkGroup(id, group)));
+    groups.forEach((id, group) -> withLock(id, () -> addGroup(id, group)));
   }
 
   /**
@@ -53,8 +162,8 @@ public class IngredientStorage {
     Iterator<Measurement> it = measurements.iterator();
     while (!finished && it.hasNext()) {
       Measurement measurement = it.next();
-      List<Ingredient> ingredientList = ingredientMap.get(Utility.createKey(measurement.getName()));
-      if (ingredientList == null || !isAmountEnough(ingredientList, measurement)) {
+      int ingredientId = measurement.getIngredientId();
+      if (!withLock(ingredientId, () -> isAmountEnough(measurement))) {
         hasSufficientIngredients = false;
         finished = true;
       }
@@ -64,7 +173,52 @@ public class IngredientStorage {
   }
 
   /**
-   * Removes the specified ingredient from the storage, including cleanup if necessary.
+   * Retrieves the total amount of the specified ingredient held by the storage, across all of its
+   * lots, expressed in the given unit. Lots measured by mass count towards a volume, and the other
+   * way around, if the density of the ingredient is registered. Lots are not modified.
+   *
+   * @param ingredientName the name of the ingredient
+   * @param unit the unit in which the total is to be expressed
+   * @return the total amount in the given unit, or 0 if the ingredient is not present
+   */
+  public double getTotalAmount(String ingredientName, ValidUnit unit) {
+    return getTotalAmount(IngredientRegistry.findId(ingredientName), unit);
+  }
+
+  /**
+   * Retrieves the total amount of the ingredient with the given id held by the storage, across all
+   * of its lots, expressed in the given unit. Lots measured by mass count towards a volume, and the
+   * other way around, if the density of the ingredient is registered.
+   *
+   * @param ingredientId the id of the ingredient, see IngredientRegistry
+   * @param unit the unit in which the total is to be expressed
+   * @return the total amount in the given unit, or 0 if the ingredient is not present
+   */
+  public double getTotalAmount(int ingredientId, ValidUnit unit) {
+    ValidUnit baseUnit = UnitConverter.getBaseUnit(unit);
+    double density = DensityRegistry.getDensity(ingredientId);
+    double baseAmount =
+        withLock(
+            ingredientId,
+            () -> {
+              StockTotal stockTotal = stockTotals.get(ingredientId);
+              return stockTotal == null ? 0 : stockTotal.get(baseUnit, density);
+            });
+    return baseAmount * UnitConverter.getFactor(baseUnit, unit);
+  }
+
+  /**
+   * Retrieves the ids of every ingredient currently held by the storage.
+   *
+   * @return a snapshot of the ingredient ids, in no particular order
+   */
+  public int[] getIngredientIds() {
+    return ingredientMap.keySet().stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Removes the specified ingredient lot from the storage, including cleanup if necessary. The lot
+   * is found by its lot id, so it can be removed even after it has been merged or converted.
    *
    * @param ingredientToBeRemoved The ingredient to be removed from the storage.
    * @return true if the ingredient was successfully removed; false otherwise.
@@ -73,16 +227,35 @@ public class IngredientStorage {
     if (ingredientToBeRemoved == null) {
       return false;
     }
+    int ingredientId = ingredientToBeRemoved.getIngredientId();
+    return withLock(ingredientId, () -> removeLot(ingredientId, ingredientToBeRemoved));
+  }
 
-    // remove the ingredient from the list
-    List<Ingredient> ingredientList = getIngredientList(ingredientToBeRemoved.getName());
-    boolean status = ingredientList.remove(ingredientToBeRemoved);
+  /**
+   * Removes the ingredient lot with the specified lot id from the storage.
+   *
+   * @param lotId the lot id of the ingredient to be removed
+   * @return true if the ingredient was successfully removed; false otherwise.
+   */
+  public boolean removeIngredientById(long lotId) {
+    return removeIngredient(lotsById.get(lotId));
+  }
 
-    // clean up hashMap if arrayList(value) is empty
-    if (ingredientList.isEmpty()) {
-      ingredientMap.remove(Utility.createKey(ingredientToBeRemoved.getName()));
+  /**
+   * Removes all the specified ingredients from the storage. Ingredients that are no longer in the
+   * storage, for instance because another thread removed them first, are left out of the result.
+   *
+   * @param ingredientsToBeRemoved the ingredients to be removed from the storage
+   * @return the ingredients that were removed by this call, in the given order
+   */
+  public List<Ingredient> removeIngredients(Collection<Ingredient> ingredientsToBeRemoved) {
+    List<Ingredient> removed = new ArrayList<>();
+    for (Ingredient ingredient : ingredientsToBeRemoved) {
+      if (removeIngredient(ingredient)) {
+        removed.add(ingredient);
+      }
     }
-    return status;
+    return removed;
   }
 
   /**
@@ -92,7 +265,17 @@ public class IngredientStorage {
    * @return A list of matching ingredients, or null if no match is found.
    */
   public List<Ingredient> findIngredient(String ingredientName) {
-    return ingredientMap.get(Utility.createKey(ingredientName));
+    return getIngredientList(ingredientName);
+  }
+
+  /**
+   * Retrieves the ingredient lot with the specified lot id.
+   *
+   * @param lotId the lot id of the ingredient to find
+   * @return the matching Ingredient, or null if the storage holds no such lot
+   */
+  public Ingredient findIngredientById(long lotId) {
+    return lotsById.get(lotId);
   }
 
   /**
@@ -103,10 +286,19 @@ public class IngredientStorage {
    * @return the matching Ingredient, or null if no match is found
    */
   public Ingredient findIngredient(String ingredientName, LocalDate ingredientExpiryDate) {
-    return ingredientMap.get(ingredientName.toLowerCase()).stream()
-        .filter(ingredient -> ingredient.getExpiryDate().isEqual(ingredientExpiryDate))
-        .findFirst()
-        .orElse(null);
+    return findIngredient(ingredientName, (int) ingredientExpiryDate.toEpochDay());
+  }
+
+  /**
+   * Retrieves an ingredient matching the specified name and expiry day.
+   *
+   * @param ingredientName the name of the ingredient to find
+   * @param expiryDay the expiry date of the ingredient to match, as an epoch day
+   * @return the matching Ingredient, or null if no match is found
+   */
+  public Ingredient findIngredient(String ingredientName, int expiryDay) {
+    Map<Integer, Ingredient> lots = ingredientMap.get(IngredientRegistry.findId(ingredientName));
+    return (lots == null) ? null : lots.get(expiryDay);
   }
 
   /**
@@ -116,7 +308,17 @@ public class IngredientStorage {
    * @return true if the ingredient is present; false otherwise
    */
   public boolean isIngredientPresent(String ingredientName) {
-    return ingredientMap.containsKey(Utility.createKey(ingredientName));
+    return isIngredientPresent(IngredientRegistry.findId(ingredientName));
+  }
+
+  /**
+   * Checks if the ingredient with the specified id is present in the storage.
+   *
+   * @param ingredientId the id of the ingredient to check for
+   * @return true if the ingredient is present; false otherwise
+   */
+  public boolean isIngredientPresent(int ingredientId) {
+    return ingredientMap.containsKey(ingredientId);
   }
 
   /**
@@ -126,7 +328,17 @@ public class IngredientStorage {
    * @return a list of ingredients corresponding to the given name, or null if no match is found
    */
   public List<Ingredient> getIngredientList(String ingredientName) {
-    return ingredientMap.get(Utility.createKey(ingredientName));
+    return toList(ingredientMap.get(IngredientRegistry.findId(ingredientName)));
+  }
+
+  /**
+   * Retrieves the lots of the ingredient with the given id.
+   *
+   * @param ingredientId the id of the ingredient, see IngredientRegistry
+   * @return a list of the lots of the ingredient, or null if the storage does not hold it
+   */
+  public List<Ingredient> getIngredientList(int ingredientId) {
+    return toList(ingredientMap.get(ingredientId));
   }
 
   /**
@@ -136,7 +348,7 @@ public class IngredientStorage {
    * @return a list of matching ingredients, or null if no matches are found
    */
   public List<Ingredient> getIngredientList(Ingredient ingredient) {
-    return ingredientMap.get(Utility.createKey(ingredient));
+    return (ingredient == null) ? null : toList(ingredientMap.get(ingredient.getIngredientId()));
   }
 
   /**
@@ -151,16 +363,11 @@ public class IngredientStorage {
     }
 
     List<Ingredient> removedIngredients = new ArrayList<>(); // List to track removed ingredients
+    int today = DayClock.today();
 
-    for (List<Ingredient> ingredientList : ingredientMap.values()) {
-      ingredientList.removeIf(
-          ingredient -> {
-            boolean isExpired = ingredient.getExpiryDate().isBefore(LocalDate.now());
-            if (isExpired) {
-              removedIngredients.add(ingredient); // Collect expired ingredient
-            }
-            return isExpired;
-          });
+    for (int ingredientId : new ArrayList<>(ingredientMap.keySet())) {
+      removedIngredients.addAll(
+          withLock(ingredientId, () -> removeExpiredLots(ingredientId, today)));
     }
 
     if (!removedIngredients.isEmpty()) {
@@ -171,8 +378,20 @@ public class IngredientStorage {
     }
   }
 
+  /**
+   * Retrieves every ingredient lot held by the storage.
+   *
+   * @return a list of all ingredients in the storage; an empty list if the storage is empty.
+   */
+  public List<Ingredient> getAllIngredients() {
+    return ingredientMap.values().stream().flatMap(lots -> lots.values().stream()).toList();
+  }
+
   public List<String> getIngredientOverview() {
-    return ingredientMap.keySet().stream().map(Utility::capitalizeEachWord).toList();
+    return ingredientMap.keySet().stream()
+        .map(IngredientRegistry::getKey)
+        .map(Utility::capitalizeEachWord)
+        .toList();
   }
 
   /**
@@ -188,18 +407,21 @@ public class IngredientStorage {
       stringBuilder.append("\n   (Empty)");
     } else {
       ingredientMap.values().stream()
-          .flatMap(Collection::stream)
+          .flatMap(lots -> lots.values().stream())
           .map(Ingredient::toString)
           .forEach(string -> stringBuilder.append("\n").append(string));
     }
     return stringBuilder.toString();
   }
 
-  public float getAllValue() {
-    return ingredientMap.values().stream()
-        .flatMap(Collection::stream)
-        .map(Ingredient::getValue)
-        .reduce(0.0f, Float::sum);
+  /**
+   * Retrieves the total value of all ingredients in the storage. The total is kept up to date as
+   * ingredients are added, merged and removed.
+   *
+   * @return the total value in minor units (øre)
+   */
+  public long getAllValue() {
+    return totalValue.get();
   }
 
   public String getStorageName() {
@@ -221,75 +443,288 @@ public class IngredientStorage {
    * @return a list of expired ingredients; an empty list if no ingredients are expired.
    */
   public List<Ingredient> getAllExpired() {
+    int today = DayClock.today();
     return ingredientMap.values().stream()
-        .flatMap(List::stream)
-        .filter(ingredient -> ingredient.getExpiryDate().isBefore(LocalDate.now()))
+        .flatMap(lots -> lots.values().stream())
+        .filter(ingredient -> ingredient.getExpiryDay() < today)
         .toList();
   }
 
-  private boolean isAmountEnough(List<Ingredient> ingredientList, Measurement measurement) {
-    float targetAmount = measurement.getAmount();
+  /**
+   * Checks if the running total of an ingredient covers the amount of the given measurement,
+   * converting between mass and volume with the density of the ingredient if it is known.
+   *
+   * @param measurement the required amount of the ingredient
+   * @return true if the total is at least the required amount, false otherwise
+   */
+  private boolean isAmountEnough(Measurement measurement) {
+    StockTotal stockTotal = stockTotals.get(measurement.getIngredientId());
+    if (stockTotal == null) {
+      return false;
+    }
     ValidUnit targetUnit = measurement.getUnit();
-    float sum = 0;
-    for (Ingredient ingredient : ingredientList) {
-      UnitConverter.convertIngredient(ingredient, targetUnit);
-      sum += ingredient.getAmount();
+    float targetAmount = UnitConverter.toBaseAmount(measurement.getAmount(), targetUnit);
+    double density = DensityRegistry.getDensity(measurement.getIngredientId());
+    return stockTotal.get(UnitConverter.getBaseUnit(targetUnit), density) >= targetAmount;
+  }
+
+  /**
+   * Subtracts the amount of the given lot from the running total of its ingredient, and its value
+   * from the total value of the storage.
+   *
+   * @param ingredient the lot that is leaving the storage, or is about to be changed
+   */
+  private void subtractFromTotals(Ingredient ingredient) {
+    totalValue.addAndGet(-ingredient.getValue());
+    StockTotal stockTotal = stockTotals.get(ingredient.getIngredientId());
+    if (stockTotal != null) {
+      stockTotal.subtract(ingredient);
     }
-    return sum >= targetAmount;
   }
 
   /**
-   * Merges the given ingredient into the existing one in the ingredient map. If the ingredient is
-   * already present in the map with the same expiry date, the two ingredients are merged.
+   * Adds the amount of the given lot to the running total of its ingredient, and its value to the
+   * total value of the storage.
+   *
+   * @param ingredient the lot that has entered the storage, or has just been changed
+   */
+  private void addToTotals(Ingredient ingredient) {
+    totalValue.addAndGet(ingredient.getValue());
+    stockTotals
+        .computeIfAbsent(ingredient.getIngredientId(), id -> new StockTotal())
+        .add(ingredient);
+  }
+
+  /**
+   * Merges the given ingredient into the existing lot with the same name and expiry date.
    *
+   * @param existingIngredient the lot already held by the storage
    * @param ingredientToMerge The ingredient to be merged with an existing ingredient in the map.
    */
-  private void mergeIngredient(Ingredient ingredientToMerge) {
-    String name = ingredientToMerge.getName();
-    LocalDate expiryDate = ingredientToMerge.getExpiryDate();
-    Ingredient existingIngredient = findIngredient(name, expiryDate);
+  private void mergeIngredient(Ingredient existingIngredient, Ingredient ingredientToMerge) {
+    assertMergeable(existingIngredient, ingredientToMerge);
+    // merging may convert the unit and round the amount, so the lot is re-counted as a whole
+    subtractFromTotals(existingIngredient);
     existingIngredient.merge(ingredientToMerge);
+    addToTotals(existingIngredient);
+    listeners.forEach(
+        listener -> listener.ingredientMerged(this, existingIngredient, ingredientToMerge));
   }
 
   /**
-   * Adds the specified ingredient to the list associated with its map key. If the map key does not
-   * already exist, a new list is created.
+   * Checks that an ingredient can be merged into a lot, before anything is changed: its unit must
+   * convert to the unit of the lot, through the density of the ingredient if one measures mass and
+   * the other volume. Merging never changes the dimension of a lot, so the check holds for every
+   * later merge into the same lot as well.
    *
-   * @param ingredientToAdd the ingredient to be added to the list
+   * @param lot the lot the ingredient is to be merged into
+   * @param ingredientToMerge the ingredient to be merged
+   * @throws IllegalArgumentException if the unit of the ingredient cannot be converted to the unit
+   *     of the lot
    */
-  private void addToList(Ingredient ingredientToAdd) {
-    if (ingredientToAdd != null) {
-      ingredientMap
-          .computeIfAbsent(Utility.createKey(ingredientToAdd), key -> new ArrayList<>())
-          .add(ingredientToAdd);
+  private static void assertMergeable(Ingredient lot, Ingredient ingredientToMerge) {
+    double density = DensityRegistry.getDensity(lot.getIngredientId());
+    if (!UnitConverter.isConvertible(ingredientToMerge.getUnit(), lot.getUnit(), density)) {
+      throw new IllegalArgumentException(
+          "%s in %s cannot be merged into the lot measured in %s."
+              .formatted(
+                  lot.getName(),
+                  ingredientToMerge.getUnit().name().toLowerCase(),
+                  lot.getUnit().name().toLowerCase()));
     }
   }
 
   /**
-   * Checks if there is any ingredient in the storage with an expiry date matching the given
-   * ingredient.
+   * Adds the specified ingredient as a new lot under its ingredient id.
    *
-   * @param ingredientToCheck The ingredient whose expiry date is to be checked against the stored
-   *     ingredient
-   * @return true if a matching expiry date is found; false otherwise.
+   * @param ingredientId the id of the ingredient
+   * @param ingredientToAdd the ingredient to be added to the storage
+   */
+  private void addLot(int ingredientId, Ingredient ingredientToAdd) {
+    insertLots(ingredientId, List.of(ingredientToAdd));
+    listeners.forEach(listener -> listener.ingredientAdded(this, ingredientToAdd));
+  }
+
+  /**
+   * Adds a group of ingredients with the same ingredient id to the storage, and notifies the
+   * listeners once for the whole group. Each incoming ingredient either becomes a new lot, or is
+   * merged straight into the lot the storage holds for its expiry date, which may be a lot that an
+   * earlier ingredient of the group has just become. The incoming ingredients that were merged are
+   * left unchanged.
+   *
+   * <p>The group is checked again before anything is changed, since other threads may have added
+   * lots after {@link #checkGroup(int, List)} ran, so a group that cannot be added leaves the
+   * storage, its totals and its listeners as they were.
+   *
+   * @param ingredientId the id shared by the ingredients
+   * @param group the incoming ingredients
+   * @return always null, so that the method can be run through {@link #withLock(int, Supplier)}
+   * @throws IllegalArgumentException if an ingredient cannot be merged into the lot for its expiry
+   *     date
    */
-  private boolean hasMatchingExpiryDate(Ingredient ingredientToCheck) {
-    List<Ingredient> ingredientList = getIngredientList(ingredientToCheck);
-    return ingredientList != null
-        && ingredientList.stream()
-            .anyMatch(
-                ingredient ->
-                    getIngredientExpiryDate(ingredient)
-                        .isEqual(getIngredientExpiryDate(ingredientToCheck)));
+  private Void addGroup(int ingredientId, List<Ingredient> group) {
+    checkGroup(ingredientId, group);
+    Set<Ingredient> newLots = new LinkedHashSet<>();
+    Set<Ingredient> changedLots = new HashSet<>();
+    Map<Ingredient, List<Ingredient>> mergedIngredients = new LinkedHashMap<>();
+    for (Ingredient ingredient : group) {
+      Ingredient lot = findLot(ingredientId, ingredient);
+      if (lot == null) {
+        insertLots(ingredientId, List.of(ingredient));
+        newLots.add(ingredient);
+      } else {
+        // a changed lot is re-counted as a whole once every merge into it is done
+        if (changedLots.add(lot)) {
+          subtractFromTotals(lot);
+        }
+        lot.merge(ingredient);
+        if (!newLots.contains(lot)) {
+          mergedIngredients.computeIfAbsent(lot, key -> new ArrayList<>()).add(ingredient);
+        }
+      }
+    }
+    changedLots.forEach(this::addToTotals);
+    List<Ingredient> addedIngredients = List.copyOf(newLots);
+    listeners.forEach(
+        listener -> listener.ingredientsAdded(this, addedIngredients, mergedIngredients));
+    return null;
   }
 
   /**
-   * Retrieves the expiry date of the given ingredient.
+   * Checks that every ingredient of a group can be merged into the lot it will be merged into: the
+   * lot the storage holds for its expiry date, or else the first ingredient of the group with that
+   * expiry date, which becomes the lot.
    *
-   * @param ingredient The ingredient whose expiry date is to be retrieved.
-   * @return The expiry date of the ingredient.
+   * @param ingredientId the id shared by the ingredients
+   * @param group the incoming ingredients
+   * @return always null, so that the method can be run through {@link #withLock(int, Supplier)}
+   * @throws IllegalArgumentException if an ingredient cannot be merged into its lot
+   */
+  private Void checkGroup(int ingredientId, List<Ingredient> group) {
+    Map<Integer, Ingredient> lots = new HashMap<>();
+    for (Ingredient ingredient : group) {
+      Ingredient lot = lots.get(ingredient.getExpiryDay());
+      if (lot == null) {
+        lot = findLot(ingredientId, ingredient);
+      }
+      if (lot == null) {
+        lots.put(ingredient.getExpiryDay(), ingredient);
+      } else {
+        assertMergeable(lot, ingredient);
+        lots.put(ingredient.getExpiryDay(), lot);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Inserts new lots with the same ingredient id into the expiry map, the lot id index and the
+   * running totals of the storage, without notifying the listeners.
+   *
+   * @param ingredientId the id shared by the lots
+   * @param lots the lots to be inserted, with distinct expiry dates not yet held by the storage
+   */
+  private void insertLots(int ingredientId, List<Ingredient> lots) {
+    Map<Integer, Ingredient> lotsOfKey =
+        ingredientMap.computeIfAbsent(
+            ingredientId, k -> concurrent ? new ConcurrentSkipListMap<>() : new LinkedHashMap<>());
+    for (Ingredient lot : lots) {
+      lotsOfKey.put(lot.getExpiryDay(), lot);
+      lotsById.put(lot.getLotId(), lot);
+      addToTotals(lot);
+    }
+  }
+
+  /**
+   * Removes the lot with the same lot id as the given ingredient from the lots of the ingredient,
+   * including cleanup if it was the last lot of the ingredient.
+   *
+   * @param ingredientId the id of the ingredient
+   * @param ingredientToBeRemoved the ingredient to be removed
+   * @return true if a lot was removed, false otherwise
+   */
+  private boolean removeLot(int ingredientId, Ingredient ingredientToBeRemoved) {
+    Map<Integer, Ingredient> lots = ingredientMap.get(ingredientId);
+    Ingredient removedIngredient = lotsById.get(ingredientToBeRemoved.getLotId());
+    if (lots == null
+        || removedIngredient == null
+        || !lots.remove(removedIngredient.getExpiryDay(), removedIngredient)) {
+      return false;
+    }
+    lotsById.remove(removedIngredient.getLotId());
+    subtractFromTotals(removedIngredient);
+
+    // clean up hashMap if the ingredient has no lots left
+    if (lots.isEmpty()) {
+      removeIngredientId(ingredientId);
+    }
+    listeners.forEach(listener -> listener.ingredientRemoved(this, removedIngredient));
+    return true;
+  }
+
+  /**
+   * Removes every lot of the given ingredient that expired before the given day, including cleanup
+   * if no lots of the ingredient remain.
+   *
+   * @param ingredientId the id of the ingredient
+   * @param today the current epoch day
+   * @return the removed lots
+   */
+  private List<Ingredient> removeExpiredLots(int ingredientId, int today) {
+    Map<Integer, Ingredient> lots = ingredientMap.get(ingredientId);
+    if (lots == null) {
+      return List.of();
+    }
+    List<Ingredient> removedIngredients = new ArrayList<>();
+    for (Ingredient ingredient : lots.values()) {
+      if (ingredient.getExpiryDay() < today) {
+        removedIngredients.add(ingredient); // Collect expired ingredient
+      }
+    }
+    for (Ingredient removedIngredient : removedIngredients) {
+      lots.remove(removedIngredient.getExpiryDay());
+      lotsById.remove(removedIngredient.getLotId());
+      subtractFromTotals(removedIngredient);
+    }
+    if (lots.isEmpty()) {
+      removeIngredientId(ingredientId);
+    }
+    removedIngredients.forEach(
+        ingredient -> listeners.forEach(listener -> listener.ingredientRemoved(this, ingredient)));
+    return removedIngredients;
+  }
+
+  /**
+   * Removes the given ingredient from every map of the storage, used once its last lot is gone.
+   *
+   * @param ingredientId the id of the ingredient
+   */
+  private void removeIngredientId(int ingredientId) {
+    ingredientMap.remove(ingredientId);
+    stockTotals.remove(ingredientId);
+  }
+
+  /**
+   * Copies the lots of one ingredient into a new list.
+   *
+   * @param lots the lots of the ingredient by expiry day, may be null
+   * @return a list of the lots, or null if there are no lots
+   */
+  private static List<Ingredient> toList(Map<Integer, Ingredient> lots) {
+    return (lots == null) ? null : new ArrayList<>(lots.values());
+  }
+
+  /**
+   * Finds the lot of the storage with the same name and expiry date as the given ingredient, with
+   * a single probe of the per-name expiry map.
+   *
+   * @param ingredientId the id of the ingredient
+   * @param ingredientToCheck The ingredient whose expiry date is to be checked against the stored
+   *     ingredient
+   * @return the matching lot, or null if the storage holds no such lot
    */
-  private LocalDate getIngredientExpiryDate(Ingredient ingredient) {
-    return ingredient.getExpiryDate();
+  private Ingredient findLot(int ingredientId, Ingredient ingredientToCheck) {
+    Map<Integer, Ingredient> lots = ingredientMap.get(ingredientId);
+    return (lots == null) ? null : lots.get(ingredientToCheck.getExpiryDay());
   }
 }
@@ -1,11 +1,17 @@
 package dev.nheggoe.mealplanner.user.inventory;
 
+import dev.nheggoe.mealplanner.util.DayClock;
 import dev.nheggoe.mealplanner.util.InputScanner;
+import dev.nheggoe.mealplanner.util.Money;
 import dev.nheggoe.mealplanner.util.OutputHandler;
 import dev.nheggoe.mealplanner.util.Utility;
 import dev.nheggoe.mealplanner.util.input.UnitInput;
 import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages multiple ingredient storages and provides functionalities for ingredient and storage
@@ -21,7 +27,13 @@ public class InventoryManager {
 
   private final Map<String, IngredientStorage> storageMap;
   private final Stack<IngredientStorage> history;
-  private IngredientStorage currentStorage;
+  private final ExpiryIndex expiryIndex;
+  private final IngredientIndex ingredientIndex;
+  private final ValueTracker valueTracker;
+  private final List<StorageListener> storageListeners;
+  private final AtomicLong totalValue;
+  private final boolean concurrent;
+  private volatile IngredientStorage currentStorage;
 
   /**
    * Constructs an InventoryManager object with the specified input and output handlers. Initializes
@@ -31,10 +43,30 @@ public class InventoryManager {
    * @param outputHandler The OutputHandler instance for displaying outputs.
    */
   public InventoryManager(InputScanner inputScanner, OutputHandler outputHandler) {
+    this(inputScanner, outputHandler, false);
+  }
+
+  /**
+   * Constructs an InventoryManager object whose storages may be shared between threads, for
+   * instance between several sessions and background jobs working on the same inventory. The
+   * storages are then created as ConcurrentIngredientStorage, which pays for a lock per change.
+   *
+   * @param inputScanner The InputScanner instance for reading user inputs.
+   * @param outputHandler The OutputHandler instance for displaying outputs.
+   * @param concurrent true if the storages are to be shared between threads.
+   */
+  public InventoryManager(
+      InputScanner inputScanner, OutputHandler outputHandler, boolean concurrent) {
     this.inputScanner = inputScanner;
     this.outputHandler = outputHandler;
-    storageMap = new HashMap<>();
+    storageMap = new ConcurrentHashMap<>();
     history = new Stack<>();
+    expiryIndex = new ExpiryIndex();
+    ingredientIndex = new IngredientIndex();
+    valueTracker = new ValueTracker();
+    storageListeners = new CopyOnWriteArrayList<>();
+    totalValue = new AtomicLong();
+    this.concurrent = concurrent;
   }
 
   /**
@@ -44,7 +76,7 @@ public class InventoryManager {
    * @return The corresponding IngredientStorage object if it exists in the storage map.
    */
   public IngredientStorage getStorage(String storageName) {
-    return storageMap.get(Utility.createKey(storageName));
+    return (storageName == null) ? null : storageMap.get(Utility.createKey(storageName));
   }
 
   /**
@@ -69,13 +101,13 @@ public class InventoryManager {
    * @param ingredientName The name of the ingredient to search for in all storages.
    */
   public void findIngredientFromAll(String ingredientName) {
-    for (IngredientStorage storage : storageMap.values()) {
-      List<Ingredient> ingredientList = storage.findIngredient(ingredientName);
-      if (ingredientList != null && !ingredientList.isEmpty()) {
-        outputHandler.printOutput(storage.getStorageName() + ":");
-        outputHandler.printList(ingredientList, "bullet");
-      }
-    }
+    ingredientIndex
+        .findLots(ingredientName)
+        .forEach(
+            (storage, ingredientList) -> {
+              outputHandler.printOutput(storage.getStorageName() + ":");
+              outputHandler.printList(ingredientList, "bullet");
+            });
   }
 
   /**
@@ -88,7 +120,7 @@ public class InventoryManager {
    */
   public List<String> findSufficientStorages(List<Measurement> measurements) {
     ArrayList<IngredientStorage> listOfSufficientStorage = new ArrayList<>();
-    for (IngredientStorage storage : storageMap.values()) {
+    for (IngredientStorage storage : findCandidateStorages(measurements)) {
       if (storage.isIngredientEnough(measurements)) {
         listOfSufficientStorage.add(storage);
       }
@@ -96,6 +128,25 @@ public class InventoryManager {
     return listOfSufficientStorage.stream().map(IngredientStorage::getStorageName).toList();
   }
 
+  /**
+   * Retrieves the storages that may be able to cover all the given measurements. Only storages
+   * holding the least widespread of the required ingredients are candidates, since every other
+   * storage is certain to lack it.
+   *
+   * @param measurements The required ingredients.
+   * @return The candidate storages, or every storage if there are no measurements.
+   */
+  private Collection<IngredientStorage> findCandidateStorages(List<Measurement> measurements) {
+    Collection<IngredientStorage> candidates = storageMap.values();
+    for (Measurement measurement : measurements) {
+      Set<IngredientStorage> holders = ingredientIndex.findStorages(measurement.getName());
+      if (holders.size() < candidates.size()) {
+        candidates = holders;
+      }
+    }
+    return candidates;
+  }
+
   /**
    * Adds an ingredient to the current storage.
    *
@@ -106,6 +157,21 @@ public class InventoryManager {
     currentStorage.addIngredient(ingredientToBeAdded);
   }
 
+  /**
+   * Adds many ingredients to the current storage at once, for instance a whole delivery. Incoming
+   * ingredients with the same name and expiry date are merged with each other and with the lots
+   * already held in a single pass, and the inventory indexes are updated once per ingredient name
+   * instead of once per ingredient.
+   *
+   * @param ingredientsToBeAdded The ingredients to be added to the storage.
+   * @throws IllegalArgumentException if no storage is selected, or if the collection or any of
+   *     its ingredients is null
+   */
+  public void addIngredientsToCurrentStorage(Collection<Ingredient> ingredientsToBeAdded) {
+    assertInventoryIsAvailable();
+    currentStorage.addIngredients(ingredientsToBeAdded);
+  }
+
   /**
    * Removes an ingredient from the current storage after validating its existence. If multiple
    * ingredients match, prompts the user to select one.
@@ -157,29 +223,153 @@ public class InventoryManager {
    * @return true if the storage was successfully removed, or false if it did not exist.
    */
   public boolean removeStorage(String storageName) {
-    return storageMap.remove(Utility.createKey(storageName)) != null;
+    if (storageName == null) {
+      return false;
+    }
+    IngredientStorage removedStorage = storageMap.remove(Utility.createKey(storageName));
+    if (removedStorage != null) {
+      detachStorage(removedStorage);
+    }
+    return removedStorage != null;
   }
 
   /**
-   * Removes all expired ingredients from the current storage and calculates their total value.
+   * Removes all expired ingredients from the current storage.
    *
-   * @return The total value of the removed expired ingredients as a float.
+   * @return The expired ingredients that were removed by this call, in expiry order; lots removed
+   *     by another thread in the meantime are left out.
    */
-  public float removeAllExpired() {
+  public List<Ingredient> removeAllExpired() {
     assertInventoryIsAvailable();
-    List<Ingredient> expired = currentStorage.getAllExpired();
-    currentStorage.removeExpired();
-    return expired.stream().map(Ingredient::getValue).reduce(0.0f, Float::sum);
+    List<Ingredient> removed =
+        currentStorage.removeIngredients(
+            expiryIndex.findExpiringBefore(currentStorage, DayClock.today()));
+    if (removed.isEmpty()) {
+      outputHandler.printOutput("No expired ingredients were found.");
+    } else {
+      outputHandler.printOutput(removed.size() + " expired ingredients were removed:");
+      removed.forEach(ingredient -> outputHandler.printOutput(ingredient.toString()));
+    }
+    return removed;
+  }
+
+  /**
+   * Removes all expired ingredients from every storage.
+   *
+   * @return The expired ingredients that were removed by this call, grouped by storage; lots
+   *     removed by another thread in the meantime are left out.
+   */
+  public List<Ingredient> removeAllExpiredFromAll() {
+    List<Ingredient> removed = new ArrayList<>();
+    for (Map.Entry<IngredientStorage, List<Ingredient>> entry : getExpiredFromAll().entrySet()) {
+      List<Ingredient> removedFromStorage = entry.getKey().removeIngredients(entry.getValue());
+      if (!removedFromStorage.isEmpty()) {
+        outputHandler.printOutput(
+            removedFromStorage.size()
+                + " expired ingredients were removed from "
+                + entry.getKey().getStorageName()
+                + ":");
+        removedFromStorage.forEach(ingredient -> outputHandler.printOutput(ingredient.toString()));
+        removed.addAll(removedFromStorage);
+      }
+    }
+    if (removed.isEmpty()) {
+      outputHandler.printOutput("No expired ingredients were found.");
+    }
+    return removed;
+  }
+
+  /**
+   * Retrieves every expired ingredient across all storages, grouped by storage.
+   *
+   * @return a map from storage to its expired ingredients, in expiry order.
+   */
+  public Map<IngredientStorage, List<Ingredient>> getExpiredFromAll() {
+    return expiryIndex.findExpiringBefore(DayClock.today());
+  }
+
+  /**
+   * Retrieves every ingredient across all storages that is not yet expired but expires within the
+   * given number of days, grouped by storage.
+   *
+   * @param days the number of days from today to include
+   * @return a map from storage to its matching ingredients, in expiry order.
+   * @throws IllegalArgumentException if the number of days is negative
+   */
+  public Map<IngredientStorage, List<Ingredient>> getExpiringWithin(int days) {
+    if (days < 0) {
+      throw new IllegalArgumentException("Days cannot be negative");
+    }
+    int today = DayClock.today();
+    return expiryIndex.findExpiringBetween(today, today + days);
+  }
+
+  /**
+   * Retrieves every ingredient across all storages with an expiry date between the given dates
+   * (both inclusive), grouped by storage.
+   *
+   * @param from the first expiry date to include
+   * @param to the last expiry date to include
+   * @return a map from storage to its matching ingredients, in expiry order.
+   * @throws IllegalArgumentException if a date is null or the start date is after the end date
+   */
+  public Map<IngredientStorage, List<Ingredient>> getExpiringBetween(
+      LocalDate from, LocalDate to) {
+    if (from == null || to == null) {
+      throw new IllegalArgumentException("Dates cannot be null");
+    }
+    return expiryIndex.findExpiringBetween((int) from.toEpochDay(), (int) to.toEpochDay());
   }
 
   /**
    * Adds a new ingredient storage to the storage map with the provided name. The storage name is
-   * converted to lowercase before being used as the key in the map.
+   * converted to lowercase before being used as the key in the map. The storage can be shared
+   * between threads if the inventory was constructed to be concurrent.
    *
    * @param storageName The name of the storage to be added.
+   * @throws IllegalArgumentException if the storage name is null
    */
   public void createIngredientStorage(String storageName) {
-    storageMap.put(Utility.createKey(storageName), new IngredientStorage(storageName));
+    if (storageName == null) {
+      throw new IllegalArgumentException("Storage name cannot be null");
+    }
+    IngredientStorage storage =
+        concurrent
+            ? new ConcurrentIngredientStorage(storageName)
+            : new IngredientStorage(storageName);
+    storage.addListener(expiryIndex);
+    storage.addListener(valueTracker);
+    storage.addListener(ingredientIndex);
+    storageListeners.forEach(storage::addListener);
+    IngredientStorage replacedStorage = storageMap.put(Utility.createKey(storageName), storage);
+    if (replacedStorage != null) {
+      detachStorage(replacedStorage);
+    }
+  }
+
+  /**
+   * Registers a listener with every storage of the inventory, including storages created later.
+   * The listener is unregistered from a storage when the storage is removed.
+   *
+   * @param listener The listener to register.
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addStorageListener(StorageListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    storageListeners.add(listener);
+    storageMap.values().forEach(storage -> storage.addListener(listener));
+  }
+
+  /**
+   * Unregisters a listener from every storage of the inventory.
+   *
+   * @param listener The listener to unregister.
+   */
+  public void removeStorageListener(StorageListener listener) {
+    storageListeners.remove(listener);
+    storageMap.values().forEach(storage -> storage.removeListener(listener));
   }
 
   /**
@@ -192,6 +382,26 @@ public class InventoryManager {
     return currentStorage.getIngredientOverview();
   }
 
+  /**
+   * Retrieves all ingredient storages in the inventory.
+   *
+   * @return An unmodifiable snapshot of the storages currently in the storage map.
+   */
+  public List<IngredientStorage> getAllStorages() {
+    return List.copyOf(storageMap.values());
+  }
+
+  /**
+   * Retrieves the storages holding at least one lot of the ingredient with the given id, looked up
+   * in the ingredient index instead of scanning every storage.
+   *
+   * @param ingredientId The id of the ingredient, see IngredientRegistry.
+   * @return An unmodifiable snapshot of the storages holding the ingredient.
+   */
+  public Set<IngredientStorage> findStoragesHolding(int ingredientId) {
+    return ingredientIndex.findStorages(ingredientId);
+  }
+
   /**
    * Retrieves the names of all ingredient storages in the inventory.
    *
@@ -208,10 +418,17 @@ public class InventoryManager {
    *     followed by "kr."
    */
   public String getTotalValue() {
-    float sum =
-        storageMap.values().stream().map(IngredientStorage::getAllValue).reduce(0.0f, Float::sum);
-    sum = Math.round(sum * 100) / 100.0f;
-    return "Inventory has total value of: " + sum + " kr.";
+    return "Inventory has total value of: " + Money.format(totalValue.get()) + " kr.";
+  }
+
+  /**
+   * Retrieves the total value of all ingredients across all storages. The total is kept up to date
+   * as ingredients are added, merged and removed in any storage.
+   *
+   * @return the total value in minor units (øre)
+   */
+  public long getTotalValueInMinorUnits() {
+    return totalValue.get();
   }
 
   /**
@@ -301,7 +518,8 @@ public class InventoryManager {
    */
   public String getExpiredString() {
     assertInventoryIsAvailable();
-    List<Ingredient> listOfExpired = currentStorage.getAllExpired();
+    List<Ingredient> listOfExpired =
+        expiryIndex.findExpiringBefore(currentStorage, DayClock.today());
     StringBuilder stringBuilder = new StringBuilder();
     stringBuilder.append("####### Expired ########");
     listOfExpired.stream()
@@ -310,6 +528,26 @@ public class InventoryManager {
     return stringBuilder.toString();
   }
 
+  /**
+   * Retrieves a string representation of all ingredients across every storage that expire within
+   * the given number of days.
+   *
+   * @param days the number of days from today to include
+   * @return A string listing the matching ingredients, grouped by storage.
+   */
+  public String getExpiringString(int days) {
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append("####### Expiring #######");
+    getExpiringWithin(days)
+        .forEach(
+            (storage, ingredients) -> {
+              stringBuilder.append("\n ").append(storage.getStorageName());
+              ingredients.forEach(
+                  ingredient -> stringBuilder.append("\n").append(ingredient.toString()));
+            });
+    return stringBuilder.toString();
+  }
+
   /**
    * Collects and returns the number of days until expiry based on user input. Ensures the input is
    * a valid integer greater than or equal to -1.
@@ -362,6 +600,38 @@ public class InventoryManager {
     return input;
   }
 
+  /**
+   * Unregisters the indexes from the given storage and drops its ingredients from them.
+   *
+   * @param storage The storage that is no longer part of the inventory.
+   */
+  private void detachStorage(IngredientStorage storage) {
+    storage.removeListener(expiryIndex);
+    storage.removeListener(valueTracker);
+    storage.removeListener(ingredientIndex);
+    storageListeners.forEach(storage::removeListener);
+    expiryIndex.removeStorage(storage);
+    ingredientIndex.removeStorage(storage);
+    totalValue.addAndGet(-storage.getAllValue());
+    if (storage == currentStorage) {
+      currentStorage = null;
+    }
+  }
+
+  /**
+   * Sums the value of the given ingredients.
+   *
+   * @param ingredients The ingredients whose value is to be summed.
+   * @return The total value of the ingredients in minor units (øre).
+   */
+  private long sumValue(List<Ingredient> ingredients) {
+    long sum = 0;
+    for (Ingredient ingredient : ingredients) {
+      sum += ingredient.getValue();
+    }
+    return sum;
+  }
+
   /**
    * Ensures that the current inventory is not null.
    *
@@ -373,4 +643,36 @@ public class InventoryManager {
           "You are currently not in an inventory," + " please use the 'go' command.");
     }
   }
+
+  /** Keeps the total value of the inventory up to date as the content of the storages changes. */
+  private class ValueTracker implements StorageListener {
+
+    @Override
+    public void ingredientAdded(IngredientStorage storage, Ingredient ingredient) {
+      totalValue.addAndGet(ingredient.getValue());
+    }
+
+    @Override
+    public void ingredientMerged(
+        IngredientStorage storage, Ingredient existingIngredient, Ingredient mergedIngredient) {
+      totalValue.addAndGet(mergedIngredient.getValue());
+    }
+
+    @Override
+    public void ingredientsAdded(
+        IngredientStorage storage,
+        List<Ingredient> addedIngredients,
+        Map<Ingredient, List<Ingredient>> mergedIngredients) {
+      long addedValue = sumValue(addedIngredients);
+      for (List<Ingredient> ingredients : mergedIngredients.values()) {
+        addedValue += sumValue(ingredients);
+      }
+      totalValue.addAndGet(addedValue);
+    }
+
+    @Override
+    public void ingredientRemoved(IngredientStorage storage, Ingredient ingredient) {
+      totalValue.addAndGet(-ingredient.getValue());
+    }
+  }
 }
@@ -1,22 +1,25 @@
 package dev.nheggoe.mealplanner.user.inventory;
 
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
 import dev.nheggoe.mealplanner.util.input.UnitInput;
+import dev.nheggoe.mealplanner.util.unit.DensityRegistry;
+import dev.nheggoe.mealplanner.util.unit.Dimension;
 import dev.nheggoe.mealplanner.util.unit.UnitConverter;
 import dev.nheggoe.mealplanner.util.unit.ValidUnit;
-import java.util.List;
 import java.util.Objects;
 
 /**
- * Represents a measurement with a name, amount, unit, and ingredient type.
+ * Represents a measurement with a name, amount and unit. The dimension of the measurement follows
+ * from its unit.
  *
  * @author Nick Heggø
  * @version 2024-12-12
  */
 public class Measurement {
-  private String name; // Ingredient Name
+  private String name; // Ingredient Name, shared through IngredientRegistry
+  private int ingredientId = IngredientRegistry.UNKNOWN_ID;
   private float amount;
   private ValidUnit unit;
-  private IngredientType ingredientType; // set automatically, based on ValidUnit.
 
   /**
    * Default constructor for the Measurement class. Initializes a new instance of Measurement with
@@ -61,8 +64,7 @@ public class Measurement {
     }
     return Float.compare(amount, that.amount) == 0
         && Objects.equals(name, that.name)
-        && unit == that.unit
-        && ingredientType == that.ingredientType;
+        && unit == that.unit;
   }
 
   // IntelliJ Generated
@@ -71,26 +73,33 @@ public class Measurement {
     int result = Objects.hashCode(name);
     result = 31 * result + Float.hashCode(amount);
     result = 31 * result + Objects.hashCode(unit);
-    result = 31 * result + Objects.hashCode(ingredientType);
     return result;
   }
 
   /**
-   * Merges the specified Measurement instance with the current one. The units are automatically
-   * adjusted for consistency. If the merged amount reaches or exceeds 1000, it converts to a
-   * standard unit.
+   * Merges the specified Measurement instance with the current one. The amount to merge is
+   * converted to the unit of this measurement, using the density of the ingredient between mass and
+   * volume; the given measurement is not modified. If the merged amount reaches or exceeds 1000, it
+   * converts to a standard unit.
    *
    * @param measurementToMerge the Measurement instance to merge with the current one, must not be
    *     null
-   * @throws IllegalArgumentException if measurementToMerge is null
+   * @throws IllegalArgumentException if measurementToMerge is null, or its unit cannot be converted
+   *     to the unit of this measurement
    */
   public void merge(Measurement measurementToMerge) {
     if (measurementToMerge == null) {
       throw new IllegalArgumentException("Measurement cannot be null!");
     }
 
-    UnitConverter.autoMergeUnit(measurementToMerge, this.unit);
-    float mergedAmount = this.getAmount() + measurementToMerge.getAmount();
+    float mergedAmount =
+        this.getAmount()
+            + UnitConverter.convert(
+                measurementToMerge.getAmount(),
+                measurementToMerge.getUnit(),
+                this.unit,
+                DensityRegistry.getDensity(ingredientId));
+    mergedAmount = Math.round(mergedAmount * 100) / 100.0f;
     this.setAmount(mergedAmount);
     if (mergedAmount >= 1000) {
       UnitConverter.convertToStandard(this);
@@ -101,12 +110,35 @@ public class Measurement {
     return name;
   }
 
+  /**
+   * Sets the name of the ingredient being measured, and looks up its id in the IngredientRegistry.
+   *
+   * @param name the name of the ingredient
+   */
   public void setName(String name) {
-    this.name = name;
+    this.name = IngredientRegistry.intern(name);
+    this.ingredientId = IngredientRegistry.register(name);
   }
 
-  public List<Object> getStandardMeasurement() {
-    return UnitConverter.getStandardData(this);
+  /**
+   * Retrieves the id of the ingredient being measured, shared by every spelling of its name.
+   *
+   * @return the ingredient id, or IngredientRegistry.UNKNOWN_ID if no name is set
+   */
+  public int getIngredientId() {
+    return ingredientId;
+  }
+
+  /**
+   * Creates a copy of this measurement expressed in the standard unit of its dimension, kilograms
+   * for solids and litres for liquids. This measurement is not modified.
+   *
+   * @return the converted copy
+   */
+  public Measurement getStandardMeasurement() {
+    Measurement standardMeasurement = new Measurement(name, amount, unit);
+    UnitConverter.convertToStandard(standardMeasurement);
+    return standardMeasurement;
   }
 
   /**
@@ -131,12 +163,12 @@ public class Measurement {
   }
 
   /**
-   * Retrieves the type of ingredient as a string.
+   * Retrieves the dimension of the measurement, as given by its unit.
    *
-   * @return the ingredient type as a string.
+   * @return the dimension, or NONE if no unit is set
    */
-  public String getIngredientType() {
-    return ingredientType.toString();
+  public Dimension getDimension() {
+    return unit == null ? Dimension.NONE : unit.getDimension();
   }
 
   /**
@@ -162,28 +194,5 @@ public class Measurement {
       throw new IllegalArgumentException("Invalid unit, please try again.");
     }
     this.unit = unit;
-    autoSetIngredientType();
-  }
-
-  /**
-   * Automatically sets the ingredient type based on the valid unit. Throws IllegalArgumentException
-   * if the valid unit is null or unknown.
-   */
-  private void autoSetIngredientType() {
-    if (unit == null) {
-      throw new IllegalArgumentException("Ingredient type cannot be null.");
-    }
-
-    switch (getUnit()) {
-      case KG, G -> this.ingredientType = IngredientType.SOLID;
-      case L, DL, ML -> this.ingredientType = IngredientType.LIQUID;
-      default -> throw new IllegalArgumentException("Measurement Unit is unknown.");
-    }
-  }
-
-  /** Represents the property of ingredient. */
-  private enum IngredientType {
-    SOLID,
-    LIQUID
   }
 }
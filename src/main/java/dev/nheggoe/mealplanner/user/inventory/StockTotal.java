@@ -0,0 +1,74 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import dev.nheggoe.mealplanner.util.unit.Dimension;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+
+/**
+ * Running total of all lots of one ingredient within a storage, kept in base units (grams for
+ * solids, millilitres for liquids, pieces for counted ingredients), one per dimension. The total is
+ * updated whenever a lot is added, merged or removed, so sufficiency checks do not have to convert
+ * every lot.
+ *
+ * <p>The totals are kept exactly as added and subtracted. Removing every lot may leave a rounding
+ * error of either sign, so totals that are not positive count as nothing when read.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class StockTotal {
+  private static final Dimension[] DIMENSIONS = Dimension.values();
+
+  private final double[] baseAmounts = new double[DIMENSIONS.length];
+
+  /**
+   * Adds the amount of the given lot to the total.
+   *
+   * @param ingredient the lot whose amount is to be added
+   */
+  void add(Ingredient ingredient) {
+    update(ingredient, 1);
+  }
+
+  /**
+   * Subtracts the amount of the given lot from the total.
+   *
+   * @param ingredient the lot whose amount is to be subtracted
+   */
+  void subtract(Ingredient ingredient) {
+    update(ingredient, -1);
+  }
+
+  /**
+   * Retrieves the total amount in the given base unit. Lots measured by mass count towards a total
+   * in volume, and the other way around, if the density of the ingredient is known.
+   *
+   * @param baseUnit the base unit, either G, ML or PCS
+   * @param density the density of the ingredient in grams per millilitre, or NaN if unknown
+   * @return the total amount in that unit, or 0 if the unit is unknown
+   */
+  double get(ValidUnit baseUnit, double density) {
+    double total = 0;
+    for (Dimension dimension : DIMENSIONS) {
+      double baseAmount = baseAmounts[dimension.ordinal()];
+      ValidUnit dimensionBaseUnit = UnitConverter.getBaseUnit(dimension);
+      if (baseAmount > 0 && UnitConverter.isConvertible(dimensionBaseUnit, baseUnit, density)) {
+        total += baseAmount * UnitConverter.getFactor(dimensionBaseUnit, baseUnit, density);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Adds or subtracts the base amount of the given lot to the total of its dimension.
+   *
+   * @param ingredient the lot to be accounted for
+   * @param sign 1 to add the lot, -1 to subtract it
+   */
+  private void update(Ingredient ingredient, int sign) {
+    double baseAmount =
+        sign * UnitConverter.toBaseAmount(ingredient.getAmount(), ingredient.getUnit());
+    int dimension = ingredient.getUnit().getDimension().ordinal();
+    baseAmounts[dimension] += baseAmount;
+  }
+}
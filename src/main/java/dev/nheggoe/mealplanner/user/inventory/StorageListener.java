@@ -0,0 +1,85 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives notifications whenever the content of an IngredientStorage changes. Indexes that span
+ * several storages register themselves as listeners so that they are kept up to date without
+ * having to rescan the storages.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public interface StorageListener {
+
+  /**
+   * Called after the listener has been registered with a storage, so that it can take in the lots
+   * the storage already holds.
+   *
+   * @param storage the storage the listener was registered with
+   */
+  default void listenerAdded(IngredientStorage storage) {
+    // most indexes are registered while the storage is still empty
+  }
+
+  /**
+   * Called after the listener has been unregistered from a storage, so that it can drop whatever
+   * it keeps about the storage.
+   *
+   * @param storage the storage the listener was unregistered from
+   */
+  default void listenerRemoved(IngredientStorage storage) {
+    // most indexes are cleaned up by their owner
+  }
+
+  /**
+   * Called after a new ingredient lot has been added to the storage.
+   *
+   * @param storage the storage the ingredient was added to
+   * @param ingredient the ingredient lot that was added
+   */
+  void ingredientAdded(IngredientStorage storage, Ingredient ingredient);
+
+  /**
+   * Called after an incoming ingredient has been merged into an existing lot of the storage.
+   *
+   * @param storage the storage holding the existing lot
+   * @param existingIngredient the lot that the incoming ingredient was merged into
+   * @param mergedIngredient the incoming ingredient that was merged
+   */
+  default void ingredientMerged(
+      IngredientStorage storage, Ingredient existingIngredient, Ingredient mergedIngredient) {
+    // most indexes do not depend on the amount or value of a lot
+  }
+
+  /**
+   * Called once for every group of ingredients with the same name that has been added to the
+   * storage in bulk, instead of once per ingredient. By default the new lots are reported one by
+   * one through {@link #ingredientAdded(IngredientStorage, Ingredient)}, and the merges through
+   * {@link #ingredientMerged(IngredientStorage, Ingredient, Ingredient)}.
+   *
+   * @param storage the storage the ingredients were added to
+   * @param addedIngredients the lots that were new to the storage, including every incoming
+   *     ingredient of the group that was merged into them
+   * @param mergedIngredients the incoming ingredients that were merged into lots the storage
+   *     already held, keyed by the lot they were merged into
+   */
+  default void ingredientsAdded(
+      IngredientStorage storage,
+      List<Ingredient> addedIngredients,
+      Map<Ingredient, List<Ingredient>> mergedIngredients) {
+    addedIngredients.forEach(ingredient -> ingredientAdded(storage, ingredient));
+    mergedIngredients.forEach(
+        (lot, ingredients) ->
+            ingredients.forEach(ingredient -> ingredientMerged(storage, lot, ingredient)));
+  }
+
+  /**
+   * Called after an ingredient lot has been removed from the storage.
+   *
+   * @param storage the storage the ingredient was removed from
+   * @param ingredient the ingredient lot that was removed
+   */
+  void ingredientRemoved(IngredientStorage storage, Ingredient ingredient);
+}
@@ -0,0 +1,272 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.user.recipe.RequirementVector;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Materialised view of the recipes that can be cooked from a single storage. The view listens to
+ * the storages and the cookbook, and keeps, for every recipe and storage, the number of
+ * requirements of the recipe the storage does not yet cover. When the stock of an ingredient
+ * changes in a storage, only the requirements on that ingredient id are checked again, and only
+ * the counters of their recipes are updated. Reading the view therefore only touches the
+ * ingredients that have changed since the last read.
+ *
+ * <p>The requirements of a recipe are compiled when the recipe is added, and compiled again when
+ * the cookbook reports that its requirements have changed.
+ *
+ * <p>The view is thread-safe, see {@link RecipeStockView} for how it follows the storages.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class CookableRecipeView extends RecipeStockView {
+  private static final ValidUnit[] UNITS = ValidUnit.values();
+
+  private final Map<Recipe, RecipeNode> nodes;
+  private final List<RecipeNode> recipeOrder;
+  private final Map<Integer, List<Requirement>> requirementsByIngredient;
+  private Map<Recipe, List<IngredientStorage>> cookable;
+
+  /** Constructs an empty CookableRecipeView. */
+  public CookableRecipeView() {
+    nodes = new IdentityHashMap<>();
+    recipeOrder = new ArrayList<>();
+    requirementsByIngredient = new HashMap<>();
+  }
+
+  /**
+   * Retrieves every recipe that can be cooked from a single storage, together with the storages it
+   * can be cooked from. The result is kept until the next change, so repeated reads are free.
+   *
+   * @return an unmodifiable map from recipe to the storages holding enough of every ingredient, in
+   *     the order the recipes and storages were added; recipes that cannot be cooked are left out
+   */
+  public synchronized Map<Recipe, List<IngredientStorage>> getCookableRecipes() {
+    applyChanges();
+    if (cookable == null) {
+      Map<Recipe, List<IngredientStorage>> result = new LinkedHashMap<>();
+      for (RecipeNode node : recipeOrder) {
+        List<IngredientStorage> cookableFrom = new ArrayList<>();
+        for (IngredientStorage storage : getStorages()) {
+          if (node.unmet.get(storage) == 0) {
+            cookableFrom.add(storage);
+          }
+        }
+        if (!cookableFrom.isEmpty()) {
+          result.put(node.recipe, List.copyOf(cookableFrom));
+        }
+      }
+      cookable = Collections.unmodifiableMap(result);
+    }
+    return cookable;
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    if (!nodes.containsKey(recipe)) {
+      RecipeNode node = compile(recipe);
+      nodes.put(recipe, node);
+      recipeOrder.add(node);
+    }
+  }
+
+  /**
+   * Compiles the requirements of an edited recipe again, if they have changed, keeping the recipe
+   * in its place in the view.
+   *
+   * @param recipe the recipe that was changed
+   */
+  @Override
+  public synchronized void recipeChanged(Recipe recipe) {
+    RecipeNode node = nodes.get(recipe);
+    if (node != null && node.vector != recipe.getRequirements()) {
+      detach(node);
+      RecipeNode compiled = compile(recipe);
+      nodes.put(recipe, compiled);
+      recipeOrder.set(recipeOrder.indexOf(node), compiled);
+    }
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    RecipeNode node = nodes.remove(recipe);
+    if (node != null) {
+      recipeOrder.remove(node);
+      detach(node);
+    }
+  }
+
+  @Override
+  protected void storageAdded(IngredientStorage storage) {
+    nodes.values().forEach(node -> node.unmet.put(storage, node.requirements.length));
+    cookable = null;
+  }
+
+  @Override
+  protected void storageRemoved(IngredientStorage storage) {
+    for (RecipeNode node : nodes.values()) {
+      node.unmet.remove(storage);
+      for (Requirement requirement : node.requirements) {
+        requirement.satisfiedAt.remove(storage);
+      }
+    }
+    cookable = null;
+  }
+
+  @Override
+  protected void ingredientChanged(IngredientStorage storage, int ingredientId) {
+    List<Requirement> requirements = requirementsByIngredient.get(ingredientId);
+    if (requirements != null) {
+      apply(storage, requirements, readTotals(storage, ingredientId, requirements));
+    }
+  }
+
+  /**
+   * Compiles the current requirements of a recipe into a node, and adds the requirements to the
+   * index. Every requirement starts out unmet, and its ingredient is recorded as changed in every
+   * storage, so that it is checked on the next read.
+   *
+   * @param recipe the recipe to be compiled
+   * @return the node of the recipe
+   */
+  private RecipeNode compile(Recipe recipe) {
+    RequirementVector vector = recipe.getRequirements();
+    RecipeNode node = new RecipeNode(recipe, vector);
+    for (int i = 0; i < vector.size(); i++) {
+      Requirement requirement =
+          new Requirement(
+              node, vector.getIngredientId(i), vector.getBaseUnit(i), vector.getAmount(i));
+      node.requirements[i] = requirement;
+      requirementsByIngredient
+          .computeIfAbsent(requirement.ingredientId, id -> new ArrayList<>())
+          .add(requirement);
+    }
+    getStorages().forEach(storage -> node.unmet.put(storage, vector.size()));
+    cookable = null;
+    for (IngredientStorage storage : getStorages()) {
+      for (Requirement requirement : node.requirements) {
+        markChanged(storage, requirement.ingredientId);
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Removes the requirements of a node from the index.
+   *
+   * @param node the node to be removed
+   */
+  private void detach(RecipeNode node) {
+    for (Requirement requirement : node.requirements) {
+      List<Requirement> requirements = requirementsByIngredient.get(requirement.ingredientId);
+      requirements.remove(requirement);
+      if (requirements.isEmpty()) {
+        requirementsByIngredient.remove(requirement.ingredientId);
+      }
+    }
+    cookable = null;
+  }
+
+  /**
+   * Reads the total of an ingredient held by a storage in every base unit the given requirements
+   * are expressed in.
+   *
+   * @param storage the storage to be read
+   * @param ingredientId the id of the ingredient
+   * @param requirements the requirements on the ingredient
+   * @return the totals, indexed by the ordinal of the base unit; NaN for units not read
+   */
+  private double[] readTotals(
+      IngredientStorage storage, int ingredientId, List<Requirement> requirements) {
+    double[] totals = new double[UNITS.length];
+    Arrays.fill(totals, Double.NaN);
+    for (Requirement requirement : requirements) {
+      int unit = requirement.baseUnit.ordinal();
+      if (Double.isNaN(totals[unit])) {
+        totals[unit] = storage.getTotalAmount(ingredientId, requirement.baseUnit);
+      }
+    }
+    return totals;
+  }
+
+  /**
+   * Updates whether each of the given requirements is covered by the storage, and the counters of
+   * their recipes.
+   *
+   * @param storage the storage the totals were read from
+   * @param requirements the requirements to be updated
+   * @param totals the totals of the storage, indexed by the ordinal of the base unit
+   */
+  private void apply(IngredientStorage storage, List<Requirement> requirements, double[] totals) {
+    for (Requirement requirement : requirements) {
+      RecipeNode node = requirement.node;
+      boolean satisfied = totals[requirement.baseUnit.ordinal()] >= requirement.amount;
+      if (satisfied != requirement.satisfiedAt.contains(storage)) {
+        if (satisfied) {
+          requirement.satisfiedAt.add(storage);
+        } else {
+          requirement.satisfiedAt.remove(storage);
+        }
+        node.unmet.merge(storage, satisfied ? -1 : 1, Integer::sum);
+        cookable = null;
+      }
+    }
+  }
+
+  /** A recipe in the view, with its requirements and its unmet counter per storage. */
+  private static final class RecipeNode {
+    private final Recipe recipe;
+    private final RequirementVector vector;
+    private final Requirement[] requirements;
+    private final Map<IngredientStorage, Integer> unmet;
+
+    /**
+     * Constructs a RecipeNode.
+     *
+     * @param recipe the recipe
+     * @param vector the requirements the node is compiled from
+     */
+    private RecipeNode(Recipe recipe, RequirementVector vector) {
+      this.recipe = recipe;
+      this.vector = vector;
+      this.requirements = new Requirement[vector.size()];
+      this.unmet = new IdentityHashMap<>();
+    }
+  }
+
+  /** One requirement of a recipe, with the storages that currently cover it. */
+  private static final class Requirement {
+    private final RecipeNode node;
+    private final int ingredientId;
+    private final ValidUnit baseUnit;
+    private final double amount;
+    private final Set<IngredientStorage> satisfiedAt;
+
+    /**
+     * Constructs a Requirement.
+     *
+     * @param node the recipe the requirement belongs to
+     * @param ingredientId the id of the required ingredient
+     * @param baseUnit the base unit of the amount
+     * @param amount the required amount
+     */
+    private Requirement(RecipeNode node, int ingredientId, ValidUnit baseUnit, double amount) {
+      this.node = node;
+      this.ingredientId = ingredientId;
+      this.baseUnit = baseUnit;
+      this.amount = amount;
+      this.satisfiedAt = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable plan of one recipe per day for a number of consecutive days, together with the value
+ * of the ingredients it uses that would otherwise expire before the plan ends. Days without a
+ * suitable recipe are left empty.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public final class MealPlan {
+  private final int startDay;
+  private final Recipe[] recipes;
+  private final long savedValue;
+
+  /**
+   * Constructs a MealPlan.
+   *
+   * @param startDay the first day of the plan, in days since the epoch
+   * @param recipes the recipe of each day, null for an empty day; not copied
+   * @param savedValue the value of the expiring ingredients used, in minor units (øre)
+   */
+  MealPlan(int startDay, Recipe[] recipes, long savedValue) {
+    this.startDay = startDay;
+    this.recipes = recipes;
+    this.savedValue = savedValue;
+  }
+
+  /**
+   * Retrieves the number of days of the plan.
+   *
+   * @return the number of days
+   */
+  public int getDays() {
+    return recipes.length;
+  }
+
+  /**
+   * Retrieves the date of the given day of the plan.
+   *
+   * @param day the index of the day, starting from 0
+   * @return the date of the day
+   */
+  public LocalDate getDate(int day) {
+    return LocalDate.ofEpochDay((long) startDay + day);
+  }
+
+  /**
+   * Retrieves the recipe planned for the given day.
+   *
+   * @param day the index of the day, starting from 0
+   * @return the recipe, or null if nothing is planned for the day
+   */
+  public Recipe getRecipe(int day) {
+    return recipes[day];
+  }
+
+  /**
+   * Retrieves the value of the ingredients used by the plan that would otherwise expire before the
+   * plan ends.
+   *
+   * @return the value in minor units (øre), see Money
+   */
+  public long getSavedValue() {
+    return savedValue;
+  }
+
+  /**
+   * Checks if no recipe is planned for any day.
+   *
+   * @return true if every day is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return Arrays.stream(recipes).allMatch(Objects::isNull);
+  }
+}
@@ -0,0 +1,430 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.user.recipe.RequirementVector;
+import dev.nheggoe.mealplanner.util.DayClock;
+import dev.nheggoe.mealplanner.util.unit.DensityRegistry;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Plans one recipe per day for the coming days so that as much as possible of the value of the
+ * ingredients about to expire is used before it is wasted.
+ *
+ * <p>The lots of every storage are pooled and taken in order of expiry, and a lot can only be used
+ * on days up to its expiry date. Using a lot that expires before the plan ends saves its value, in
+ * proportion to the amount used; using a lot that lasts longer saves nothing. Every recipe is
+ * planned at most once.
+ *
+ * <p>The plan is built greedily, day by day, choosing the recipe that saves the most value on that
+ * day, with every recipe evaluated in parallel. It is then improved by local search: the recipe of
+ * a day is replaced by one of the best alternatives found by the greedy pass, or two days are
+ * swapped, and the days the move leaves empty are refilled from the alternatives. The best move is
+ * kept as long as it increases the value saved. All moves of a round are evaluated in parallel,
+ * and the search stops after {@value #MAX_ROUNDS} rounds or when no move helps.
+ *
+ * <p>The lots and recipes are compiled into arrays when the optimiser is constructed, so stock that
+ * changes afterwards is not reflected in its plans.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class MealPlanOptimiser {
+  private static final int ALTERNATIVES_PER_DAY = 8;
+  private static final int MAX_ROUNDS = 4;
+  private static final int NOTHING = -1;
+  private static final double EPSILON = 1e-6;
+
+  private final int today;
+  private final List<Recipe> recipes;
+  private final int[][] recipeSlots;
+  private final ValidUnit[][] recipeUnits;
+  private final double[][] recipeAmounts;
+
+  private final double[] slotDensities;
+  private final int[][] lotExpiryDays;
+  private final ValidUnit[][] lotUnits;
+  private final double[][] lotAmounts;
+  private final double[][] lotUnitValues;
+
+  /** A lot of the pooled stock, in its base unit. */
+  private record Lot(int expiryDay, ValidUnit unit, double amount, double unitValue) {}
+
+  /**
+   * Constructs a MealPlanOptimiser and compiles the given recipes against the pooled lots of the
+   * given storages. Expired lots are left out, and so are recipes that the pooled stock cannot
+   * cover even once, or that need no ingredients at all.
+   *
+   * @param recipes the recipes to choose from
+   * @param storages the storages whose lots are pooled
+   * @throws IllegalArgumentException if either collection, or any of their elements, is null
+   */
+  public MealPlanOptimiser(Collection<Recipe> recipes, Collection<IngredientStorage> storages) {
+    if (recipes == null || recipes.stream().anyMatch(Objects::isNull)) {
+      throw new IllegalArgumentException("Recipes cannot be null.");
+    }
+    if (storages == null || storages.stream().anyMatch(Objects::isNull)) {
+      throw new IllegalArgumentException("Storages cannot be null.");
+    }
+    today = DayClock.today();
+
+    Map<Integer, Integer> slotsById = new HashMap<>();
+    List<List<Lot>> lotsBySlot = new ArrayList<>();
+    List<Double> densities = new ArrayList<>();
+    for (IngredientStorage storage : storages) {
+      for (int ingredientId : storage.getIngredientIds()) {
+        List<Ingredient> lots = storage.getIngredientList(ingredientId);
+        if (lots != null) {
+          int slot =
+              slotsById.computeIfAbsent(
+                  ingredientId,
+                  id -> {
+                    lotsBySlot.add(new ArrayList<>());
+                    densities.add(DensityRegistry.getDensity(id));
+                    return lotsBySlot.size() - 1;
+                  });
+          lots.stream()
+              .filter(lot -> !lot.isExpired())
+              .map(this::toLot)
+              .forEach(lotsBySlot.get(slot)::add);
+        }
+      }
+    }
+
+    int slotCount = lotsBySlot.size();
+    slotDensities = densities.stream().mapToDouble(Double::doubleValue).toArray();
+    lotExpiryDays = new int[slotCount][];
+    lotUnits = new ValidUnit[slotCount][];
+    lotAmounts = new double[slotCount][];
+    lotUnitValues = new double[slotCount][];
+    for (int slot = 0; slot < slotCount; slot++) {
+      List<Lot> lots = lotsBySlot.get(slot);
+      lots.sort(Comparator.comparingInt(Lot::expiryDay));
+      lotExpiryDays[slot] = lots.stream().mapToInt(Lot::expiryDay).toArray();
+      lotUnits[slot] = lots.stream().map(Lot::unit).toArray(ValidUnit[]::new);
+      lotAmounts[slot] = lots.stream().mapToDouble(Lot::amount).toArray();
+      lotUnitValues[slot] = lots.stream().mapToDouble(Lot::unitValue).toArray();
+    }
+
+    this.recipes = new ArrayList<>();
+    List<int[]> slots = new ArrayList<>();
+    List<ValidUnit[]> units = new ArrayList<>();
+    List<double[]> amounts = new ArrayList<>();
+    for (Recipe recipe : recipes) {
+      RequirementVector requirements = recipe.getRequirements();
+      int size = requirements.size();
+      int[] recipeSlot = new int[size];
+      ValidUnit[] recipeUnit = new ValidUnit[size];
+      double[] recipeAmount = new double[size];
+      boolean coverable = size > 0;
+      for (int i = 0; i < size && coverable; i++) {
+        Integer slot = slotsById.get(requirements.getIngredientId(i));
+        coverable = slot != null;
+        if (coverable) {
+          recipeSlot[i] = slot;
+          recipeUnit[i] = requirements.getBaseUnit(i);
+          recipeAmount[i] = requirements.getAmount(i);
+        }
+      }
+      if (coverable && isCoverable(recipeSlot, recipeUnit, recipeAmount)) {
+        this.recipes.add(recipe);
+        slots.add(recipeSlot);
+        units.add(recipeUnit);
+        amounts.add(recipeAmount);
+      }
+    }
+    recipeSlots = slots.toArray(int[][]::new);
+    recipeUnits = units.toArray(ValidUnit[][]::new);
+    recipeAmounts = amounts.toArray(double[][]::new);
+  }
+
+  /**
+   * Plans a recipe for each of the given number of days, starting today.
+   *
+   * @param days the number of days to be planned
+   * @return the plan
+   * @throws IllegalArgumentException if the number of days is not positive
+   */
+  public MealPlan optimise(int days) {
+    if (days <= 0) {
+      throw new IllegalArgumentException("Number of days must be positive.");
+    }
+    double[][] savings = computeSavings(today + days);
+
+    int[] plan = new int[days];
+    Set<Integer> alternatives = new LinkedHashSet<>();
+    boolean[] planned = new boolean[recipes.size()];
+    double[][] remaining = copyOf(lotAmounts);
+    for (int t = 0; t < days; t++) {
+      int day = today + t;
+      double[][] stock = remaining;
+      double[] scores =
+          IntStream.range(0, recipes.size())
+              .parallel()
+              .mapToDouble(
+                  r ->
+                      planned[r]
+                          ? Double.NEGATIVE_INFINITY
+                          : consume(r, day, stock, savings, false))
+              .toArray();
+      int[] ranked =
+          IntStream.range(0, scores.length)
+              .filter(r -> scores[r] > EPSILON)
+              .boxed()
+              .sorted(Comparator.comparingDouble(r -> -scores[r]))
+              .limit(ALTERNATIVES_PER_DAY)
+              .mapToInt(Integer::intValue)
+              .toArray();
+      plan[t] = ranked.length == 0 ? NOTHING : ranked[0];
+      if (plan[t] != NOTHING) {
+        planned[plan[t]] = true;
+        consume(plan[t], day, remaining, savings, true);
+      }
+      Arrays.stream(ranked).forEach(alternatives::add);
+    }
+
+    double saved =
+        improve(plan, alternatives.stream().mapToInt(Integer::intValue).toArray(), savings);
+    Recipe[] plannedRecipes = new Recipe[days];
+    for (int t = 0; t < days; t++) {
+      plannedRecipes[t] = plan[t] == NOTHING ? null : recipes.get(plan[t]);
+    }
+    return new MealPlan(today, plannedRecipes, Math.round(saved));
+  }
+
+  /**
+   * Improves the plan in place by local search. A move replaces the recipe of a day by one of the
+   * alternatives or by nothing, or swaps two days, after which the plan is repaired; the best move
+   * is kept while it saves more value.
+   *
+   * @param plan the plan to be improved, holding the index of the recipe of each day
+   * @param alternatives the indices of the recipes worth trying
+   * @param savings the value saved per unit of each lot
+   * @return the value saved by the improved plan
+   */
+  private double improve(int[] plan, int[] alternatives, double[][] savings) {
+    double saved = repair(plan, alternatives, savings);
+    for (int round = 0; round < MAX_ROUNDS; round++) {
+      List<int[]> moves = new ArrayList<>();
+      Set<Integer> inPlan = new HashSet<>();
+      Arrays.stream(plan).forEach(inPlan::add);
+      for (int t = 0; t < plan.length; t++) {
+        for (int option : alternatives) {
+          if (!inPlan.contains(option)) {
+            moves.add(replace(plan, t, option));
+          }
+        }
+        if (plan[t] != NOTHING) {
+          moves.add(replace(plan, t, NOTHING));
+        }
+        for (int other = t + 1; other < plan.length; other++) {
+          if (plan[other] != plan[t]) {
+            int[] move = replace(plan, t, plan[other]);
+            move[other] = plan[t];
+            moves.add(move);
+          }
+        }
+      }
+
+      double[] results =
+          moves.parallelStream().mapToDouble(move -> repair(move, alternatives, savings)).toArray();
+      int best = NOTHING;
+      for (int m = 0; m < results.length; m++) {
+        if (results[m] > saved + EPSILON && (best == NOTHING || results[m] > results[best])) {
+          best = m;
+        }
+      }
+      if (best == NOTHING) {
+        break;
+      }
+      System.arraycopy(moves.get(best), 0, plan, 0, plan.length);
+      saved = results[best];
+    }
+    return saved;
+  }
+
+  /**
+   * Copies a plan with the recipe of one day replaced.
+   *
+   * @param plan the plan to be copied
+   * @param day the index of the day to be replaced
+   * @param recipe the index of the new recipe, or NOTHING
+   * @return the copy
+   */
+  private static int[] replace(int[] plan, int day, int recipe) {
+    int[] copy = plan.clone();
+    copy[day] = recipe;
+    return copy;
+  }
+
+  /**
+   * Simulates a plan from the current stock, repairing it in place on the way: a recipe that can
+   * no longer be cooked on its day is dropped, and every empty day gets the alternative not yet in
+   * the plan that saves the most value on that day, if any saves something.
+   *
+   * @param plan the index of the recipe of each day, or NOTHING
+   * @param alternatives the indices of the recipes that may fill an empty day
+   * @param savings the value saved per unit of each lot
+   * @return the value saved by the repaired plan
+   */
+  private double repair(int[] plan, int[] alternatives, double[][] savings) {
+    double[][] remaining = copyOf(lotAmounts);
+    Set<Integer> inPlan = new HashSet<>();
+    Arrays.stream(plan).forEach(inPlan::add);
+    double saved = 0;
+    for (int t = 0; t < plan.length; t++) {
+      int day = today + t;
+      double score = Double.NEGATIVE_INFINITY;
+      if (plan[t] != NOTHING) {
+        score = consume(plan[t], day, remaining, savings, false);
+      }
+      if (score == Double.NEGATIVE_INFINITY) {
+        inPlan.remove(plan[t]);
+        plan[t] = NOTHING;
+        score = EPSILON;
+        for (int option : alternatives) {
+          if (!inPlan.contains(option)) {
+            double optionScore = consume(option, day, remaining, savings, false);
+            if (optionScore > score) {
+              plan[t] = option;
+              score = optionScore;
+            }
+          }
+        }
+      }
+      if (plan[t] != NOTHING) {
+        inPlan.add(plan[t]);
+        consume(plan[t], day, remaining, savings, true);
+        saved += score;
+      }
+    }
+    return saved;
+  }
+
+  /**
+   * Takes the ingredients of a recipe from the lots that are still usable on the given day, those
+   * expiring first first. Each lot can only serve one requirement of a recipe, since the
+   * requirements of a recipe are in units that cannot be converted into each other.
+   *
+   * @param recipe the index of the recipe
+   * @param day the day of cooking, in days since the epoch
+   * @param remaining the remaining amount of every lot
+   * @param savings the value saved per unit of each lot
+   * @param apply whether to take the amounts from the remaining stock, or only to evaluate
+   * @return the value saved, or negative infinity if the stock is not enough
+   */
+  private double consume(
+      int recipe, int day, double[][] remaining, double[][] savings, boolean apply) {
+    double saved = 0;
+    int[] slots = recipeSlots[recipe];
+    for (int i = 0; i < slots.length; i++) {
+      int slot = slots[i];
+      ValidUnit unit = recipeUnits[recipe][i];
+      double needed = recipeAmounts[recipe][i];
+      for (int lot = 0; lot < remaining[slot].length && needed > EPSILON; lot++) {
+        ValidUnit lotUnit = lotUnits[slot][lot];
+        if (lotExpiryDays[slot][lot] >= day
+            && remaining[slot][lot] > 0
+            && UnitConverter.isConvertible(unit, lotUnit, slotDensities[slot])) {
+          double factor = UnitConverter.getFactor(unit, lotUnit, slotDensities[slot]);
+          double taken = Math.min(needed * factor, remaining[slot][lot]);
+          saved += taken * savings[slot][lot];
+          needed -= taken / factor;
+          if (apply) {
+            remaining[slot][lot] -= taken;
+          }
+        }
+      }
+      if (needed > EPSILON) {
+        return Double.NEGATIVE_INFINITY;
+      }
+    }
+    return saved;
+  }
+
+  /**
+   * Checks if the pooled lots can cover the requirements of a recipe at all, ignoring expiry.
+   *
+   * @param slots the slot of each requirement
+   * @param units the base unit of each requirement
+   * @param amounts the amount of each requirement
+   * @return true if every requirement is covered, false otherwise
+   */
+  private boolean isCoverable(int[] slots, ValidUnit[] units, double[] amounts) {
+    for (int i = 0; i < slots.length; i++) {
+      double available = 0;
+      int slot = slots[i];
+      for (int lot = 0; lot < lotAmounts[slot].length; lot++) {
+        if (UnitConverter.isConvertible(lotUnits[slot][lot], units[i], slotDensities[slot])) {
+          available +=
+              lotAmounts[slot][lot]
+                  * UnitConverter.getFactor(lotUnits[slot][lot], units[i], slotDensities[slot]);
+        }
+      }
+      if (available < amounts[i] - EPSILON) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes the value saved per unit of each lot when it is used: its value per unit if it
+   * expires before the end of the plan, and nothing otherwise.
+   *
+   * @param endDay the first day after the plan, in days since the epoch
+   * @return the value saved per unit of each lot
+   */
+  private double[][] computeSavings(int endDay) {
+    double[][] savings = new double[lotUnitValues.length][];
+    for (int slot = 0; slot < savings.length; slot++) {
+      savings[slot] = new double[lotUnitValues[slot].length];
+      for (int lot = 0; lot < savings[slot].length; lot++) {
+        savings[slot][lot] = lotExpiryDays[slot][lot] < endDay ? lotUnitValues[slot][lot] : 0;
+      }
+    }
+    return savings;
+  }
+
+  /**
+   * Converts an ingredient lot into a lot of the pooled stock, in its base unit.
+   *
+   * @param ingredient the ingredient lot
+   * @return the pooled lot
+   */
+  private Lot toLot(Ingredient ingredient) {
+    ValidUnit baseUnit = UnitConverter.getBaseUnit(ingredient.getUnit());
+    double amount =
+        ingredient.getAmount() * UnitConverter.getFactor(ingredient.getUnit(), baseUnit);
+    double unitValue = amount > 0 ? ingredient.getValue() / amount : 0;
+    return new Lot(ingredient.getExpiryDay(), baseUnit, amount, unitValue);
+  }
+
+  /**
+   * Copies a jagged array of doubles.
+   *
+   * @param array the array to be copied
+   * @return the deep copy
+   */
+  private static double[][] copyOf(double[][] array) {
+    double[][] copy = new double[array.length][];
+    for (int i = 0; i < array.length; i++) {
+      copy[i] = array[i].clone();
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,101 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import java.util.List;
+
+/**
+ * Immutable plan for gathering the ingredients of a recipe from several storages: which amount of
+ * which lot to take from which storage. A plan that cannot be completed holds no picks.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public final class PickPlan {
+  private static final PickPlan INCOMPLETE = new PickPlan(false, List.of(), List.of());
+
+  private final boolean complete;
+  private final List<IngredientStorage> storages;
+  private final List<Pick> picks;
+
+  /**
+   * A single pick of the plan.
+   *
+   * @param storage the storage to take from
+   * @param lot the lot to take from
+   * @param amount the amount to take, in the unit of the lot
+   */
+  public record Pick(IngredientStorage storage, Ingredient lot, float amount) {
+
+    @Override
+    public String toString() {
+      return "%s %s %s (expires %s) from %s"
+          .formatted(
+              amount,
+              lot.getUnit().name().toLowerCase(),
+              lot.getName(),
+              lot.getExpiryDate(),
+              storage.getStorageName());
+    }
+  }
+
+  /**
+   * Constructs a PickPlan.
+   *
+   * @param complete whether the picks cover every requirement
+   * @param storages the storages the picks are taken from
+   * @param picks the picks
+   */
+  private PickPlan(boolean complete, List<IngredientStorage> storages, List<Pick> picks) {
+    this.complete = complete;
+    this.storages = storages;
+    this.picks = picks;
+  }
+
+  /**
+   * Creates a complete plan.
+   *
+   * @param storages the storages the picks are taken from
+   * @param picks the picks covering every requirement
+   * @return the plan
+   */
+  static PickPlan of(List<IngredientStorage> storages, List<Pick> picks) {
+    return new PickPlan(true, List.copyOf(storages), List.copyOf(picks));
+  }
+
+  /**
+   * Retrieves the plan for requirements that the pooled stock cannot cover.
+   *
+   * @return an incomplete plan without picks
+   */
+  static PickPlan incomplete() {
+    return INCOMPLETE;
+  }
+
+  /**
+   * Checks if the pooled stock covers every requirement.
+   *
+   * @return true if the picks cover every requirement, false otherwise
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Retrieves the storages the picks are taken from.
+   *
+   * @return the storages, empty if the plan is incomplete
+   */
+  public List<IngredientStorage> getStorages() {
+    return storages;
+  }
+
+  /**
+   * Retrieves the picks of the plan, ordered by ingredient and then by expiry date.
+   *
+   * @return the picks, empty if the plan is incomplete
+   */
+  public List<Pick> getPicks() {
+    return picks;
+  }
+}
@@ -0,0 +1,310 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.InventoryManager;
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.recipe.RequirementVector;
+import dev.nheggoe.mealplanner.util.unit.DensityRegistry;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Plans how to gather the ingredients of a recipe when the stock of several storages is pooled.
+ * The plan uses as few storages as possible, and takes the lots that expire first.
+ *
+ * <p>Only the storages holding a required ingredient are considered, looked up in the ingredient
+ * index of the inventory, and each of them is summarised by its running total of every required
+ * ingredient. Choosing the storages is therefore independent of the number of lots. With up to
+ * {@value #EXACT_SEARCH_LIMIT} candidate storages the smallest covering set is found exactly; with
+ * more, storages are chosen greedily by how much of the remaining requirements they cover, and
+ * storages that turn out to be redundant are dropped afterwards. Among equally good choices, the
+ * storages whose required lots expire first are preferred.
+ *
+ * <p>The plan is a snapshot: stock that changes afterwards is not reflected in it.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class PickPlanner {
+  private static final int EXACT_SEARCH_LIMIT = 16;
+  private static final double EPSILON = 1e-6;
+
+  private final InventoryManager inventoryManager;
+
+  /**
+   * Constructs a PickPlanner over the storages of the given inventory.
+   *
+   * @param inventoryManager the inventory whose storages are pooled
+   * @throws IllegalArgumentException if the inventory is null
+   */
+  public PickPlanner(InventoryManager inventoryManager) {
+    if (inventoryManager == null) {
+      throw new IllegalArgumentException("Inventory cannot be null.");
+    }
+    this.inventoryManager = inventoryManager;
+  }
+
+  /**
+   * Plans which lots to take from which storages to cover the given measurements.
+   *
+   * @param measurements the required ingredients and amounts
+   * @return the plan; incomplete if the pooled stock of every storage is not enough
+   */
+  public PickPlan plan(Collection<Measurement> measurements) {
+    return plan(RequirementVector.of(measurements));
+  }
+
+  /**
+   * Plans which lots to take from which storages to cover the given requirements, such as those of
+   * a recipe.
+   *
+   * @param requirements the required ingredients and amounts, in base units
+   * @return the plan; incomplete if the pooled stock of every storage is not enough
+   */
+  public PickPlan plan(RequirementVector requirements) {
+    int size = requirements.size();
+    double[] amounts = IntStream.range(0, size).mapToDouble(requirements::getAmount).toArray();
+
+    Map<IngredientStorage, double[]> stockByStorage = new LinkedHashMap<>();
+    double[] pooled = new double[size];
+    for (int i = 0; i < size; i++) {
+      int ingredientId = requirements.getIngredientId(i);
+      for (IngredientStorage storage : inventoryManager.findStoragesHolding(ingredientId)) {
+        double total = storage.getTotalAmount(ingredientId, requirements.getBaseUnit(i));
+        stockByStorage.computeIfAbsent(storage, s -> new double[size])[i] = total;
+        pooled[i] += total;
+      }
+    }
+    if (!covers(pooled, amounts)) {
+      return PickPlan.incomplete();
+    }
+
+    Map<IngredientStorage, Integer> expiryByStorage = new LinkedHashMap<>();
+    stockByStorage
+        .keySet()
+        .forEach(storage -> expiryByStorage.put(storage, earliestExpiry(storage, requirements)));
+    List<IngredientStorage> candidates = new ArrayList<>(stockByStorage.keySet());
+    candidates.sort(Comparator.comparingInt(expiryByStorage::get));
+    double[][] stock = candidates.stream().map(stockByStorage::get).toArray(double[][]::new);
+    int[] chosen =
+        candidates.size() <= EXACT_SEARCH_LIMIT
+            ? findSmallestCover(stock, amounts)
+            : findGreedyCover(stock, amounts);
+
+    List<IngredientStorage> storages = new ArrayList<>();
+    for (int candidate : chosen) {
+      storages.add(candidates.get(candidate));
+    }
+    List<PickPlan.Pick> picks = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      if (!pickLots(requirements, i, storages, picks)) {
+        return PickPlan.incomplete();
+      }
+    }
+    return PickPlan.of(storages, picks);
+  }
+
+  /**
+   * Finds the smallest set of storages covering every requirement, by trying every combination of
+   * one storage, then of two storages, and so on. Combinations are tried in the order of the
+   * storages, so the first covering set found prefers the storages that come first.
+   *
+   * @param stock the stock of every required ingredient, per storage
+   * @param amounts the required amount of every ingredient
+   * @return the indices of the chosen storages, in order
+   */
+  private static int[] findSmallestCover(double[][] stock, double[] amounts) {
+    for (int count = 1; count < stock.length; count++) {
+      int[] combination = new int[count];
+      double[][] covered = new double[count + 1][amounts.length];
+      if (searchCover(stock, amounts, combination, covered, 0, 0)) {
+        return combination;
+      }
+    }
+    return IntStream.range(0, stock.length).toArray();
+  }
+
+  /**
+   * Completes the given combination of storages from the given depth onwards, looking for one that
+   * covers every requirement.
+   *
+   * @param stock the stock of every required ingredient, per storage
+   * @param amounts the required amount of every ingredient
+   * @param combination the combination being built, filled up to the given depth
+   * @param covered the amounts covered by the first storages of the combination, per depth
+   * @param depth the number of storages already in the combination
+   * @param start the first storage that may be added
+   * @return true if a covering combination was found and left in the array, false otherwise
+   */
+  private static boolean searchCover(
+      double[][] stock,
+      double[] amounts,
+      int[] combination,
+      double[][] covered,
+      int depth,
+      int start) {
+    if (depth == combination.length) {
+      return covers(covered[depth], amounts);
+    }
+    for (int s = start; s <= stock.length - (combination.length - depth); s++) {
+      combination[depth] = s;
+      for (int i = 0; i < amounts.length; i++) {
+        covered[depth + 1][i] = covered[depth][i] + stock[s][i];
+      }
+      if (searchCover(stock, amounts, combination, covered, depth + 1, s + 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Chooses storages greedily, each time the one covering the largest share of the remaining
+   * requirements, until every requirement is covered. Storages that are no longer needed once the
+   * others are chosen are then dropped, those coming last first.
+   *
+   * @param stock the stock of every required ingredient, per storage
+   * @param amounts the required amount of every ingredient
+   * @return the indices of the chosen storages, in order
+   */
+  private static int[] findGreedyCover(double[][] stock, double[] amounts) {
+    double[] covered = new double[amounts.length];
+    boolean[] chosen = new boolean[stock.length];
+    while (!covers(covered, amounts)) {
+      int best = -1;
+      double bestGain = 0;
+      for (int s = 0; s < stock.length; s++) {
+        double gain = 0;
+        for (int i = 0; i < amounts.length && !chosen[s]; i++) {
+          double missing = amounts[i] - covered[i];
+          if (missing > EPSILON) {
+            gain += Math.min(missing, stock[s][i]) / amounts[i];
+          }
+        }
+        if (gain > bestGain) {
+          best = s;
+          bestGain = gain;
+        }
+      }
+      if (best < 0) {
+        break;
+      }
+      chosen[best] = true;
+      for (int i = 0; i < amounts.length; i++) {
+        covered[i] += stock[best][i];
+      }
+    }
+
+    for (int s = stock.length - 1; s >= 0; s--) {
+      if (chosen[s]) {
+        chosen[s] = false;
+        chosen[s] = !covers(sumChosen(stock, chosen, amounts.length), amounts);
+      }
+    }
+    return IntStream.range(0, stock.length).filter(s -> chosen[s]).toArray();
+  }
+
+  /**
+   * Picks the lots covering one requirement from the chosen storages, those expiring first first.
+   *
+   * @param requirements the requirement vector
+   * @param index the index of the requirement to be covered
+   * @param storages the chosen storages
+   * @param picks the list the picks are added to
+   * @return true if the requirement was covered, false if the stock has changed meanwhile
+   */
+  private static boolean pickLots(
+      RequirementVector requirements,
+      int index,
+      List<IngredientStorage> storages,
+      List<PickPlan.Pick> picks) {
+    int ingredientId = requirements.getIngredientId(index);
+    ValidUnit baseUnit = requirements.getBaseUnit(index);
+    double density = DensityRegistry.getDensity(ingredientId);
+
+    List<PickPlan.Pick> available = new ArrayList<>();
+    for (IngredientStorage storage : storages) {
+      List<Ingredient> lots = storage.getIngredientList(ingredientId);
+      if (lots != null) {
+        for (Ingredient lot : lots) {
+          if (UnitConverter.isConvertible(lot.getUnit(), baseUnit, density)) {
+            available.add(new PickPlan.Pick(storage, lot, lot.getAmount()));
+          }
+        }
+      }
+    }
+    available.sort(Comparator.comparingInt(pick -> pick.lot().getExpiryDay()));
+
+    double remaining = requirements.getAmount(index);
+    for (int i = 0; i < available.size() && remaining > EPSILON; i++) {
+      PickPlan.Pick pick = available.get(i);
+      double factor = UnitConverter.getFactor(pick.lot().getUnit(), baseUnit, density);
+      double taken = Math.min(remaining, pick.amount() * factor);
+      picks.add(new PickPlan.Pick(pick.storage(), pick.lot(), (float) (taken / factor)));
+      remaining -= taken;
+    }
+    return remaining <= EPSILON;
+  }
+
+  /**
+   * Finds the earliest expiry day among the lots of the required ingredients held by a storage.
+   *
+   * @param storage the storage
+   * @param requirements the requirement vector
+   * @return the earliest expiry day, or Integer.MAX_VALUE if the storage holds none of them
+   */
+  private static int earliestExpiry(IngredientStorage storage, RequirementVector requirements) {
+    int earliest = Integer.MAX_VALUE;
+    for (int i = 0; i < requirements.size(); i++) {
+      List<Ingredient> lots = storage.getIngredientList(requirements.getIngredientId(i));
+      if (lots != null) {
+        for (Ingredient lot : lots) {
+          earliest = Math.min(earliest, lot.getExpiryDay());
+        }
+      }
+    }
+    return earliest;
+  }
+
+  /**
+   * Sums the stock of the chosen storages.
+   *
+   * @param stock the stock of every required ingredient, per storage
+   * @param chosen whether each storage is chosen
+   * @param size the number of requirements
+   * @return the summed stock of every required ingredient
+   */
+  private static double[] sumChosen(double[][] stock, boolean[] chosen, int size) {
+    double[] sum = new double[size];
+    for (int s = 0; s < stock.length; s++) {
+      for (int i = 0; i < size && chosen[s]; i++) {
+        sum[i] += stock[s][i];
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Checks if the given amounts cover the required amounts, allowing for rounding errors.
+   *
+   * @param covered the covered amount of every requirement
+   * @param amounts the required amount of every requirement
+   * @return true if every requirement is covered, false otherwise
+   */
+  private static boolean covers(double[] covered, double[] amounts) {
+    for (int i = 0; i < amounts.length; i++) {
+      if (covered[i] < amounts[i] - EPSILON) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,419 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.user.recipe.RequirementVector;
+import dev.nheggoe.mealplanner.util.unit.DensityRegistry;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Prices recipes from the value of the ingredient lots held across the storages, and keeps the
+ * recipes sorted by cost.
+ *
+ * <p>The engine listens to the storages and keeps, for every storage, ingredient and base unit, a
+ * summary of the value and amount of the lots. The summaries of all storages are combined into a
+ * price per base unit for each {@link Pricing}. When the lots of an ingredient change, only its
+ * prices are computed again, and only the recipes using an ingredient whose price has changed are
+ * priced again and moved in the cost order. Reading the recipes by cost therefore only reads the
+ * ingredients that have changed since the last read.
+ *
+ * <p>An ingredient required by mass but only held by volume, or the other way around, is priced
+ * through its density, if known. A recipe with an ingredient that is not held anywhere has an
+ * unknown cost, and is sorted after every recipe with a known cost.
+ *
+ * <p>The requirements of a recipe are compiled when the recipe is added, and compiled again when
+ * the cookbook reports that its requirements have changed.
+ *
+ * <p>The engine is thread-safe, see {@link RecipeStockView} for how it follows the storages.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class RecipeCostEngine extends RecipeStockView {
+  /** The cost of a recipe with an ingredient that has no price. */
+  public static final long UNKNOWN_COST = -1;
+
+  private static final ValidUnit[] UNITS = ValidUnit.values();
+  private static final Pricing[] PRICINGS = Pricing.values();
+
+  private final Map<Recipe, CostNode> nodes;
+  private final Map<Integer, List<CostNode>> nodesByIngredient;
+  private final Map<IngredientStorage, Map<Long, LotSummary>> summaries;
+  private final Map<Long, double[]> prices;
+  private final List<NavigableSet<CostNode>> nodesByCost;
+  private long nextOrder;
+
+  /** The ways the lots of an ingredient are combined into a price. */
+  public enum Pricing {
+    /** The price per unit of the cheapest lot. */
+    CHEAPEST,
+    /** The total value of the lots divided by their total amount. */
+    AVERAGE,
+    /** The price per unit of the lots expiring first, which are the ones to be used next. */
+    FEFO
+  }
+
+  /** Constructs an empty RecipeCostEngine. */
+  public RecipeCostEngine() {
+    nodes = new HashMap<>();
+    nodesByIngredient = new HashMap<>();
+    summaries = new HashMap<>();
+    prices = new HashMap<>();
+    nodesByCost = new ArrayList<>();
+    for (Pricing pricing : PRICINGS) {
+      nodesByCost.add(
+          new TreeSet<>(
+              Comparator.<CostNode>comparingDouble(node -> node.costs[pricing.ordinal()])
+                  .thenComparingLong(node -> node.order)));
+    }
+  }
+
+  /**
+   * Retrieves every recipe sorted by cost, cheapest first. Recipes of equal cost, or of unknown
+   * cost, are in the order they were added.
+   *
+   * @param pricing the way ingredients are priced
+   * @return the recipes sorted by cost
+   */
+  public synchronized List<Recipe> getRecipesByCost(Pricing pricing) {
+    applyChanges();
+    return nodesByCost.get(pricing.ordinal()).stream().map(node -> node.recipe).toList();
+  }
+
+  /**
+   * Retrieves the cost of a recipe.
+   *
+   * @param recipe the recipe
+   * @param pricing the way ingredients are priced
+   * @return the cost in minor units (øre), or UNKNOWN_COST if the recipe has not been added or an
+   *     ingredient has no price
+   */
+  public synchronized long getCost(Recipe recipe, Pricing pricing) {
+    applyChanges();
+    CostNode node = nodes.get(recipe);
+    if (node == null || Double.isNaN(node.costs[pricing.ordinal()])) {
+      return UNKNOWN_COST;
+    }
+    return Math.round(node.costs[pricing.ordinal()]);
+  }
+
+  /**
+   * Retrieves the price of an ingredient per base unit, from the lots held across the storages.
+   *
+   * @param ingredientId the id of the ingredient, see IngredientRegistry
+   * @param unit the unit to be priced; the price is per unit of its base unit
+   * @param pricing the way the lots are combined
+   * @return the price in minor units (øre) per gram, millilitre or piece, or NaN if the ingredient
+   *     is not held in a unit that can be converted
+   */
+  public synchronized double getUnitPrice(int ingredientId, ValidUnit unit, Pricing pricing) {
+    applyChanges();
+    return findPrice(ingredientId, UnitConverter.getBaseUnit(unit), pricing.ordinal());
+  }
+
+  @Override
+  public synchronized void recipeAdded(Recipe recipe) {
+    if (nodes.containsKey(recipe)) {
+      return;
+    }
+    attach(new CostNode(recipe, recipe.getRequirements(), nextOrder++));
+  }
+
+  /**
+   * Compiles the requirements of an edited recipe again, if they have changed, and prices it
+   * again. The recipe keeps its place among recipes of equal cost.
+   *
+   * @param recipe the recipe that was changed
+   */
+  @Override
+  public synchronized void recipeChanged(Recipe recipe) {
+    CostNode node = nodes.get(recipe);
+    if (node != null && node.requirements != recipe.getRequirements()) {
+      detach(node);
+      attach(new CostNode(recipe, recipe.getRequirements(), node.order));
+    }
+  }
+
+  @Override
+  public synchronized void recipeRemoved(Recipe recipe) {
+    CostNode node = nodes.remove(recipe);
+    if (node != null) {
+      detach(node);
+    }
+  }
+
+  @Override
+  protected void storageAdded(IngredientStorage storage) {
+    summaries.put(storage, new HashMap<>());
+  }
+
+  @Override
+  protected void storageRemoved(IngredientStorage storage) {
+    Map<Long, LotSummary> removed = summaries.remove(storage);
+    removed.keySet().stream()
+        .mapToInt(RequirementVector::ingredientIdOf)
+        .distinct()
+        .forEach(this::updatePrices);
+  }
+
+  @Override
+  protected void ingredientChanged(IngredientStorage storage, int ingredientId) {
+    apply(storage, ingredientId, summarise(storage, ingredientId));
+  }
+
+  /**
+   * Prices a node and adds it to the engine.
+   *
+   * @param node the node to be added
+   */
+  private void attach(CostNode node) {
+    computeCosts(node);
+    nodes.put(node.recipe, node);
+    for (int ingredientId : node.ingredientIds) {
+      nodesByIngredient.computeIfAbsent(ingredientId, id -> new ArrayList<>()).add(node);
+    }
+    nodesByCost.forEach(set -> set.add(node));
+  }
+
+  /**
+   * Removes a node from the cost order and from the users of its ingredients.
+   *
+   * @param node the node to be removed
+   */
+  private void detach(CostNode node) {
+    nodesByCost.forEach(set -> set.remove(node));
+    for (int ingredientId : node.ingredientIds) {
+      List<CostNode> users = nodesByIngredient.get(ingredientId);
+      users.remove(node);
+      if (users.isEmpty()) {
+        nodesByIngredient.remove(ingredientId);
+      }
+    }
+  }
+
+  /**
+   * Replaces the summaries of an ingredient of a storage, and updates the prices of the
+   * ingredient.
+   *
+   * @param storage the storage the summaries were read from
+   * @param ingredientId the id of the ingredient
+   * @param ingredientSummaries the new summaries, keyed by ingredient id and base unit
+   */
+  private void apply(
+      IngredientStorage storage, int ingredientId, Map<Long, LotSummary> ingredientSummaries) {
+    Map<Long, LotSummary> storageSummaries = summaries.get(storage);
+    for (ValidUnit unit : UNITS) {
+      storageSummaries.remove(RequirementVector.keyOf(ingredientId, unit));
+    }
+    storageSummaries.putAll(ingredientSummaries);
+    updatePrices(ingredientId);
+  }
+
+  /**
+   * Combines the summaries of every storage into the prices of an ingredient, and prices the
+   * recipes using the ingredient again if any of its prices has changed.
+   *
+   * @param ingredientId the id of the ingredient
+   */
+  private void updatePrices(int ingredientId) {
+    boolean changed = false;
+    for (ValidUnit unit : UNITS) {
+      long key = RequirementVector.keyOf(ingredientId, unit);
+      List<LotSummary> parts =
+          summaries.values().stream()
+              .map(storageSummaries -> storageSummaries.get(key))
+              .filter(Objects::nonNull)
+              .toList();
+      double[] newPrices = parts.isEmpty() ? null : combine(parts);
+      double[] oldPrices = newPrices == null ? prices.remove(key) : prices.put(key, newPrices);
+      changed |= !Arrays.equals(oldPrices, newPrices);
+    }
+    if (changed) {
+      for (CostNode node : nodesByIngredient.getOrDefault(ingredientId, List.of())) {
+        nodesByCost.forEach(set -> set.remove(node));
+        computeCosts(node);
+        nodesByCost.forEach(set -> set.add(node));
+      }
+    }
+  }
+
+  /**
+   * Computes the cost of a recipe for every pricing. Must not be called while the recipe is in the
+   * cost order.
+   *
+   * @param node the recipe to be priced
+   */
+  private void computeCosts(CostNode node) {
+    RequirementVector requirements = node.requirements;
+    for (int p = 0; p < PRICINGS.length; p++) {
+      double cost = 0;
+      for (int i = 0; i < requirements.size(); i++) {
+        cost +=
+            requirements.getAmount(i)
+                * findPrice(requirements.getIngredientId(i), requirements.getBaseUnit(i), p);
+      }
+      node.costs[p] = cost;
+    }
+  }
+
+  /**
+   * Finds the price of an ingredient in the given base unit, converting the price in another base
+   * unit through the density of the ingredient if it is not held in the given one.
+   *
+   * @param ingredientId the id of the ingredient
+   * @param baseUnit the base unit to be priced
+   * @param pricing the ordinal of the pricing
+   * @return the price per base unit, or NaN if there is none
+   */
+  private double findPrice(int ingredientId, ValidUnit baseUnit, int pricing) {
+    double[] price = prices.get(RequirementVector.keyOf(ingredientId, baseUnit));
+    if (price != null) {
+      return price[pricing];
+    }
+    double density = DensityRegistry.getDensity(ingredientId);
+    for (ValidUnit otherUnit : UNITS) {
+      price = prices.get(RequirementVector.keyOf(ingredientId, otherUnit));
+      if (price != null && UnitConverter.isConvertible(baseUnit, otherUnit, density)) {
+        return price[pricing] * UnitConverter.getFactor(baseUnit, otherUnit, density);
+      }
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * Summarises the lots of an ingredient held by a storage, per base unit.
+   *
+   * @param storage the storage to be read
+   * @param ingredientId the id of the ingredient
+   * @return the summaries, keyed by ingredient id and base unit; empty if the storage does not hold
+   *     the ingredient
+   */
+  private static Map<Long, LotSummary> summarise(IngredientStorage storage, int ingredientId) {
+    Map<Long, LotSummary> ingredientSummaries = new HashMap<>();
+    List<Ingredient> lots = storage.getIngredientList(ingredientId);
+    if (lots != null) {
+      for (Ingredient lot : lots) {
+        ValidUnit baseUnit = UnitConverter.getBaseUnit(lot.getUnit());
+        double amount = lot.getAmount() * UnitConverter.getFactor(lot.getUnit(), baseUnit);
+        if (amount > 0) {
+          LotSummary summary = new LotSummary(lot.getValue(), amount, lot.getExpiryDay());
+          ingredientSummaries.merge(
+              RequirementVector.keyOf(ingredientId, baseUnit), summary, LotSummary::merge);
+        }
+      }
+    }
+    return ingredientSummaries;
+  }
+
+  /**
+   * Combines the summaries of several storages into the prices of an ingredient in one base unit.
+   *
+   * @param parts the summaries to be combined, at least one
+   * @return the price per base unit for every pricing, indexed by its ordinal
+   */
+  private static double[] combine(List<LotSummary> parts) {
+    LotSummary total = parts.stream().reduce(LotSummary::merge).orElseThrow();
+    double[] combined = new double[PRICINGS.length];
+    combined[Pricing.CHEAPEST.ordinal()] = total.cheapest;
+    combined[Pricing.AVERAGE.ordinal()] = total.value / total.amount;
+    combined[Pricing.FEFO.ordinal()] = total.firstValue / total.firstAmount;
+    return combined;
+  }
+
+  /**
+   * Summary of a group of lots of one ingredient in one base unit: the price of the cheapest lot,
+   * the total value and amount, and the value and amount of the lots expiring first.
+   *
+   * @param cheapest the lowest price per base unit of a lot
+   * @param value the total value, in minor units (øre)
+   * @param amount the total amount, in the base unit
+   * @param firstExpiryDay the earliest expiry day of a lot, in days since the epoch
+   * @param firstValue the total value of the lots expiring on the earliest day
+   * @param firstAmount the total amount of the lots expiring on the earliest day
+   */
+  private record LotSummary(
+      double cheapest,
+      double value,
+      double amount,
+      int firstExpiryDay,
+      double firstValue,
+      double firstAmount) {
+
+    /**
+     * Constructs the summary of a single lot.
+     *
+     * @param value the value of the lot, in minor units (øre)
+     * @param amount the amount of the lot, in the base unit
+     * @param expiryDay the expiry day of the lot, in days since the epoch
+     */
+    private LotSummary(double value, double amount, int expiryDay) {
+      this(value / amount, value, amount, expiryDay, value, amount);
+    }
+
+    /**
+     * Merges two summaries into the summary of both groups of lots.
+     *
+     * @param a the first summary
+     * @param b the second summary
+     * @return the merged summary
+     */
+    private static LotSummary merge(LotSummary a, LotSummary b) {
+      int firstExpiryDay = Math.min(a.firstExpiryDay, b.firstExpiryDay);
+      double firstValue = 0;
+      double firstAmount = 0;
+      for (LotSummary part : List.of(a, b)) {
+        if (part.firstExpiryDay == firstExpiryDay) {
+          firstValue += part.firstValue;
+          firstAmount += part.firstAmount;
+        }
+      }
+      return new LotSummary(
+          Math.min(a.cheapest, b.cheapest),
+          a.value + b.value,
+          a.amount + b.amount,
+          firstExpiryDay,
+          firstValue,
+          firstAmount);
+    }
+  }
+
+  /** A recipe in the engine, with its requirements and its cost for every pricing. */
+  private static final class CostNode {
+    private final Recipe recipe;
+    private final RequirementVector requirements;
+    private final int[] ingredientIds;
+    private final long order;
+    private final double[] costs;
+
+    /**
+     * Constructs a CostNode, with its costs still to be computed.
+     *
+     * @param recipe the recipe
+     * @param requirements the requirements of the recipe
+     * @param order the position of the recipe in the order recipes were added
+     */
+    private CostNode(Recipe recipe, RequirementVector requirements, long order) {
+      this.recipe = recipe;
+      this.requirements = requirements;
+      this.ingredientIds =
+          IntStream.range(0, requirements.size())
+              .map(requirements::getIngredientId)
+              .distinct()
+              .toArray();
+      this.order = order;
+      this.costs = new double[PRICINGS.length];
+    }
+  }
+}
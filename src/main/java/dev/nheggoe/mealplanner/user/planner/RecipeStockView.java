@@ -0,0 +1,145 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.StorageListener;
+import dev.nheggoe.mealplanner.user.recipe.RecipeListener;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class of the views over the recipes of a cookbook that are kept up to date from the
+ * notifications of the storages they listen to, such as CookableRecipeView and RecipeCostEngine.
+ *
+ * <p>Storage notifications arrive while the storage holds the lock of the changed ingredient, so
+ * they only record which ingredient of which storage has changed, in a concurrent set, and never
+ * wait for the lock of the view. A view calls {@link #applyChanges()} while it holds its own lock,
+ * before it is read, which hands every recorded ingredient to {@link
+ * #ingredientChanged(IngredientStorage, int)}. Every other method of the view holds the lock of
+ * the view.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+abstract class RecipeStockView implements StorageListener, RecipeListener {
+  private final Set<IngredientStorage> storages;
+  private final Map<IngredientStorage, Set<Integer>> changedIngredients;
+
+  /** Constructs a view that does not listen to any storage yet. */
+  protected RecipeStockView() {
+    storages = new LinkedHashSet<>();
+    changedIngredients = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public synchronized void listenerAdded(IngredientStorage storage) {
+    if (storages.add(storage)) {
+      storageAdded(storage);
+      changedIngredients.put(storage, ConcurrentHashMap.newKeySet());
+      for (int ingredientId : storage.getIngredientIds()) {
+        markChanged(storage, ingredientId);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void listenerRemoved(IngredientStorage storage) {
+    if (storages.remove(storage)) {
+      changedIngredients.remove(storage);
+      storageRemoved(storage);
+    }
+  }
+
+  @Override
+  public void ingredientAdded(IngredientStorage storage, Ingredient ingredient) {
+    markChanged(storage, ingredient.getIngredientId());
+  }
+
+  @Override
+  public void ingredientMerged(
+      IngredientStorage storage, Ingredient existingIngredient, Ingredient mergedIngredient) {
+    markChanged(storage, existingIngredient.getIngredientId());
+  }
+
+  @Override
+  public void ingredientsAdded(
+      IngredientStorage storage,
+      List<Ingredient> addedIngredients,
+      Map<Ingredient, List<Ingredient>> mergedIngredients) {
+    addedIngredients.forEach(lot -> markChanged(storage, lot.getIngredientId()));
+    mergedIngredients.keySet().forEach(lot -> markChanged(storage, lot.getIngredientId()));
+  }
+
+  @Override
+  public void ingredientRemoved(IngredientStorage storage, Ingredient ingredient) {
+    markChanged(storage, ingredient.getIngredientId());
+  }
+
+  /**
+   * Retrieves the storages the view listens to.
+   *
+   * @return an unmodifiable view of the storages, in the order they were added
+   */
+  protected Set<IngredientStorage> getStorages() {
+    return Collections.unmodifiableSet(storages);
+  }
+
+  /**
+   * Records that the stock of an ingredient has changed in a storage, without waiting for the lock
+   * of the view. Changes to storages the view does not listen to are ignored.
+   *
+   * @param storage the storage whose stock has changed
+   * @param ingredientId the id of the ingredient whose stock has changed
+   */
+  protected void markChanged(IngredientStorage storage, int ingredientId) {
+    Set<Integer> changed = changedIngredients.get(storage);
+    if (changed != null) {
+      changed.add(ingredientId);
+    }
+  }
+
+  /**
+   * Hands every ingredient recorded as changed to {@link #ingredientChanged(IngredientStorage,
+   * int)}. An ingredient is taken off the record before it is handed over, so a change made while
+   * it is being read is recorded again and applied on the next call. Must be called while holding
+   * the lock of the view.
+   */
+  protected void applyChanges() {
+    for (IngredientStorage storage : storages) {
+      Set<Integer> changed = changedIngredients.get(storage);
+      for (Integer ingredientId : changed) {
+        changed.remove(ingredientId);
+        ingredientChanged(storage, ingredientId);
+      }
+    }
+  }
+
+  /**
+   * Called when the view starts listening to a storage, before the ingredients the storage already
+   * holds are recorded as changed.
+   *
+   * @param storage the storage that was added
+   */
+  protected abstract void storageAdded(IngredientStorage storage);
+
+  /**
+   * Called when the view stops listening to a storage, so that it can drop whatever it keeps about
+   * the storage.
+   *
+   * @param storage the storage that was removed
+   */
+  protected abstract void storageRemoved(IngredientStorage storage);
+
+  /**
+   * Called from {@link #applyChanges()} for every ingredient whose stock has changed in a storage,
+   * so that the view can read the ingredient from the storage again.
+   *
+   * @param storage the storage whose stock has changed
+   * @param ingredientId the id of the ingredient whose stock has changed
+   */
+  protected abstract void ingredientChanged(IngredientStorage storage, int ingredientId);
+}
@@ -0,0 +1,139 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.user.recipe.RequirementVector;
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Generates the shopping list for a set of recipes or a meal plan: what has to be bought, on top
+ * of the stock pooled across a set of storages, to cook all of them.
+ *
+ * <p>The requirement vectors of the recipes are summed in a single pass, see {@link
+ * RequirementVector#sum(Iterable)}, so an ingredient used by many recipes is only compared against
+ * stock once. An ingredient required by mass in one recipe and by volume in another is summed into
+ * one entry if its density is known. The pooled stock of every ingredient is looked up once per
+ * generator and reused, so a generator can produce many lists against the same storages cheaply;
+ * stock that changes after it has been looked up is not reflected. A generator is not thread-safe.
+ *
+ * <p>Shortfalls are given in the base unit, or in kilograms or litres from a thousand grams or
+ * millilitres on.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class ShoppingListGenerator {
+  private static final double EPSILON = 1e-6;
+  private static final double DISPLAY_THRESHOLD = 1000;
+
+  private final List<IngredientStorage> storages;
+  private final Map<Long, Double> stockByKey;
+
+  /**
+   * Constructs a ShoppingListGenerator pooling the stock of the given storages.
+   *
+   * @param storages the storages whose stock is pooled
+   * @throws IllegalArgumentException if the collection, or any of its elements, is null
+   */
+  public ShoppingListGenerator(Collection<IngredientStorage> storages) {
+    if (storages == null || storages.stream().anyMatch(Objects::isNull)) {
+      throw new IllegalArgumentException("Storages cannot be null.");
+    }
+    this.storages = List.copyOf(storages);
+    this.stockByKey = new HashMap<>();
+  }
+
+  /**
+   * Generates the shopping list for cooking each of the given recipes once.
+   *
+   * @param recipes the recipes to be cooked; null elements are ignored
+   * @return the shortfall of every ingredient, sorted by ingredient name
+   */
+  public List<Measurement> generate(Collection<Recipe> recipes) {
+    return generate(
+        recipes.stream().filter(Objects::nonNull).map(Recipe::getRequirements).toList());
+  }
+
+  /**
+   * Generates the shopping list for cooking every recipe of the given meal plan.
+   *
+   * @param plan the meal plan to be cooked
+   * @return the shortfall of every ingredient, sorted by ingredient name
+   */
+  public List<Measurement> generate(MealPlan plan) {
+    List<RequirementVector> requirements = new ArrayList<>();
+    for (int day = 0; day < plan.getDays(); day++) {
+      if (plan.getRecipe(day) != null) {
+        requirements.add(plan.getRecipe(day).getRequirements());
+      }
+    }
+    return generate(requirements);
+  }
+
+  /**
+   * Generates the shopping list for the given requirement vectors, summing them in one pass and
+   * then subtracting the pooled stock of every ingredient.
+   *
+   * @param requirements the requirement vectors to be covered
+   * @return the shortfall of every ingredient, sorted by ingredient name
+   */
+  public List<Measurement> generate(Iterable<RequirementVector> requirements) {
+    RequirementVector totals = RequirementVector.sum(requirements);
+    Map<String, Measurement> shortfalls = new TreeMap<>();
+    for (int i = 0; i < totals.size(); i++) {
+      int ingredientId = totals.getIngredientId(i);
+      ValidUnit baseUnit = totals.getBaseUnit(i);
+      double missing = totals.getAmount(i) - getStock(ingredientId, baseUnit);
+      if (missing > EPSILON) {
+        Measurement shortfall =
+            toDisplay(IngredientRegistry.getKey(ingredientId), baseUnit, missing);
+        shortfalls.put(shortfall.getName() + " " + baseUnit, shortfall);
+      }
+    }
+    return new ArrayList<>(shortfalls.values());
+  }
+
+  /**
+   * Retrieves the stock pooled across the storages of an ingredient in a base unit, looking it up
+   * the first time it is needed.
+   *
+   * @param ingredientId the id of the ingredient
+   * @param baseUnit the base unit
+   * @return the pooled stock, in the base unit
+   */
+  private double getStock(int ingredientId, ValidUnit baseUnit) {
+    return stockByKey.computeIfAbsent(
+        RequirementVector.keyOf(ingredientId, baseUnit),
+        key ->
+            storages.stream()
+                .mapToDouble(storage -> storage.getTotalAmount(ingredientId, baseUnit))
+                .sum());
+  }
+
+  /**
+   * Expresses an amount in a base unit as a measurement in a unit suitable for display.
+   *
+   * @param name the name of the ingredient
+   * @param baseUnit the base unit of the amount
+   * @param amount the amount, in the base unit
+   * @return the measurement, rounded up to two decimal places
+   */
+  private static Measurement toDisplay(String name, ValidUnit baseUnit, double amount) {
+    ValidUnit unit = baseUnit;
+    if (amount >= DISPLAY_THRESHOLD && baseUnit != ValidUnit.PCS) {
+      unit = UnitConverter.getStandardUnit(baseUnit);
+    }
+    double displayAmount = amount * UnitConverter.getFactor(baseUnit, unit);
+    return new Measurement(name, (float) (Math.ceil(displayAmount * 100 - EPSILON) / 100), unit);
+  }
+}
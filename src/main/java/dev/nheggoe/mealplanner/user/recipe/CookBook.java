@@ -1,21 +1,81 @@
 package dev.nheggoe.mealplanner.user.recipe;
 
-import java.util.HashSet;
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * Represents a collection of recipes, allowing for adding, removing, and searching recipes.
  *
+ * <p>Recipes are indexed by their RecipeId, which does not change when a recipe is edited. A
+ * second index from content fingerprint to recipes finds duplicates: only recipes with the same
+ * fingerprint are compared step by step. Adding, finding and removing a recipe therefore take
+ * constant time, however large the cookbook is. The cookbook listens to the recipes it holds, and
+ * indexes a recipe again whenever it is edited. Names are searched through a RecipeNameIndex.
+ *
+ * <p>An inverted index from ingredient id to the ids of the recipes requiring the ingredient
+ * answers which recipes use a set of ingredients by intersecting the posting lists of the
+ * ingredients, starting from the shortest, without looking at any step.
+ *
  * @author Nick Heggø
  * @version 2024-12-12
  */
 public class CookBook {
 
-  private final HashSet<Recipe> recipes;
+  private final Map<RecipeId, Recipe> recipes;
+  private final Map<RecipeId, Long> fingerprints;
+  private final Map<Long, List<Recipe>> recipesByFingerprint;
+  private final RecipeNameIndex nameIndex;
+  private final Map<Integer, Set<RecipeId>> recipesByIngredient;
+  private final Map<RecipeId, int[]> ingredientsByRecipe;
+  private final List<RecipeListener> listeners;
+  private final Consumer<Recipe> changeListener;
 
   /** Initializes a new CookBook object with an empty collection of recipes. */
   public CookBook() {
-    recipes = new HashSet<>();
+    recipes = new LinkedHashMap<>();
+    fingerprints = new HashMap<>();
+    recipesByFingerprint = new HashMap<>();
+    nameIndex = new RecipeNameIndex();
+    recipesByIngredient = new HashMap<>();
+    ingredientsByRecipe = new HashMap<>();
+    listeners = new CopyOnWriteArrayList<>();
+    changeListener = this::recipeChanged;
+  }
+
+  /**
+   * Registers a listener to be notified whenever a recipe is added to, changed in or removed from
+   * this cookbook. The listener is told about every recipe the cookbook already holds.
+   *
+   * @param listener the listener to register
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addListener(RecipeListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    listeners.add(listener);
+    recipes.values().forEach(listener::recipeAdded);
+  }
+
+  /**
+   * Unregisters a previously registered listener.
+   *
+   * @param listener the listener to unregister
+   */
+  public void removeListener(RecipeListener listener) {
+    listeners.remove(listener);
   }
 
   /**
@@ -25,7 +85,33 @@ public class CookBook {
    * @return true if the recipe is in the cookbook, false otherwise
    */
   public boolean isRecipePresent(Recipe recipe) {
-    return recipes.contains(recipe);
+    return recipe != null && recipes.containsKey(recipe.getId());
+  }
+
+  /**
+   * Checks if the cookbook holds another recipe with the same content as the given recipe.
+   *
+   * @param recipe the recipe to be checked
+   * @return true if a different recipe with the same name, description and steps is present
+   */
+  public boolean isDuplicatePresent(Recipe recipe) {
+    if (recipe == null) {
+      return false;
+    }
+    List<Recipe> candidates = recipesByFingerprint.get(recipe.getFingerprint());
+    return candidates != null
+        && candidates.stream()
+            .anyMatch(candidate -> !candidate.equals(recipe) && candidate.hasSameContent(recipe));
+  }
+
+  /**
+   * Retrieves the recipe with the given id.
+   *
+   * @param id the id of the recipe
+   * @return the recipe, or null if the cookbook holds no recipe with the id
+   */
+  public Recipe getRecipe(RecipeId id) {
+    return recipes.get(id);
   }
 
   /**
@@ -34,35 +120,83 @@ public class CookBook {
    * @return a list of Recipe objects, representing all recipes in the cookbook.
    */
   public List<Recipe> getAllRecipe() {
-    return recipes.stream().toList();
+    return List.copyOf(recipes.values());
   }
 
   /**
    * Adds a new recipe to the cookbook.
    *
    * @param recipe the recipe to add; must not be null and must not already exist in the collection
-   * @throws IllegalArgumentException if the recipe is null or already exists
+   * @throws IllegalArgumentException if the recipe is null, or it or a recipe with the same content
+   *     already exists
    */
   public void addRecipe(Recipe recipe) {
     if (recipe == null) {
       throw new IllegalArgumentException("Recipe is null.");
     }
-    if (isRecipePresent(recipe)) {
+    if (isRecipePresent(recipe) || isDuplicatePresent(recipe)) {
       throw new IllegalArgumentException("Recipe already exist!");
     }
-    recipes.add(recipe);
+    recipes.put(recipe.getId(), recipe);
+    indexFingerprint(recipe);
+    nameIndex.add(recipe);
+    indexIngredients(recipe);
+    recipe.addChangeListener(changeListener);
+    listeners.forEach(listener -> listener.recipeAdded(recipe));
   }
 
   /**
-   * Searches for recipes containing the specified name (case insensitive).
+   * Searches for recipes containing the specified name (case insensitive), using the trigram index
+   * of recipe names.
    *
    * @param name the name or partial name to search for in recipe names; must not be null or blank.
    * @return a list of Recipe objects whose names contain the specified name.
    */
   public List<Recipe> findRecipesContainingName(String name) {
-    return recipes.stream()
-        .filter(recipe -> recipe.getName().toLowerCase().contains(name.strip().toLowerCase()))
-        .toList();
+    return nameIndex.find(name);
+  }
+
+  /**
+   * Finds the recipes that use every one of the given ingredients.
+   *
+   * @param ingredientNames the names of the ingredients, in any spelling
+   * @return the recipes requiring all of the ingredients, in the order they were added; every
+   *     recipe if no ingredient is given
+   */
+  public List<Recipe> findRecipesWithIngredients(Collection<String> ingredientNames) {
+    return findRecipesWithIngredients(
+        ingredientNames.stream().mapToInt(IngredientRegistry::findId).toArray());
+  }
+
+  /**
+   * Finds the recipes that use every one of the ingredients with the given ids.
+   *
+   * @param ingredientIds the ids of the ingredients, see IngredientRegistry
+   * @return the recipes requiring all of the ingredients, in the order they were added; every
+   *     recipe if no ingredient is given
+   */
+  public List<Recipe> findRecipesWithIngredients(int... ingredientIds) {
+    if (ingredientIds.length == 0) {
+      return getAllRecipe();
+    }
+    List<Set<RecipeId>> postingLists = new ArrayList<>();
+    for (int ingredientId : Arrays.stream(ingredientIds).distinct().toArray()) {
+      Set<RecipeId> postingList = recipesByIngredient.get(ingredientId);
+      if (postingList == null) {
+        return List.of();
+      }
+      postingLists.add(postingList);
+    }
+    postingLists.sort(Comparator.comparingInt(Set::size));
+
+    List<Recipe> matches = new ArrayList<>();
+    List<Set<RecipeId>> others = postingLists.subList(1, postingLists.size());
+    for (RecipeId id : postingLists.getFirst()) {
+      if (others.stream().allMatch(postingList -> postingList.contains(id))) {
+        matches.add(recipes.get(id));
+      }
+    }
+    return matches;
   }
 
   /**
@@ -71,15 +205,108 @@ public class CookBook {
    * @return a list of strings representing the names of all recipes in the cookbook.
    */
   public List<String> getRecipeOverview() {
-    return recipes.stream().map(Recipe::getName).toList();
+    return recipes.values().stream().map(Recipe::getName).toList();
   }
 
   /**
-   * Removes the specified recipe from the collection of recipes.
+   * Removes the specified recipe from the collection of recipes. The recipe is found by its id, so
+   * it is removed even if it has been edited since it was added.
    *
    * @param recipeToRemove the recipe to be removed; must not be null.
    */
   public void removeRecipe(Recipe recipeToRemove) {
-    recipes.remove(recipeToRemove);
+    if (recipeToRemove == null) {
+      return;
+    }
+    RecipeId id = recipeToRemove.getId();
+    Recipe removedRecipe = recipes.remove(id);
+    if (removedRecipe != null) {
+      removedRecipe.removeChangeListener(changeListener);
+      unindexFingerprint(removedRecipe);
+      nameIndex.remove(removedRecipe);
+      unindexIngredients(id);
+      listeners.forEach(listener -> listener.recipeRemoved(removedRecipe));
+    }
+  }
+
+  /**
+   * Indexes a recipe of the cookbook again after it has been edited, and passes the change on to
+   * the listeners. An edit is not refused even if it makes the recipe a duplicate of another.
+   *
+   * @param recipe the recipe that was edited
+   */
+  private void recipeChanged(Recipe recipe) {
+    if (!recipe.equals(recipes.get(recipe.getId()))) {
+      return;
+    }
+    unindexFingerprint(recipe);
+    indexFingerprint(recipe);
+    nameIndex.update(recipe);
+    unindexIngredients(recipe.getId());
+    indexIngredients(recipe);
+    listeners.forEach(listener -> listener.recipeChanged(recipe));
+  }
+
+  /**
+   * Adds a recipe to the candidates of its current fingerprint, and records the fingerprint so that
+   * the recipe can be found again after it is edited.
+   *
+   * @param recipe the recipe to be indexed
+   */
+  private void indexFingerprint(Recipe recipe) {
+    long fingerprint = recipe.getFingerprint();
+    fingerprints.put(recipe.getId(), fingerprint);
+    recipesByFingerprint.computeIfAbsent(fingerprint, key -> new ArrayList<>(1)).add(recipe);
+  }
+
+  /**
+   * Removes a recipe from the candidates of the fingerprint it was indexed under.
+   *
+   * @param recipe the recipe to be removed
+   */
+  private void unindexFingerprint(Recipe recipe) {
+    // the fingerprint recorded when the recipe was indexed, since the recipe may have changed
+    long fingerprint = fingerprints.remove(recipe.getId());
+    List<Recipe> candidates = recipesByFingerprint.get(fingerprint);
+    candidates.remove(recipe);
+    if (candidates.isEmpty()) {
+      recipesByFingerprint.remove(fingerprint);
+    }
+  }
+
+  /**
+   * Adds a recipe to the posting list of every ingredient it requires, and records the ingredients
+   * so that the recipe can be removed again after it is edited.
+   *
+   * @param recipe the recipe to be indexed
+   */
+  private void indexIngredients(Recipe recipe) {
+    RequirementVector requirements = recipe.getRequirements();
+    int[] ingredientIds =
+        IntStream.range(0, requirements.size())
+            .map(requirements::getIngredientId)
+            .distinct()
+            .toArray();
+    ingredientsByRecipe.put(recipe.getId(), ingredientIds);
+    for (int ingredientId : ingredientIds) {
+      recipesByIngredient
+          .computeIfAbsent(ingredientId, key -> new LinkedHashSet<>())
+          .add(recipe.getId());
+    }
+  }
+
+  /**
+   * Removes a recipe from the posting lists of the ingredients it was indexed under.
+   *
+   * @param id the id of the recipe
+   */
+  private void unindexIngredients(RecipeId id) {
+    for (int ingredientId : ingredientsByRecipe.remove(id)) {
+      Set<RecipeId> postingList = recipesByIngredient.get(ingredientId);
+      postingList.remove(id);
+      if (postingList.isEmpty()) {
+        recipesByIngredient.remove(ingredientId);
+      }
+    }
   }
 }
@@ -4,26 +4,51 @@ import dev.nheggoe.mealplanner.user.Printable;
 import dev.nheggoe.mealplanner.user.inventory.Measurement;
 import dev.nheggoe.mealplanner.util.Utility;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Represents a cooking recipe composed of multiple steps, each with specific instructions and
  * required ingredients.
  *
+ * <p>Every recipe has a RecipeId, which is its identity: two recipes are equal only if they have
+ * the same id, however similar their content. Whether two recipes have the same content is checked
+ * with {@link #hasSameContent(Recipe)}, and its content fingerprint lets a cookbook find candidate
+ * duplicates without comparing every step.
+ *
+ * <p>The measurements of all steps, the requirement vector summing them per ingredient, and the
+ * fingerprint are computed on first use and kept until the recipe is edited through its methods.
+ * Steps cannot be changed, so the recipe is only edited through its methods.
+ * Every edit is passed on to the change listeners of the recipe, so that a cookbook holding the
+ * recipe can index it again.
+ *
  * @author Nick Heggø
  * @version 2024-12-12
  */
 public class Recipe implements Printable {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final RecipeId id;
   private final List<Step> steps;
+  private final List<Consumer<Recipe>> changeListeners;
   private String name;
   private String description;
+  private volatile List<Measurement> allMeasurements;
+  private volatile RequirementVector requirements;
+  private volatile Long fingerprint;
 
   /**
    * Constructs a new Recipe with no name, description, or steps. Initializes an empty list for
    * storing steps.
    */
   public Recipe() {
+    id = RecipeId.next();
     steps = new ArrayList<>();
+    changeListeners = new CopyOnWriteArrayList<>();
   }
 
   /**
@@ -32,27 +57,27 @@ public class Recipe implements Printable {
    * @param name the name to be assigned to the recipe
    */
   public Recipe(String name) {
+    id = RecipeId.next();
     steps = new ArrayList<>();
+    changeListeners = new CopyOnWriteArrayList<>();
     setName(name);
   }
 
+  /**
+   * Checks if the given object is the same recipe, that is, a recipe with the same id. Editing a
+   * recipe does not change its id, so recipes can safely be kept in hash-based collections.
+   *
+   * @param o the object to compare with
+   * @return true if the object is a recipe with the same id, false otherwise
+   */
   @Override
   public final boolean equals(Object o) {
-    if (!(o instanceof Recipe recipe)) {
-      return false;
-    }
-    return steps.equals(recipe.steps)
-        && name.equals(recipe.name)
-        && description.equals(recipe.description);
+    return o instanceof Recipe recipe && id.equals(recipe.id);
   }
 
-  // IntelliJ Generated
   @Override
   public int hashCode() {
-    int result = steps.hashCode();
-    result = 31 * result + name.hashCode();
-    result = 31 * result + description.hashCode();
-    return result;
+    return id.hashCode();
   }
 
   // IntelliJ Generated
@@ -80,6 +105,77 @@ public class Recipe implements Printable {
     return stringBuilder.toString();
   }
 
+  /**
+   * Retrieves the id of the recipe.
+   *
+   * @return the id assigned when the recipe was created
+   */
+  public RecipeId getId() {
+    return id;
+  }
+
+  /**
+   * Registers a listener to be called with the recipe after every edit of its name, description or
+   * steps.
+   *
+   * @param listener the listener to register
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addChangeListener(Consumer<Recipe> listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    changeListeners.add(listener);
+  }
+
+  /**
+   * Unregisters a previously registered change listener.
+   *
+   * @param listener the listener to unregister
+   */
+  public void removeChangeListener(Consumer<Recipe> listener) {
+    changeListeners.remove(listener);
+  }
+
+  /**
+   * Checks if the given recipe has the same name, description and steps as this recipe.
+   *
+   * @param other the recipe to compare with
+   * @return true if the content of both recipes is the same, false otherwise
+   */
+  public boolean hasSameContent(Recipe other) {
+    return other != null
+        && Objects.equals(name, other.name)
+        && Objects.equals(description, other.description)
+        && steps.equals(other.steps);
+  }
+
+  /**
+   * Retrieves a 64-bit fingerprint of the name, description and steps of the recipe. Recipes with
+   * the same content have the same fingerprint, so recipes with different fingerprints are
+   * certainly not duplicates.
+   *
+   * @return the fingerprint of the content of the recipe
+   */
+  public long getFingerprint() {
+    Long cached = fingerprint;
+    if (cached == null) {
+      long hash = hash(FNV_OFFSET_BASIS, name);
+      hash = hash(hash, description);
+      for (Step step : steps) {
+        hash = hash(hash, step.getInstruction());
+        if (step.getMeasurements() != null) {
+          for (Measurement measurement : step.getMeasurements()) {
+            hash = hash(hash, measurement.toString());
+          }
+        }
+      }
+      cached = hash;
+      fingerprint = cached;
+    }
+    return cached;
+  }
+
   /**
    * Retrieves the name of the recipe.
    *
@@ -100,6 +196,8 @@ public class Recipe implements Printable {
       throw new IllegalArgumentException("Name cannot be null.");
     }
     this.name = name;
+    fingerprint = null;
+    notifyChanged();
   }
 
   /**
@@ -109,6 +207,7 @@ public class Recipe implements Printable {
    */
   public void addStep(Step step) {
     steps.add(step);
+    invalidateRequirements();
   }
 
   /**
@@ -120,22 +219,43 @@ public class Recipe implements Printable {
   public void removeStep(int stepNumber) {
     assertIndexWithInBounds(stepNumber);
     steps.remove(stepNumber);
+    invalidateRequirements();
   }
 
   /**
    * Retrieves all measurements from the list of steps in the recipe. Combines and returns all
    * measurements found in the steps, if any.
    *
-   * @return a list of Measurement objects collected from all steps in the recipe.
+   * @return an unmodifiable list of Measurement objects collected from all steps in the recipe.
    */
   public List<Measurement> getAllMeasurement() {
-    ArrayList<Measurement> measurements = new ArrayList<>();
-    for (Step step : steps) {
-      if (step.getMeasurements() != null) {
-        measurements.addAll(step.getMeasurements());
+    List<Measurement> measurements = allMeasurements;
+    if (measurements == null) {
+      ArrayList<Measurement> collected = new ArrayList<>();
+      for (Step step : steps) {
+        if (step.getMeasurements() != null) {
+          collected.addAll(step.getMeasurements());
+        }
       }
+      measurements = Collections.unmodifiableList(collected);
+      allMeasurements = measurements;
+    }
+    return measurements;
+  }
+
+  /**
+   * Retrieves the amount of every ingredient the recipe needs, with the measurements of all steps
+   * summed per ingredient and converted to base units.
+   *
+   * @return the requirement vector of the recipe
+   */
+  public RequirementVector getRequirements() {
+    RequirementVector vector = requirements;
+    if (vector == null) {
+      vector = RequirementVector.of(getAllMeasurement());
+      requirements = vector;
     }
-    return measurements.stream().toList();
+    return vector;
   }
 
   /**
@@ -161,15 +281,48 @@ public class Recipe implements Printable {
       throw new IllegalArgumentException("Description cannot be empty.");
     }
     this.description = description;
+    fingerprint = null;
+    notifyChanged();
   }
 
   /**
-   * Retrieves the list of steps in the recipe.
+   * Retrieves the list of steps in the recipe. Steps are added and removed through the recipe, so
+   * that its cached requirements stay correct.
    *
-   * @return a list of Step objects representing the steps in the recipe.
+   * @return an unmodifiable list of Step objects representing the steps in the recipe.
    */
   public List<Step> getSteps() {
-    return steps;
+    return Collections.unmodifiableList(steps);
+  }
+
+  /** Discards the cached measurements, requirements and fingerprint after a change of steps. */
+  private void invalidateRequirements() {
+    allMeasurements = null;
+    requirements = null;
+    fingerprint = null;
+    notifyChanged();
+  }
+
+  /** Passes an edit of the recipe on to its change listeners. */
+  private void notifyChanged() {
+    changeListeners.forEach(listener -> listener.accept(this));
+  }
+
+  /**
+   * Continues an FNV-1a hash with the characters of the given text, followed by a separator so
+   * that consecutive texts cannot run into each other.
+   *
+   * @param hash the hash so far
+   * @param text the text to be hashed; null is hashed as the separator alone
+   * @return the continued hash
+   */
+  private static long hash(long hash, String text) {
+    if (text != null) {
+      for (int i = 0; i < text.length(); i++) {
+        hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+      }
+    }
+    return (hash ^ 0xFFFF) * FNV_PRIME;
   }
 
   private void assertIndexWithInBounds(int index) {
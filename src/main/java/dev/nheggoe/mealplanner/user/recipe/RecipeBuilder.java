@@ -74,14 +74,15 @@ public class RecipeBuilder {
   }
 
   /**
-   * Returns the constructed Recipe object after validating its information. Resets the internal
-   * state for new recipe construction.
+   * Returns the constructed Recipe object after validating its information, with its requirements
+   * already computed. Resets the internal state for new recipe construction.
    *
    * @return the fully constructed Recipe object with validated information.
    * @throws IllegalArgumentException if the recipe name, description, or steps are invalid.
    */
   public Recipe getRecipe() {
     assertRecipeInfo();
+    recipe.getRequirements();
     Recipe createdRecipe = recipe;
     reset();
     return createdRecipe;
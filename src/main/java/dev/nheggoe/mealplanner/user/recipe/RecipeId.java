@@ -0,0 +1,62 @@
+package dev.nheggoe.mealplanner.user.recipe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stable identity of a Recipe, assigned when the recipe is created and never changed by editing
+ * it. Ids are compared by value, and their hash is computed once, so recipes can be kept in hash
+ * maps keyed by id at the cost of a single comparison of two longs.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public final class RecipeId {
+  private static final AtomicLong NEXT_VALUE = new AtomicLong(1);
+  private static final long MIX = 0x9E3779B97F4A7C15L;
+
+  private final long value;
+  private final int hash;
+
+  /**
+   * Constructs a RecipeId with the given value.
+   *
+   * @param value the value of the id
+   */
+  private RecipeId(long value) {
+    this.value = value;
+    this.hash = Long.hashCode(value * MIX);
+  }
+
+  /**
+   * Creates a new id, distinct from every id created before.
+   *
+   * @return the new id
+   */
+  static RecipeId next() {
+    return new RecipeId(NEXT_VALUE.getAndIncrement());
+  }
+
+  /**
+   * Retrieves the value of the id.
+   *
+   * @return the value, unique among all recipes
+   */
+  public long getValue() {
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof RecipeId that && value == that.value;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "#" + value;
+  }
+}
@@ -0,0 +1,36 @@
+package dev.nheggoe.mealplanner.user.recipe;
+
+/**
+ * Receives notifications whenever a recipe is added to, changed in or removed from a CookBook, so
+ * that views over the recipes are kept up to date without having to rescan the cookbook.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public interface RecipeListener {
+
+  /**
+   * Called after a recipe has been added to the cookbook.
+   *
+   * @param recipe the recipe that was added
+   */
+  void recipeAdded(Recipe recipe);
+
+  /**
+   * Called after a recipe has been removed from the cookbook.
+   *
+   * @param recipe the recipe that was removed
+   */
+  void recipeRemoved(Recipe recipe);
+
+  /**
+   * Called after a recipe in the cookbook has been edited. By default the recipe is removed and
+   * added again, so that whatever the listener compiled from it is compiled again.
+   *
+   * @param recipe the recipe that was changed
+   */
+  default void recipeChanged(Recipe recipe) {
+    recipeRemoved(recipe);
+    recipeAdded(recipe);
+  }
+}
@@ -61,6 +61,17 @@ public class RecipeManager {
     cookBook.addRecipe(recipeToBeAdded);
   }
 
+  /**
+   * Registers a listener to be notified whenever a recipe is added to, changed in or removed from
+   * the cookbook.
+   *
+   * @param listener the listener to register
+   * @throws IllegalArgumentException if the listener is null
+   */
+  public void addRecipeListener(RecipeListener listener) {
+    cookBook.addListener(listener);
+  }
+
   /**
    * Finds and returns a list of recipes whose names contain the specified substring.
    *
@@ -71,6 +82,16 @@ public class RecipeManager {
     return cookBook.findRecipesContainingName(name);
   }
 
+  /**
+   * Finds the recipes that use every one of the given ingredients.
+   *
+   * @param ingredientNames the names of the ingredients
+   * @return a list of the recipes requiring all of the ingredients.
+   */
+  public List<Recipe> findRecipesWith(List<String> ingredientNames) {
+    return cookBook.findRecipesWithIngredients(ingredientNames);
+  }
+
   /**
    * Retrieves an overview of all recipe names in the cookbook.
    *
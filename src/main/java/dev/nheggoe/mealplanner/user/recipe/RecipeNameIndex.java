@@ -0,0 +1,303 @@
+package dev.nheggoe.mealplanner.user.recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Trigram index over the names of recipes, answering case-insensitive substring queries without
+ * scanning every name.
+ *
+ * <p>Names are normalised to lowercase and stripped, and every recipe gets a document number in
+ * the order it was added. Each sequence of three characters of a name maps to a posting list of the
+ * document numbers whose name contains it, kept sorted. A query of at least three characters can
+ * only match names containing all of its trigrams, so the posting lists of those trigrams are
+ * intersected, smallest first, and only the remaining names are checked for the whole query.
+ * Sequences of one and two characters, the prefixes of the trigrams, are indexed the same way, so
+ * a shorter query is answered by its own posting list without checking any name.
+ *
+ * <p>Removing a recipe leaves its document number unused. Once more than half of the document
+ * numbers are unused, the index is rebuilt with the remaining recipes numbered again in order, so
+ * unused numbers never make up most of the index.
+ *
+ * <p>A recipe is indexed under the name it had when it was added, until it is updated.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class RecipeNameIndex {
+  private static final int GRAM_LENGTH = 3;
+  private static final int LENGTH_SHIFT = 48;
+
+  private final List<Recipe> recipes;
+  private final List<String> names;
+  private final Map<RecipeId, Integer> documents;
+  private final Map<Long, PostingList> postings;
+  private int unused;
+
+  /** Constructs an empty RecipeNameIndex. */
+  public RecipeNameIndex() {
+    recipes = new ArrayList<>();
+    names = new ArrayList<>();
+    documents = new HashMap<>();
+    postings = new HashMap<>();
+  }
+
+  /**
+   * Adds a recipe to the index under its current name. A recipe that is already indexed is left
+   * as it is.
+   *
+   * @param recipe the recipe to be indexed
+   */
+  public void add(Recipe recipe) {
+    if (!documents.containsKey(recipe.getId())) {
+      index(recipe, normalise(recipe.getName()));
+    }
+  }
+
+  /**
+   * Removes a recipe from the index, and rebuilds the index once most of its document numbers are
+   * unused.
+   *
+   * @param recipe the recipe to be removed
+   */
+  public void remove(Recipe recipe) {
+    Integer document = documents.remove(recipe.getId());
+    if (document == null) {
+      return;
+    }
+    for (long gram : allGrams(names.get(document))) {
+      PostingList postingList = postings.get(gram);
+      postingList.remove(document);
+      if (postingList.size == 0) {
+        postings.remove(gram);
+      }
+    }
+    recipes.set(document, null);
+    names.set(document, null);
+    unused++;
+    if (unused * 2 > recipes.size()) {
+      compact();
+    }
+  }
+
+  /**
+   * Indexes a recipe again under its current name, if the name has changed since it was indexed. A
+   * recipe that is not indexed is left out.
+   *
+   * @param recipe the recipe to be updated
+   */
+  public void update(Recipe recipe) {
+    Integer document = documents.get(recipe.getId());
+    if (document != null && !names.get(document).equals(normalise(recipe.getName()))) {
+      remove(recipe);
+      add(recipe);
+    }
+  }
+
+  /**
+   * Finds the recipes whose name contains the given text, ignoring letter case and whitespace
+   * around the text.
+   *
+   * @param query the text to be searched for
+   * @return the matching recipes, in the order they were added
+   */
+  public List<Recipe> find(String query) {
+    String text = normalise(query);
+    List<Recipe> matches = new ArrayList<>();
+    if (text.isEmpty()) {
+      for (int document = 0; document < names.size(); document++) {
+        addIfMatching(matches, document, text);
+      }
+      return matches;
+    }
+    if (text.length() < GRAM_LENGTH) {
+      // the text is a gram itself, so every name in its posting list contains it
+      PostingList postingList = postings.get(grams(text, text.length())[0]);
+      for (int i = 0; postingList != null && i < postingList.size; i++) {
+        matches.add(recipes.get(postingList.documents[i]));
+      }
+      return matches;
+    }
+
+    long[] grams = grams(text, GRAM_LENGTH);
+    PostingList[] lists = new PostingList[grams.length];
+    for (int i = 0; i < grams.length; i++) {
+      lists[i] = postings.get(grams[i]);
+      if (lists[i] == null) {
+        return matches;
+      }
+    }
+    Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+    PostingList smallest = lists[0];
+    int[] positions = new int[lists.length];
+    for (int i = 0; i < smallest.size; i++) {
+      int document = smallest.documents[i];
+      boolean inAll = true;
+      for (int l = 1; l < lists.length && inAll; l++) {
+        positions[l] = lists[l].seek(document, positions[l]);
+        inAll = positions[l] < lists[l].size && lists[l].documents[positions[l]] == document;
+      }
+      if (inAll) {
+        addIfMatching(matches, document, text);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Gives a recipe the next document number, and adds the number to the posting list of every gram
+   * of the given name.
+   *
+   * @param recipe the recipe to be indexed
+   * @param name the normalised name to index the recipe under
+   */
+  private void index(Recipe recipe, String name) {
+    int document = recipes.size();
+    recipes.add(recipe);
+    names.add(name);
+    documents.put(recipe.getId(), document);
+    for (long gram : allGrams(name)) {
+      postings.computeIfAbsent(gram, key -> new PostingList()).add(document);
+    }
+  }
+
+  /**
+   * Rebuilds the index from the recipes that are still indexed, under the names they are indexed
+   * under. The recipes are numbered again in the same order, so that no document number is unused.
+   */
+  private void compact() {
+    List<Recipe> remainingRecipes = new ArrayList<>();
+    List<String> remainingNames = new ArrayList<>();
+    for (int document = 0; document < recipes.size(); document++) {
+      if (recipes.get(document) != null) {
+        remainingRecipes.add(recipes.get(document));
+        remainingNames.add(names.get(document));
+      }
+    }
+    recipes.clear();
+    names.clear();
+    documents.clear();
+    postings.clear();
+    unused = 0;
+    for (int i = 0; i < remainingRecipes.size(); i++) {
+      index(remainingRecipes.get(i), remainingNames.get(i));
+    }
+  }
+
+  /**
+   * Adds the recipe of the given document to the matches if it is still indexed and its name
+   * contains the text.
+   *
+   * @param matches the matches so far
+   * @param document the document number
+   * @param text the normalised query
+   */
+  private void addIfMatching(List<Recipe> matches, int document, String text) {
+    String name = names.get(document);
+    if (name != null && name.contains(text)) {
+      matches.add(recipes.get(document));
+    }
+  }
+
+  /**
+   * Normalises a name or query for indexing.
+   *
+   * @param text the text to be normalised
+   * @return the text, stripped and in lowercase
+   */
+  private static String normalise(String text) {
+    return text.strip().toLowerCase();
+  }
+
+  /**
+   * Retrieves the distinct grams of every length up to three of the given text.
+   *
+   * @param text the normalised text
+   * @return the grams, each packed into a long
+   */
+  private static long[] allGrams(String text) {
+    return IntStream.rangeClosed(1, GRAM_LENGTH)
+        .mapToObj(length -> grams(text, length))
+        .flatMapToLong(Arrays::stream)
+        .toArray();
+  }
+
+  /**
+   * Retrieves the distinct grams of the given length of the given text, each packed into a long
+   * together with its length, so that grams of different lengths never share a key.
+   *
+   * @param text the normalised text
+   * @param length the number of characters of each gram, at most three
+   * @return the grams, empty if the text is shorter than the length
+   */
+  private static long[] grams(String text, int length) {
+    long[] grams = new long[Math.max(0, text.length() - length + 1)];
+    for (int i = 0; i < grams.length; i++) {
+      long gram = (long) length << LENGTH_SHIFT;
+      for (int c = 0; c < length; c++) {
+        gram |= (long) text.charAt(i + c) << (16 * (length - 1 - c));
+      }
+      grams[i] = gram;
+    }
+    return Arrays.stream(grams).distinct().toArray();
+  }
+
+  /** Sorted, growable list of document numbers. */
+  private static final class PostingList {
+    private int[] documents = new int[4];
+    private int size;
+
+    /**
+     * Adds a document number. Documents are numbered in the order they are added, so appending
+     * keeps the list sorted.
+     *
+     * @param document the document number
+     */
+    private void add(int document) {
+      if (size == documents.length) {
+        documents = Arrays.copyOf(documents, size * 2);
+      }
+      documents[size++] = document;
+    }
+
+    /**
+     * Removes a document number, if present.
+     *
+     * @param document the document number
+     */
+    private void remove(int document) {
+      int index = Arrays.binarySearch(documents, 0, size, document);
+      if (index >= 0) {
+        System.arraycopy(documents, index + 1, documents, index, size - index - 1);
+        size--;
+      }
+    }
+
+    /**
+     * Finds the first position at or after the given position holding a document number no
+     * smaller than the given one, by galloping ahead and then searching binary.
+     *
+     * @param document the document number searched for
+     * @param from the position to start from
+     * @return the position found, or the size of the list if every number is smaller
+     */
+    private int seek(int document, int from) {
+      int step = 1;
+      int low = from;
+      int high = from;
+      while (high < size && documents[high] < document) {
+        low = high + 1;
+        high += step;
+        step <<= 1;
+      }
+      int index = Arrays.binarySearch(documents, low, Math.min(high + 1, size), document);
+      return index >= 0 ? index : -index - 1;
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package dev.nheggoe.mealplanner.user.recipe;
+
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.util.unit.DensityRegistry;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable list of the amounts of ingredients a recipe needs, one entry per ingredient id and
+ * base unit, sorted by ingredient id. Measurements of the same ingredient are summed, and amounts
+ * are expressed in grams, millilitres or pieces, so that comparing a requirement against stock is a
+ * plain comparison of two numbers.
+ *
+ * <p>An ingredient measured both by mass and by volume is summed into one entry if its density is
+ * known, and kept as two entries otherwise.
+ *
+ * <p>Every Recipe keeps its own requirement vector, see {@link Recipe#getRequirements()}.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public final class RequirementVector {
+  private static final int UNIT_BITS = 8;
+  private static final long UNIT_MASK = (1L << UNIT_BITS) - 1;
+  private static final ValidUnit[] UNITS = ValidUnit.values();
+
+  private final int[] ingredientIds;
+  private final ValidUnit[] baseUnits;
+  private final double[] amounts;
+
+  /**
+   * Constructs a RequirementVector from parallel arrays, which are not copied.
+   *
+   * @param ingredientIds the ingredient id of each entry
+   * @param baseUnits the base unit of each entry
+   * @param amounts the required amount of each entry, in its base unit
+   */
+  private RequirementVector(int[] ingredientIds, ValidUnit[] baseUnits, double[] amounts) {
+    this.ingredientIds = ingredientIds;
+    this.baseUnits = baseUnits;
+    this.amounts = amounts;
+  }
+
+  /**
+   * Creates the requirement vector of the given measurements.
+   *
+   * @param measurements the measurements to be summed; null elements are ignored
+   * @return the requirement vector, empty if there are no measurements
+   */
+  public static RequirementVector of(Collection<Measurement> measurements) {
+    Map<Long, Double> amountsByKey = new TreeMap<>();
+    for (Measurement measurement : measurements) {
+      if (measurement != null) {
+        ValidUnit unit = measurement.getUnit();
+        add(
+            amountsByKey,
+            measurement.getIngredientId(),
+            UnitConverter.getBaseUnit(unit),
+            UnitConverter.toBaseAmount(measurement.getAmount(), unit));
+      }
+    }
+    return of(amountsByKey);
+  }
+
+  /**
+   * Creates the requirement vector of the given requirement vectors summed together, for instance
+   * of every recipe of a meal plan. Entries are merged the same way as the measurements of a single
+   * recipe.
+   *
+   * @param vectors the requirement vectors to be summed
+   * @return the summed requirement vector, empty if there are no vectors
+   */
+  public static RequirementVector sum(Iterable<RequirementVector> vectors) {
+    Map<Long, Double> amountsByKey = new TreeMap<>();
+    for (RequirementVector vector : vectors) {
+      for (int i = 0; i < vector.size(); i++) {
+        add(amountsByKey, vector.ingredientIds[i], vector.baseUnits[i], vector.amounts[i]);
+      }
+    }
+    return of(amountsByKey);
+  }
+
+  /**
+   * Packs an ingredient id and a base unit into one key. Keys order entries by ingredient id and
+   * then by base unit, and are used wherever amounts are kept per ingredient and base unit.
+   *
+   * @param ingredientId the ingredient id
+   * @param baseUnit the base unit
+   * @return the key
+   */
+  public static long keyOf(int ingredientId, ValidUnit baseUnit) {
+    return ((long) ingredientId << UNIT_BITS) | baseUnit.ordinal();
+  }
+
+  /**
+   * Retrieves the ingredient id packed into a key, see {@link #keyOf(int, ValidUnit)}.
+   *
+   * @param key the key
+   * @return the ingredient id
+   */
+  public static int ingredientIdOf(long key) {
+    return (int) (key >> UNIT_BITS);
+  }
+
+  /**
+   * Retrieves the base unit packed into a key, see {@link #keyOf(int, ValidUnit)}.
+   *
+   * @param key the key
+   * @return the base unit
+   */
+  public static ValidUnit baseUnitOf(long key) {
+    return UNITS[(int) (key & UNIT_MASK)];
+  }
+
+  /**
+   * Retrieves the number of entries of the vector.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return amounts.length;
+  }
+
+  /**
+   * Checks if the vector has no entries.
+   *
+   * @return true if nothing is required, false otherwise
+   */
+  public boolean isEmpty() {
+    return amounts.length == 0;
+  }
+
+  /**
+   * Retrieves the ingredient id of the given entry.
+   *
+   * @param index the index of the entry
+   * @return the ingredient id, see IngredientRegistry
+   */
+  public int getIngredientId(int index) {
+    return ingredientIds[index];
+  }
+
+  /**
+   * Retrieves the base unit of the given entry.
+   *
+   * @param index the index of the entry
+   * @return the base unit, either G, ML or PCS
+   */
+  public ValidUnit getBaseUnit(int index) {
+    return baseUnits[index];
+  }
+
+  /**
+   * Retrieves the required amount of the given entry.
+   *
+   * @param index the index of the entry
+   * @return the amount, in the base unit of the entry
+   */
+  public double getAmount(int index) {
+    return amounts[index];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof RequirementVector that)) {
+      return false;
+    }
+    return Arrays.equals(ingredientIds, that.ingredientIds)
+        && Arrays.equals(baseUnits, that.baseUnits)
+        && Arrays.equals(amounts, that.amounts);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Arrays.hashCode(ingredientIds);
+    result = 31 * result + Arrays.hashCode(baseUnits);
+    result = 31 * result + Arrays.hashCode(amounts);
+    return result;
+  }
+
+  /**
+   * Creates a requirement vector from its entries.
+   *
+   * @param amountsByKey the amounts, keyed by ingredient id and base unit in ascending order
+   * @return the requirement vector
+   */
+  private static RequirementVector of(Map<Long, Double> amountsByKey) {
+    int size = amountsByKey.size();
+    int[] ingredientIds = new int[size];
+    ValidUnit[] baseUnits = new ValidUnit[size];
+    double[] amounts = new double[size];
+    int i = 0;
+    for (Map.Entry<Long, Double> entry : amountsByKey.entrySet()) {
+      ingredientIds[i] = ingredientIdOf(entry.getKey());
+      baseUnits[i] = baseUnitOf(entry.getKey());
+      amounts[i] = entry.getValue();
+      i++;
+    }
+    return new RequirementVector(ingredientIds, baseUnits, amounts);
+  }
+
+  /**
+   * Adds an amount to the entry of its ingredient. If the ingredient is already required in
+   * another base unit that the amount can be converted to, the amount is added to that entry
+   * instead.
+   *
+   * @param amountsByKey the entries so far, keyed by ingredient id and base unit
+   * @param ingredientId the id of the ingredient
+   * @param baseUnit the base unit of the amount
+   * @param amount the amount to be added, in the base unit
+   */
+  private static void add(
+      Map<Long, Double> amountsByKey, int ingredientId, ValidUnit baseUnit, double amount) {
+    double density = DensityRegistry.getDensity(ingredientId);
+    for (ValidUnit otherUnit : UNITS) {
+      long otherKey = keyOf(ingredientId, otherUnit);
+      if (otherUnit != baseUnit
+          && amountsByKey.containsKey(otherKey)
+          && UnitConverter.isConvertible(baseUnit, otherUnit, density)) {
+        amountsByKey.merge(
+            otherKey, amount * UnitConverter.getFactor(baseUnit, otherUnit, density), Double::sum);
+        return;
+      }
+    }
+    amountsByKey.merge(keyOf(ingredientId, baseUnit), amount, Double::sum);
+  }
+}
@@ -1,6 +1,7 @@
 package dev.nheggoe.mealplanner.user.recipe;
 
 import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
 import java.util.List;
 import java.util.Objects;
 
@@ -8,6 +9,10 @@ import java.util.Objects;
  * Represents a step in a recipe with cooking instructions and ingredients. Each step requires the
  * instruction, but the list of measurements is optional.
  *
+ * <p>A step cannot be changed once it is constructed: it keeps its own copies of the measurements
+ * it is given, and those copies refuse every change. A recipe can therefore keep what it computes
+ * from its steps until a step is added or removed.
+ *
  * @author Nick Heggø
  * @version 2024-12-12
  */
@@ -16,10 +21,11 @@ public class Step {
   private List<Measurement> measurements;
 
   /**
-   * Constructs a Step with the specified instruction and list of measurements.
+   * Constructs a Step with the specified instruction and list of measurements. The measurements are
+   * copied, so changing them afterwards does not change the step.
    *
    * @param instruction the cooking instruction for this step; must not be null or blank
-   * @param measurements the list of Measurement objects associated with this step
+   * @param measurements the list of Measurement objects associated with this step, can be null
    */
   public Step(String instruction, List<Measurement> measurements) {
     setMeasurements(measurements);
@@ -56,22 +62,25 @@ public class Step {
   }
 
   /**
-   * Retrieves the map of ingredient measurements for this step.
+   * Retrieves the ingredient measurements for this step.
    *
-   * @return a map where the key is a string representing the ingredient name, and the value is a
-   *     Measurement object.
+   * @return an unmodifiable list of measurements that refuse every change, or null if the step has
+   *     no measurements
    */
   public List<Measurement> getMeasurements() {
     return measurements;
   }
 
   /**
-   * Sets the list of measurements for the step.
+   * Sets the list of measurements for the step to fixed copies of the given measurements.
    *
    * @param measurements the list of Measurement objects to set can be null or empty.
    */
   private void setMeasurements(List<Measurement> measurements) {
-    this.measurements = measurements;
+    this.measurements =
+        measurements == null
+            ? null
+            : measurements.stream().<Measurement>map(FixedMeasurement::new).toList();
   }
 
   /**
@@ -87,8 +96,9 @@ public class Step {
    * Sets the cooking instruction for this step.
    *
    * @param instruction The cooking instruction to be set.
+   * @throws IllegalArgumentException if the instruction is null or blank
    */
-  public void setInstruction(String instruction) {
+  private void setInstruction(String instruction) {
     if (instruction == null) {
       throw new IllegalArgumentException("Step instruction cannot be null.");
     }
@@ -101,4 +111,49 @@ public class Step {
   private boolean hasMeasurements() {
     return getMeasurements() != null && !getMeasurements().isEmpty();
   }
+
+  /** Copy of a measurement of a step, which refuses every change once it is constructed. */
+  private static final class FixedMeasurement extends Measurement {
+    // false while the constructor of Measurement is still setting the fields
+    private final boolean fixed;
+
+    /**
+     * Constructs a fixed copy of the given measurement.
+     *
+     * @param measurement the measurement to be copied
+     */
+    private FixedMeasurement(Measurement measurement) {
+      super(measurement.getName(), measurement.getAmount(), measurement.getUnit());
+      fixed = true;
+    }
+
+    @Override
+    public void setName(String name) {
+      refuseChange();
+      super.setName(name);
+    }
+
+    @Override
+    public void setAmount(float amount) {
+      refuseChange();
+      super.setAmount(amount);
+    }
+
+    @Override
+    public void setUnit(ValidUnit unit) {
+      refuseChange();
+      super.setUnit(unit);
+    }
+
+    /**
+     * Refuses a change of the measurement once it has been constructed.
+     *
+     * @throws UnsupportedOperationException if the measurement has been constructed
+     */
+    private void refuseChange() {
+      if (fixed) {
+        throw new UnsupportedOperationException("The measurements of a step cannot be changed.");
+      }
+    }
+  }
 }
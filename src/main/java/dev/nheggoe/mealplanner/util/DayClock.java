@@ -0,0 +1,76 @@
+package dev.nheggoe.mealplanner.util;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Shared source of the current day, expressed as an epoch day. The current day is cached and only
+ * recalculated once the clock passes midnight, so expiry checks compare two integers instead of
+ * creating a new LocalDate for every check. The underlying clock can be replaced, which allows the
+ * time to be controlled in tests.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class DayClock {
+  private static volatile Clock clock = Clock.systemDefaultZone();
+  private static volatile int today;
+  private static volatile long dayStartMillis;
+  private static volatile long nextDayStartMillis = Long.MIN_VALUE;
+
+  private DayClock() {}
+
+  /**
+   * Retrieves the current day as the number of days since the epoch.
+   *
+   * @return the current epoch day
+   */
+  public static int today() {
+    long now = clock.millis();
+    if (now >= nextDayStartMillis || now < dayStartMillis) {
+      advance();
+    }
+    return today;
+  }
+
+  /**
+   * Retrieves the current day as a LocalDate.
+   *
+   * @return the current date
+   */
+  public static LocalDate todayAsDate() {
+    return LocalDate.ofEpochDay(today());
+  }
+
+  /**
+   * Replaces the clock used to determine the current day, and resets the cached day.
+   *
+   * @param newClock the clock to use from now on
+   * @throws IllegalArgumentException if the clock is null
+   */
+  public static synchronized void setClock(Clock newClock) {
+    if (newClock == null) {
+      throw new IllegalArgumentException("Clock cannot be null");
+    }
+    clock = newClock;
+    nextDayStartMillis = Long.MIN_VALUE;
+  }
+
+  /** Restores the clock to the system clock in the default time zone. */
+  public static void resetClock() {
+    setClock(Clock.systemDefaultZone());
+  }
+
+  /**
+   * Recalculates the cached current day and the time at which the next day starts. Only called when
+   * the clock has moved past the cached day.
+   */
+  private static synchronized void advance() {
+    ZoneId zone = clock.getZone();
+    LocalDate date = LocalDate.now(clock);
+    today = (int) date.toEpochDay();
+    dayStartMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+    nextDayStartMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+  }
+}
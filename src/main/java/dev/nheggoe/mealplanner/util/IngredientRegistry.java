@@ -0,0 +1,148 @@
+package dev.nheggoe.mealplanner.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symbol table that maps every canonical ingredient name to a compact int id, so that storages,
+ * measurements and indexes can key on an int instead of a lowercase copy of the name. The
+ * canonical name is the key produced by {@link Utility#createKey(String)}, so "Milk" and " milk"
+ * share an id.
+ *
+ * <p>Every spelling that has been seen is remembered together with its id. Looking up a known
+ * spelling is therefore a single hash lookup, without creating the lowercase key again, and every
+ * measurement with that spelling shares one String instance.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class IngredientRegistry {
+  /** The id returned for names that have never been registered. */
+  public static final int UNKNOWN_ID = -1;
+
+  private static final Map<String, Symbol> SYMBOL_BY_SPELLING = new ConcurrentHashMap<>();
+  private static final Map<String, Integer> ID_BY_KEY = new ConcurrentHashMap<>();
+  private static volatile String[] keys = new String[64];
+  private static int size;
+
+  private IngredientRegistry() {}
+
+  /**
+   * Retrieves the id of the given ingredient name, registering the name if it is new.
+   *
+   * @param name the ingredient name, in any spelling
+   * @return the id of the name, or UNKNOWN_ID if the name is null
+   */
+  public static int register(String name) {
+    if (name == null) {
+      return UNKNOWN_ID;
+    }
+    return symbolOf(name).id();
+  }
+
+  /**
+   * Retrieves the id of the given ingredient name without registering it. Used for queries, so
+   * that searching for an unknown ingredient does not grow the table.
+   *
+   * @param name the ingredient name, in any spelling
+   * @return the id of the name, or UNKNOWN_ID if the name is null or has never been registered
+   */
+  public static int findId(String name) {
+    if (name == null) {
+      return UNKNOWN_ID;
+    }
+    Symbol symbol = SYMBOL_BY_SPELLING.get(name);
+    if (symbol != null) {
+      return symbol.id();
+    }
+    Integer id = ID_BY_KEY.get(Utility.createKey(name));
+    if (id == null) {
+      return UNKNOWN_ID;
+    }
+    SYMBOL_BY_SPELLING.putIfAbsent(name, new Symbol(id, name));
+    return id;
+  }
+
+  /**
+   * Retrieves the shared instance of the given spelling of an ingredient name, registering the
+   * name if it is new.
+   *
+   * @param name the ingredient name
+   * @return a String equal to the name, shared by every caller using the same spelling; or null if
+   *     the name is null
+   */
+  public static String intern(String name) {
+    if (name == null) {
+      return null;
+    }
+    return symbolOf(name).spelling();
+  }
+
+  /**
+   * Retrieves the canonical name of the given id, as produced by {@link
+   * Utility#createKey(String)}.
+   *
+   * @param id the id of an ingredient name
+   * @return the canonical name
+   * @throws IllegalArgumentException if the id has not been handed out
+   */
+  public static String getKey(int id) {
+    String[] currentKeys = keys;
+    if (id < 0 || id >= currentKeys.length || currentKeys[id] == null) {
+      throw new IllegalArgumentException("Unknown ingredient id: " + id);
+    }
+    return currentKeys[id];
+  }
+
+  /**
+   * Retrieves the number of distinct ingredient names registered so far.
+   *
+   * @return the number of registered names
+   */
+  public static synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Retrieves the symbol of the given spelling, creating it and, if needed, a new id.
+   *
+   * @param name the ingredient name, not null
+   * @return the symbol of the spelling
+   */
+  private static Symbol symbolOf(String name) {
+    Symbol symbol = SYMBOL_BY_SPELLING.get(name);
+    if (symbol == null) {
+      symbol =
+          SYMBOL_BY_SPELLING.computeIfAbsent(
+              name, spelling -> new Symbol(idOfKey(Utility.createKey(spelling)), spelling));
+    }
+    return symbol;
+  }
+
+  /**
+   * Retrieves the id of the given canonical name, handing out the next id if it is new.
+   *
+   * @param key the canonical name
+   * @return the id of the canonical name
+   */
+  private static synchronized int idOfKey(String key) {
+    Integer id = ID_BY_KEY.get(key);
+    if (id != null) {
+      return id;
+    }
+    String[] grownKeys = (size == keys.length) ? Arrays.copyOf(keys, size * 2) : keys;
+    grownKeys[size] = key;
+    keys = grownKeys;
+    ID_BY_KEY.put(key, size);
+    return size++;
+  }
+
+  /**
+   * A known spelling of an ingredient name together with its id.
+   *
+   * @param id the id of the canonical name
+   * @param spelling the shared instance of the spelling
+   */
+  private record Symbol(int id, String spelling) {}
+}
@@ -4,7 +4,6 @@ import dev.nheggoe.mealplanner.util.command.CommandRegistry;
 import dev.nheggoe.mealplanner.util.input.CommandInput;
 import dev.nheggoe.mealplanner.util.input.UnitInput;
 import dev.nheggoe.mealplanner.util.unit.UnitRegistry;
-import dev.nheggoe.mealplanner.util.unit.ValidUnit;
 import java.util.Scanner;
 
 /**
@@ -63,16 +62,14 @@ public class InputScanner {
   }
 
   /**
-   * Fetches and processes user input as a unit. The input is scanned, tokenized, and converted into
-   * a UserInput object.
+   * Fetches and processes user input as a unit. The input is scanned and parsed by the
+   * UnitRegistry, so the amount and unit may be written with or without a space between them.
    *
    * @return a UserInput object representing the parsed unit input.
    */
   public UnitInput fetchUnit() {
     String scannedLine = nextLine();
-    String[] tokenized = tokenizeInput(scannedLine);
-    assertUnitInput(tokenized);
-    return createUnitInput(tokenized);
+    return UnitRegistry.parseQuantity(scannedLine);
   }
 
   /**
@@ -186,18 +183,6 @@ public class InputScanner {
     return Integer.parseInt(nextLine());
   }
 
-  /**
-   * Validates the provided tokens array to ensure it contains at least two elements.
-   *
-   * @param tokens an array of strings representing the user input tokens
-   * @throws IllegalArgumentException if the array has fewer than two elements
-   */
-  private void assertUnitInput(String[] tokens) {
-    if (tokens.length < 2) {
-      throw new IllegalArgumentException("Missing unit inputs.");
-    }
-  }
-
   /**
    * Checks if the provided input is equal to "abort" (case-insensitive) and throws an
    * AbortException if true.
@@ -258,18 +243,4 @@ public class InputScanner {
     String inputString = (tokens.length > 2) ? tokens[2] : null;
     return new CommandInput(CommandRegistry.findCommand(command), subcommand, inputString);
   }
-
-  /**
-   * Processes user input tokens to create a UserInput object for units.
-   *
-   * @param tokens an array of strings representing the user's input. The first token should be the
-   *     unit amount, and the second token should be the unit type.
-   * @return a UserInput object containing the unit amount and its type.
-   */
-  private UnitInput createUnitInput(String[] tokens) {
-    float unitAmount = (tokens.length > 0) ? Float.parseFloat(tokens[0]) : -1;
-    String unitString = (tokens.length > 1) ? tokens[1].toLowerCase() : null;
-    ValidUnit unit = UnitRegistry.findUnit(unitString);
-    return new UnitInput(unitAmount, unit);
-  }
 }
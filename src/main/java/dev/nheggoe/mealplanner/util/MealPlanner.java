@@ -10,6 +10,7 @@ import dev.nheggoe.mealplanner.user.recipe.Step;
 import dev.nheggoe.mealplanner.util.command.Command;
 import dev.nheggoe.mealplanner.util.command.IllegalCommandCombinationException;
 import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -74,28 +75,23 @@ public class MealPlanner {
     InventoryManager inventoryManager = user.getInventoryManager();
     inventoryManager.createIngredientStorage("Fridge");
     inventoryManager.setCurrentStorage(inventoryManager.getStorage("fridge"));
-    inventoryManager.addIngredientToCurrentStorage(
-        new Ingredient("Chocolate", 300, ValidUnit.G, 10, 4));
-    inventoryManager.addIngredientToCurrentStorage(new Ingredient("Flour", 5, ValidUnit.KG, 10, 4));
-    inventoryManager.addIngredientToCurrentStorage(
-        new Ingredient("Chocolate Chips", 0.9f, ValidUnit.KG, 10, 4));
-    inventoryManager.addIngredientToCurrentStorage(
-        new Ingredient("Butter", 0.9f, ValidUnit.KG, 10, 4));
-    inventoryManager.addIngredientToCurrentStorage(
-        new Ingredient("Granulated Sugar", 0.9f, ValidUnit.KG, 10, 4));
-    inventoryManager.addIngredientToCurrentStorage(
-        new Ingredient("Brown Sugar", 0.9f, ValidUnit.KG, 10, 4));
-
-    inventoryManager.addIngredientToCurrentStorage(
-        new Ingredient("Vanilla Extract", 0.9f, ValidUnit.DL, 10, 4));
-    inventoryManager.addIngredientToCurrentStorage(
-        new Ingredient("Milk", 0.4f, ValidUnit.L, 10, 4));
+    List<Ingredient> delivery = new ArrayList<>();
+    delivery.add(new Ingredient("Chocolate", 300, ValidUnit.G, 10, 4));
+    delivery.add(new Ingredient("Flour", 5, ValidUnit.KG, 10, 4));
+    delivery.add(new Ingredient("Chocolate Chips", 0.9f, ValidUnit.KG, 10, 4));
+    delivery.add(new Ingredient("Butter", 0.9f, ValidUnit.KG, 10, 4));
+    delivery.add(new Ingredient("Granulated Sugar", 0.9f, ValidUnit.KG, 10, 4));
+    delivery.add(new Ingredient("Brown Sugar", 0.9f, ValidUnit.KG, 10, 4));
+
+    delivery.add(new Ingredient("Vanilla Extract", 0.9f, ValidUnit.DL, 10, 4));
+    delivery.add(new Ingredient("Milk", 0.4f, ValidUnit.L, 10, 4));
     int amountOfExpiredIngredientToGenerate = 3;
     for (int generatedIngredient = 0;
         generatedIngredient < amountOfExpiredIngredientToGenerate;
         generatedIngredient++) {
-      inventoryManager.addIngredientToCurrentStorage(new Ingredient("expiredDemo"));
+      delivery.add(new Ingredient("expiredDemo"));
     }
+    inventoryManager.addIngredientsToCurrentStorage(delivery);
     inventoryManager.createIngredientStorage("Cold Room");
     inventoryManager.setCurrentStorage("CoLd RoOm");
     inventoryManager.addIngredientToCurrentStorage(
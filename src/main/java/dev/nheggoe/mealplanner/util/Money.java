@@ -0,0 +1,49 @@
+package dev.nheggoe.mealplanner.util;
+
+/**
+ * Fixed-point representation of money. Amounts are kept as a long number of minor units (øre,
+ * hundredths of a krone), so sums over large inventories are exact and need no boxing or rounding.
+ * Conversion from and to decimal kroner only happens at the user facing edges.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class Money {
+  /** The number of minor units in one major unit, i.e. øre per krone. */
+  public static final int MINOR_UNITS_PER_MAJOR = 100;
+
+  private Money() {}
+
+  /**
+   * Converts an amount of kroner to minor units, rounding to the nearest øre.
+   *
+   * @param major the amount in kroner
+   * @return the amount in minor units
+   */
+  public static long ofMajor(double major) {
+    return Math.round(major * MINOR_UNITS_PER_MAJOR);
+  }
+
+  /**
+   * Converts an amount in minor units to kroner.
+   *
+   * @param minorUnits the amount in minor units
+   * @return the amount in kroner
+   */
+  public static double toMajor(long minorUnits) {
+    return (double) minorUnits / MINOR_UNITS_PER_MAJOR;
+  }
+
+  /**
+   * Formats an amount in minor units as kroner with exactly two decimals, e.g. "12.05".
+   *
+   * @param minorUnits the amount in minor units
+   * @return the formatted amount
+   */
+  public static String format(long minorUnits) {
+    String sign = minorUnits < 0 ? "-" : "";
+    long absolute = Math.abs(minorUnits);
+    return "%s%d.%02d"
+        .formatted(sign, absolute / MINOR_UNITS_PER_MAJOR, absolute % MINOR_UNITS_PER_MAJOR);
+  }
+}
@@ -105,14 +105,4 @@ public class Utility {
     }
     return random;
   }
-
-  /**
-   * Rounds a float value to two decimal places.
-   *
-   * @param input the float value to be rounded
-   * @return the rounded float value with two decimal places
-   */
-  public static float roundToTwoDecimal(float input) {
-    return (float) Math.round(input * 100) / 100;
-  }
 }
@@ -5,6 +5,7 @@ import dev.nheggoe.mealplanner.user.User;
 import dev.nheggoe.mealplanner.user.inventory.Ingredient;
 import dev.nheggoe.mealplanner.user.recipe.Recipe;
 import dev.nheggoe.mealplanner.util.OutputHandler;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,6 +19,8 @@ import java.util.List;
  */
 public class FindCommand extends Command {
 
+  private static final String WITH_OPTION = "--with";
+
   /**
    * Constructs a new FindCommand object for the specified user. The FindCommand class is used to
    * handle the "find" command issued by a user. This command allows users to search for specific
@@ -77,6 +80,13 @@ public class FindCommand extends Command {
   }
 
   private void findRecipe() {
+    if (!isArgumentEmpty()) {
+      String[] options = getArgument().strip().split("\\s+", 2);
+      if (options[0].equalsIgnoreCase(WITH_OPTION)) {
+        findRecipeWith(options.length > 1 ? options[1] : "");
+        return;
+      }
+    }
     if (isArgumentEmpty()) {
       List<String> overview = getRecipeManager().getRecipeOverview();
       getOutputHandler().printList(overview, "bullet");
@@ -86,6 +96,25 @@ public class FindCommand extends Command {
     printDetails(matchingRecipes);
   }
 
+  /**
+   * Finds the recipes using every one of the given ingredients, looked up in the ingredient index
+   * of the cookbook. Ingredients are separated by commas or by "and", as in "chicken and rice".
+   *
+   * @param ingredientList the ingredients following the option
+   * @throws IllegalArgumentException if no ingredient is given
+   */
+  private void findRecipeWith(String ingredientList) {
+    List<String> ingredientNames =
+        Arrays.stream(ingredientList.split("(?i),|\\s+and\\s+"))
+            .map(String::strip)
+            .filter(name -> !name.isEmpty())
+            .toList();
+    if (ingredientNames.isEmpty()) {
+      throw new IllegalArgumentException("Please enter at least one ingredient name.");
+    }
+    printDetails(getRecipeManager().findRecipesWith(ingredientNames));
+  }
+
   private void printDetails(List<?> matchingObjects) {
     OutputHandler outputHandler = getOutputHandler();
     if (matchingObjects.stream().allMatch(Printable.class::isInstance)) {
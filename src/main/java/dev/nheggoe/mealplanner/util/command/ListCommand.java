@@ -1,21 +1,38 @@
 package dev.nheggoe.mealplanner.util.command;
 
 import dev.nheggoe.mealplanner.user.User;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
 import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.planner.MealPlan;
+import dev.nheggoe.mealplanner.user.planner.MealPlanOptimiser;
+import dev.nheggoe.mealplanner.user.planner.PickPlan;
+import dev.nheggoe.mealplanner.user.planner.PickPlanner;
+import dev.nheggoe.mealplanner.user.planner.RecipeCostEngine;
+import dev.nheggoe.mealplanner.user.planner.RecipeCostEngine.Pricing;
+import dev.nheggoe.mealplanner.user.planner.ShoppingListGenerator;
 import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.util.Money;
 import dev.nheggoe.mealplanner.util.OutputHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ListCommand is a concrete implementation of the Command class that handles various subcommands
  * related to listing information, such as inventory, location, recipes, ingredients, expired items,
- * and available recipes.
+ * available recipes, meal plans and shopping lists.
  *
  * @author Nick Heggø
  * @version 2024-12-12
  */
 public class ListCommand extends Command {
 
+  private static final int DEFAULT_EXPIRING_DAYS = 7;
+  private static final int DEFAULT_PLAN_DAYS = 7;
+  private static final String POOLED_OPTION = "--pooled";
+  private static final String BY_COST_OPTION = "--by-cost";
+
   /**
    * Constructs a ListCommand for the specified user, enabling execution of commands related to
    * listing resources.
@@ -55,7 +72,10 @@ public class ListCommand extends Command {
       case "recipe" -> listRecipe();
       case "ingredient" -> listIngredient();
       case "expired" -> listExpired();
-      case "available" -> listAvailableRecipe();
+      case "expiring" -> listExpiring();
+      case "available" -> listAvailable();
+      case "plan" -> listPlan();
+      case "shopping" -> listShopping();
       case "command", "commands" -> getOutputHandler().printHelpMessage();
       case "name" -> listName();
       case "value", "values" -> listValue();
@@ -99,9 +119,20 @@ public class ListCommand extends Command {
   /**
    * Lists the total number of recipes and their names. Retrieves an overview of all existing
    * recipes from the RecipeManager. Outputs the count of recipes and their formatted names using
-   * the OutputHandler. If no recipes exist, notifies the user with a relevant message.
+   * the OutputHandler. If no recipes exist, notifies the user with a relevant message. With the
+   * by-cost option, the recipes are listed by cost instead.
+   *
+   * @throws IllegalArgumentException if the argument is not a recognised option.
    */
   private void listRecipe() {
+    if (!isArgumentEmpty()) {
+      String[] options = getArgument().strip().split("\\s+", 2);
+      if (!options[0].equalsIgnoreCase(BY_COST_OPTION)) {
+        throw new IllegalArgumentException("Unknown option " + options[0] + ".");
+      }
+      listRecipeByCost(options.length > 1 ? options[1] : "");
+      return;
+    }
     List<String> recipeList = getRecipeManager().getRecipeOverview();
     OutputHandler outputHandler = getOutputHandler();
     if (recipeList == null || recipeList.isEmpty()) {
@@ -113,6 +144,38 @@ public class ListCommand extends Command {
     }
   }
 
+  /**
+   * Lists every recipe with its cost, cheapest first, as kept sorted by the user's
+   * RecipeCostEngine. Ingredients are priced by their average value unless another pricing is
+   * given: cheapest, average or fefo.
+   *
+   * @param pricingName the name of the pricing, or empty for the average
+   * @throws IllegalArgumentException if the pricing is not recognised
+   */
+  private void listRecipeByCost(String pricingName) {
+    Pricing pricing;
+    try {
+      pricing =
+          pricingName.isEmpty() ? Pricing.AVERAGE : Pricing.valueOf(pricingName.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Unknown pricing " + pricingName + ", please use cheapest, average or fefo.");
+    }
+    RecipeCostEngine engine = getUser().getRecipeCostEngine();
+    List<String> lines = new ArrayList<>();
+    for (Recipe recipe : engine.getRecipesByCost(pricing)) {
+      long cost = engine.getCost(recipe, pricing);
+      String price =
+          cost == RecipeCostEngine.UNKNOWN_COST ? "price unknown" : Money.format(cost) + " kr";
+      lines.add(recipe.getName() + ": " + price);
+    }
+    if (lines.isEmpty()) {
+      getOutputHandler().printOutput("There are currently 0 recipes in the system.");
+    } else {
+      getOutputHandler().printList(lines, "bullet");
+    }
+  }
+
   /**
    * Lists all available ingredients in the user's inventory. Retrieves ingredient data from
    * InventoryManager and displays the formatted list using the OutputHandler.
@@ -128,25 +191,184 @@ public class ListCommand extends Command {
     getOutputHandler().printOutputWithLineBreak(getInventoryManager().getExpiredString());
   }
 
+  /**
+   * Lists the ingredients across all storages that expire within the number of days given as the
+   * argument. Defaults to a week when no argument is given.
+   */
+  private void listExpiring() {
+    int days = parseDays(DEFAULT_EXPIRING_DAYS);
+    getOutputHandler().printOutputWithLineBreak(getInventoryManager().getExpiringString(days));
+  }
+
+  /**
+   * Lists a plan of one recipe per day for the number of days given as the argument, chosen to use
+   * as much as possible of the ingredients about to expire, together with the value saved. Defaults
+   * to a week when no argument is given.
+   */
+  private void listPlan() {
+    int days = parseDays(DEFAULT_PLAN_DAYS);
+    OutputHandler outputHandler = getOutputHandler();
+    List<Recipe> recipeList = getRecipeManager().getAllRecipe();
+    if (recipeList.isEmpty()) {
+      outputHandler.printOutput("There are no recipes at the moment.");
+      return;
+    }
+    MealPlan plan =
+        new MealPlanOptimiser(recipeList, getInventoryManager().getAllStorages()).optimise(days);
+    if (plan.isEmpty()) {
+      outputHandler.printOutput(
+          "No recipe uses the ingredients expiring in the next %d days.".formatted(days));
+      return;
+    }
+    List<String> lines = new ArrayList<>();
+    for (int day = 0; day < plan.getDays(); day++) {
+      Recipe recipe = plan.getRecipe(day);
+      String name = recipe == null ? "nothing planned" : recipe.getName();
+      lines.add("%s: %s".formatted(plan.getDate(day), name));
+    }
+    outputHandler.printOutput("Meal plan for the next %d days:".formatted(days));
+    outputHandler.printList(lines, "bullet");
+    outputHandler.printOutput(
+        "Ingredient of total value " + Money.format(plan.getSavedValue()) + " kr is saved.");
+  }
+
+  /**
+   * Lists what has to be bought, on top of the stock of every storage, to cook each of the recipes
+   * given as the argument once. Recipe names are separated by commas.
+   *
+   * @throws IllegalArgumentException if no recipe is given, or a name does not identify a recipe
+   */
+  private void listShopping() {
+    if (isArgumentEmpty()) {
+      setArgument("Please enter the recipe names, separated by commas:");
+    }
+    List<String> recipeNames =
+        Arrays.stream(getArgument().split(","))
+            .map(String::strip)
+            .filter(name -> !name.isEmpty())
+            .toList();
+    if (recipeNames.isEmpty()) {
+      throw new IllegalArgumentException("Please enter at least one recipe name.");
+    }
+    List<Recipe> recipeList = recipeNames.stream().map(this::findSingleRecipe).toList();
+    List<Measurement> shoppingList =
+        new ShoppingListGenerator(getInventoryManager().getAllStorages()).generate(recipeList);
+    OutputHandler outputHandler = getOutputHandler();
+    if (shoppingList.isEmpty()) {
+      outputHandler.printOutput("You have enough ingredient for every recipe.");
+    } else {
+      outputHandler.printOutput("Shopping list:");
+      outputHandler.printList(shoppingList, "bullet");
+    }
+  }
+
+  /**
+   * Finds the recipe with the given name, or else the only recipe whose name contains it.
+   *
+   * @param name the name of the recipe, in any letter case
+   * @return the recipe
+   * @throws IllegalArgumentException if no recipe, or more than one, matches the name
+   */
+  private Recipe findSingleRecipe(String name) {
+    List<Recipe> matches = getRecipeManager().findRecipe(name);
+    return matches.stream()
+        .filter(recipe -> recipe.getName().strip().equalsIgnoreCase(name))
+        .findFirst()
+        .orElseGet(
+            () -> {
+              if (matches.size() != 1) {
+                throw new IllegalArgumentException(
+                    "%s recipe matching \"%s\"."
+                        .formatted(matches.isEmpty() ? "Cannot find any" : "More than one", name));
+              }
+              return matches.getFirst();
+            });
+  }
+
+  /**
+   * Parses the argument as a number of days.
+   *
+   * @param defaultDays the number of days when no argument is given
+   * @return the number of days
+   * @throws IllegalArgumentException if the argument is not a whole number
+   */
+  private int parseDays(int defaultDays) {
+    if (isArgumentEmpty()) {
+      return defaultDays;
+    }
+    try {
+      return Integer.parseInt(getArgument().strip());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Number of days must be a whole number.");
+    }
+  }
+
+  /**
+   * Lists the recipes that can be cooked, either from a single storage, or with the stock of every
+   * storage pooled when the argument is the pooled option.
+   *
+   * @throws IllegalArgumentException if the argument is not a recognised option.
+   */
+  private void listAvailable() {
+    if (isArgumentEmpty()) {
+      listAvailableRecipe();
+    } else if (getArgument().strip().equalsIgnoreCase(POOLED_OPTION)) {
+      listPooledRecipe();
+    } else {
+      throw new IllegalArgumentException("Unknown option " + getArgument().strip() + ".");
+    }
+  }
+
+  /**
+   * Lists the recipes that can be cooked from a single storage, together with the storages holding
+   * enough of every ingredient. The answer is read from the user's CookableRecipeView, which is
+   * kept up to date as ingredients and recipes change.
+   */
   private void listAvailableRecipe() {
+    OutputHandler outputHandler = getOutputHandler();
+    if (getRecipeManager().getAllRecipe().isEmpty()) {
+      outputHandler.printOutput("There are no recipes at the moment.");
+    } else {
+      Map<Recipe, List<IngredientStorage>> available =
+          getUser().getCookableRecipeView().getCookableRecipes();
+      for (Map.Entry<Recipe, List<IngredientStorage>> entry : available.entrySet()) {
+        outputHandler.printOutput(
+            "There is enough ingredient for " + entry.getKey().getName() + " at:");
+        outputHandler.printList(
+            entry.getValue().stream().map(IngredientStorage::getStorageName).toList(), "bullet");
+      }
+      if (available.isEmpty()) {
+        outputHandler.printOutput("You don't have enough ingredient at the moment.");
+      }
+    }
+  }
+
+  /**
+   * Lists the recipes that can be cooked when the stock of every storage is pooled, together with
+   * the lots to take from each storage. The PickPlanner keeps the number of storages to visit to a
+   * minimum and takes the lots expiring first.
+   */
+  private void listPooledRecipe() {
     OutputHandler outputHandler = getOutputHandler();
     List<Recipe> recipeList = getRecipeManager().getAllRecipe();
     if (recipeList.isEmpty()) {
       outputHandler.printOutput("There are no recipes at the moment.");
     } else {
-      boolean anyAvailable = false;
+      PickPlanner planner = new PickPlanner(getInventoryManager());
+      boolean anyComplete = false;
       for (Recipe recipe : recipeList) {
-        List<Measurement> measurements = recipe.getAllMeasurement();
-        List<String> listOfSufficientStorages =
-            getInventoryManager().findSufficientStorages(measurements);
-        if (!listOfSufficientStorages.isEmpty()) {
-          outputHandler.printOutput("There is enough ingredient for " + recipe.getName() + " at:");
-          outputHandler.printList(listOfSufficientStorages, "bullet");
-          anyAvailable = true;
+        PickPlan plan = planner.plan(recipe.getRequirements());
+        if (plan.isComplete()) {
+          anyComplete = true;
+          outputHandler.printOutput(
+              "There is enough ingredient for " + recipe.getName() + " by taking:");
+          if (!plan.getPicks().isEmpty()) {
+            outputHandler.printList(plan.getPicks(), "bullet");
+          }
         }
       }
-      if (!anyAvailable) {
-        getOutputHandler().printOutput("You don't have enough ingredient at the moment.");
+      if (!anyComplete) {
+        outputHandler.printOutput("You don't have enough ingredient at the moment.");
       }
     }
   }
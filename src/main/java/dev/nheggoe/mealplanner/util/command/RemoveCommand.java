@@ -1,9 +1,10 @@
 package dev.nheggoe.mealplanner.util.command;
 
 import dev.nheggoe.mealplanner.user.User;
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
 import dev.nheggoe.mealplanner.user.recipe.Recipe;
 import dev.nheggoe.mealplanner.user.recipe.RecipeManager;
-import dev.nheggoe.mealplanner.util.Utility;
+import dev.nheggoe.mealplanner.util.Money;
 import java.util.List;
 
 /**
@@ -75,14 +76,20 @@ public class RemoveCommand extends Command {
   }
 
   /**
-   * Removes all expired items from the inventory, adds their total value to the user's wasted value
-   * tracker, and outputs a summary of the removed value.
+   * Removes all expired items from the current storage, or from every storage if the argument is
+   * "all", records them in the user's waste log, and outputs a summary of the removed value.
    */
   private void removeExpired() {
-    float sum = Utility.roundToTwoDecimal(getInventoryManager().removeAllExpired());
-    getUser().addWastedValue(sum);
+    boolean fromAll = !isArgumentEmpty() && getArgument().strip().equalsIgnoreCase("all");
+    List<Ingredient> removed =
+        fromAll
+            ? getInventoryManager().removeAllExpiredFromAll()
+            : getInventoryManager().removeAllExpired();
+    getUser().addWaste(removed);
+    long removedValue = removed.stream().mapToLong(Ingredient::getValue).sum();
     getOutputHandler()
-        .printOutputWithLineBreak("Value of " + sum + " kr worth of food is now been deleted.");
+        .printOutputWithLineBreak(
+            "Value of " + Money.format(removedValue) + " kr worth of food is now been deleted.");
   }
 
   /**
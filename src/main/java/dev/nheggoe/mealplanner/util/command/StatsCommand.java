@@ -1,6 +1,12 @@
 package dev.nheggoe.mealplanner.util.command;
 
 import dev.nheggoe.mealplanner.user.User;
+import dev.nheggoe.mealplanner.user.WasteLog;
+import dev.nheggoe.mealplanner.user.WasteLog.WasteTotal;
+import dev.nheggoe.mealplanner.util.DayClock;
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
+import dev.nheggoe.mealplanner.util.Money;
+import java.util.List;
 
 /**
  * The StatsCommand class extends the Command class and is responsible for executing a command that
@@ -11,6 +17,9 @@ import dev.nheggoe.mealplanner.user.User;
  */
 public class StatsCommand extends Command {
 
+  private static final String BY_OPTION = "--by";
+  private static final String LAST_OPTION = "--last";
+
   /**
    * Constructs a StatsCommand object associated with the specified user.
    *
@@ -20,10 +29,21 @@ public class StatsCommand extends Command {
     super(user);
   }
 
-  /** Executes the stats command by invoking printStats to display user statistics. */
+  /**
+   * Executes the stats command by invoking printStats to display user statistics, or the waste
+   * subcommand to break the waste down.
+   *
+   * @throws IllegalArgumentException if the subcommand is not recognized.
+   */
   @Override
   public void execute() {
-    printStats();
+    if (!hasSubcommand()) {
+      printStats();
+    } else if (getSubcommand().equals("waste")) {
+      printWaste();
+    } else {
+      illegalCommand();
+    }
   }
 
   /**
@@ -32,8 +52,93 @@ public class StatsCommand extends Command {
    * currency and prints the message.
    */
   private void printStats() {
-    float wastedValue = getUser().getWastedValue();
-    String output = "Ingredient of total value " + wastedValue + " kr has been wasted.";
+    long wastedValue = getUser().getWastedValue();
+    String output =
+        "Ingredient of total value " + Money.format(wastedValue) + " kr has been wasted.";
     getOutputHandler().printOutput(output);
   }
+
+  /**
+   * Prints the value of the wasted ingredients, over all time or over the last number of days given
+   * by the last option, and broken down per ingredient with the by option. The answer is read from
+   * the prefix sums of the user's WasteLog.
+   *
+   * @throws IllegalArgumentException if the options are not recognized, or the number of days is
+   *     not positive.
+   */
+  private void printWaste() {
+    String[] options = isArgumentEmpty() ? new String[0] : getArgument().strip().split("\\s+");
+    boolean byIngredient = false;
+    String lastDays = null;
+    for (int i = 0; i < options.length; i += 2) {
+      String value = i + 1 < options.length ? options[i + 1].toLowerCase() : "";
+      if (options[i].equalsIgnoreCase(BY_OPTION) && value.equals("ingredient")) {
+        byIngredient = true;
+      } else if (options[i].equalsIgnoreCase(LAST_OPTION) && !value.isEmpty()) {
+        lastDays = value.endsWith("d") ? value.substring(0, value.length() - 1) : value;
+      } else {
+        throw new IllegalArgumentException(
+            "Unknown option " + options[i] + ", see 'help stats' for valid options.");
+      }
+    }
+    WasteLog wasteLog = getUser().getWasteLog();
+
+    List<WasteTotal> totals;
+    String period;
+    if (lastDays == null) {
+      totals = wasteLog.getTotalsByIngredient();
+      period = "";
+    } else {
+      int days = parseDays(lastDays);
+      int today = DayClock.today();
+      // nothing was wasted before the first day of the log, so longer periods stop there
+      int fromDay = Math.max(today - days + 1, Math.min(wasteLog.getFirstDay(), today));
+      totals = wasteLog.getTotalsByIngredient(fromDay, today);
+      period = " in the last " + days + " days";
+    }
+
+    long wastedValue = totals.stream().mapToLong(WasteTotal::value).sum();
+    getOutputHandler()
+        .printOutput(
+            "Ingredient of total value "
+                + Money.format(wastedValue)
+                + " kr has been wasted"
+                + period
+                + ".");
+    if (byIngredient && !totals.isEmpty()) {
+      getOutputHandler()
+          .printList(
+              totals.stream()
+                  .map(
+                      total ->
+                          "%s: %.2f %s, %s kr in %d lots"
+                              .formatted(
+                                  IngredientRegistry.getKey(total.ingredientId()),
+                                  total.amount(),
+                                  total.baseUnit().name().toLowerCase(),
+                                  Money.format(total.value()),
+                                  total.count()))
+                  .toList(),
+              "bullet");
+    }
+  }
+
+  /**
+   * Parses the number of days of the last option.
+   *
+   * @param days the number of days, without the trailing d
+   * @return the number of days
+   * @throws IllegalArgumentException if the number is not a positive whole number
+   */
+  private int parseDays(String days) {
+    try {
+      int parsed = Integer.parseInt(days);
+      if (parsed <= 0) {
+        throw new IllegalArgumentException("Number of days must be positive.");
+      }
+      return parsed;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Number of days must be a whole number.");
+    }
+  }
 }
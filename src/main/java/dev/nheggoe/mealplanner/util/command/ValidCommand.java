@@ -25,9 +25,14 @@ public enum ValidCommand {
   FIND(
       """
       Valid find commands are:
-       find ingredient {ingredient name} | find recipe {recipe name}"""),
+       find ingredient {ingredient name} | find recipe {recipe name}
+       find recipe --with {ingredient name}, {ingredient name}"""),
 
-  STATS(""),
+  STATS(
+      """
+      Valid stats commands are:
+       stats | stats waste | stats waste --by ingredient
+       stats waste --last {days}d | stats waste --by ingredient --last {days}d"""),
 
   GO(
       """
@@ -38,7 +43,10 @@ public enum ValidCommand {
       """
       Valid list commands are:
        list all | list storage | list recipe | list ingredient
-       list expired | list available | list value | list name"""),
+       list recipe --by-cost {cheapest | average | fefo}
+       list expired | list expiring {days} | list value | list name
+       list available | list available --pooled | list plan {days}
+       list shopping {recipe name}, {recipe name}"""),
 
   REMOVE(
       """
@@ -46,7 +54,7 @@ public enum ValidCommand {
        remove storage {storage name}
        remove ingredient {ingredient name}
        remove recipe {recipe name}
-       remove expired"""),
+       remove expired | remove expired all"""),
 
   CLEAR("This command will clear the terminal window."),
 
@@ -0,0 +1,100 @@
+package dev.nheggoe.mealplanner.util.unit;
+
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
+import java.util.Arrays;
+
+/**
+ * Registers the density of ingredients, so that amounts of the same ingredient can be converted
+ * between mass and volume. Densities are stored in an array indexed by the ingredient id from the
+ * IngredientRegistry, so looking one up on the conversion path is a single array access.
+ *
+ * <p>A few common baking and cooking ingredients are registered from the start; others can be
+ * added with {@link #setDensity(String, double)}.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public class DensityRegistry {
+  private static volatile double[] densities = new double[0];
+
+  private DensityRegistry() {}
+
+  static {
+    setDensity("Water", 1.0);
+    setDensity("Milk", 1.03);
+    setDensity("Cream", 1.01);
+    setDensity("Butter", 0.91);
+    setDensity("Oil", 0.92);
+    setDensity("Honey", 1.42);
+    setDensity("Flour", 0.53);
+    setDensity("Granulated Sugar", 0.85);
+    setDensity("Brown Sugar", 0.83);
+    setDensity("Salt", 1.22);
+    setDensity("Rice", 0.85);
+    setDensity("Vanilla Extract", 0.88);
+  }
+
+  /**
+   * Registers the density of the given ingredient, replacing any density registered before.
+   *
+   * @param ingredientName the name of the ingredient, in any spelling
+   * @param gramsPerMillilitre the density in grams per millilitre, must be positive
+   * @throws IllegalArgumentException if the name is null or the density is not positive
+   */
+  public static synchronized void setDensity(String ingredientName, double gramsPerMillilitre) {
+    if (ingredientName == null) {
+      throw new IllegalArgumentException("Ingredient name cannot be null.");
+    }
+    if (!(gramsPerMillilitre > 0) || Double.isInfinite(gramsPerMillilitre)) {
+      throw new IllegalArgumentException("Density must be a positive number.");
+    }
+    int ingredientId = IngredientRegistry.register(ingredientName);
+    double[] grownDensities = densities;
+    if (ingredientId >= grownDensities.length) {
+      int oldLength = grownDensities.length;
+      grownDensities = Arrays.copyOf(grownDensities, Math.max(64, (ingredientId + 1) * 2));
+      Arrays.fill(grownDensities, oldLength, grownDensities.length, Double.NaN);
+    }
+    grownDensities[ingredientId] = gramsPerMillilitre;
+    densities = grownDensities;
+  }
+
+  /**
+   * Forgets the density of the given ingredient, so that its amounts can no longer be converted
+   * between mass and volume.
+   *
+   * @param ingredientName the name of the ingredient, in any spelling
+   */
+  public static synchronized void removeDensity(String ingredientName) {
+    int ingredientId = IngredientRegistry.findId(ingredientName);
+    double[] currentDensities = densities;
+    if (ingredientId >= 0 && ingredientId < currentDensities.length) {
+      currentDensities[ingredientId] = Double.NaN;
+      densities = currentDensities;
+    }
+  }
+
+  /**
+   * Retrieves the density of the ingredient with the given id.
+   *
+   * @param ingredientId the id of the ingredient
+   * @return the density in grams per millilitre, or NaN if it is not known
+   */
+  public static double getDensity(int ingredientId) {
+    double[] currentDensities = densities;
+    if (ingredientId < 0 || ingredientId >= currentDensities.length) {
+      return Double.NaN;
+    }
+    return currentDensities[ingredientId];
+  }
+
+  /**
+   * Retrieves the density of the given ingredient.
+   *
+   * @param ingredientName the name of the ingredient, in any spelling
+   * @return the density in grams per millilitre, or NaN if it is not known
+   */
+  public static double getDensity(String ingredientName) {
+    return getDensity(IngredientRegistry.findId(ingredientName));
+  }
+}
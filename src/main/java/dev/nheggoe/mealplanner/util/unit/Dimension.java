@@ -0,0 +1,16 @@
+package dev.nheggoe.mealplanner.util.unit;
+
+/**
+ * Enumeration of the physical dimensions a ValidUnit can measure. Amounts can be converted between
+ * units of the same dimension, and between mass and volume if the density of the ingredient is
+ * known.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+public enum Dimension {
+  MASS,
+  VOLUME,
+  COUNT,
+  NONE
+}
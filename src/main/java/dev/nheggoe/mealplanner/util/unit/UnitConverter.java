@@ -2,37 +2,183 @@ package dev.nheggoe.mealplanner.util.unit;
 
 import dev.nheggoe.mealplanner.user.inventory.Ingredient;
 import dev.nheggoe.mealplanner.user.inventory.Measurement;
-import java.util.List;
 
 /**
  * Class for converting between different units of measurement. The UnitConverter class provides
  * methods to convert values from one unit of measurement to another, using the defined ValidUnit
- * enumeration which includes units for weight (KG, G) and volume (L, DL, ML).
+ * enumeration which includes units for weight, volume and counted pieces.
+ *
+ * <p>The factor between every pair of units is computed once, from the dimension and base factor
+ * of each ValidUnit, and stored in a table indexed by the ordinals of the units. A conversion is
+ * therefore a single table lookup and a multiplication, and allocates nothing. Mass and volume are
+ * linked through the density of the ingredient: a second table records whether a pair of units
+ * needs the density multiplied in, divided out, or not at all.
  *
  * @author Nick Heggø
  * @version 2024-12-12
  */
 public class UnitConverter {
+  private static final ValidUnit[] UNITS = ValidUnit.values();
+  private static final double[][] FACTORS = createFactors();
+  private static final int[][] DENSITY_EXPONENTS = createDensityExponents();
+  private static final ValidUnit[] BASE_UNITS = createBaseUnits();
+  private static final ValidUnit[] BASE_UNIT_BY_DIMENSION = createBaseUnitsByDimension();
 
   private UnitConverter() {}
 
   /**
-   * Retrieves the multiplier associated with a specific measurement unit.
+   * Checks whether an amount can be converted between the two given units.
+   *
+   * @param from the unit of the amount
+   * @param to the unit to convert the amount to
+   * @return true if both units measure the same dimension, false otherwise
+   */
+  public static boolean isConvertible(ValidUnit from, ValidUnit to) {
+    return isConvertible(from, to, Double.NaN);
+  }
+
+  /**
+   * Checks whether an amount of an ingredient with the given density can be converted between the
+   * two given units.
+   *
+   * @param from the unit of the amount
+   * @param to the unit to convert the amount to
+   * @param density the density of the ingredient in grams per millilitre, or NaN if unknown
+   * @return true if both units measure the same dimension, or one measures mass and the other
+   *     volume and the density is known; false otherwise
+   */
+  public static boolean isConvertible(ValidUnit from, ValidUnit to, double density) {
+    return !Double.isNaN(FACTORS[from.ordinal()][to.ordinal()])
+        && (DENSITY_EXPONENTS[from.ordinal()][to.ordinal()] == 0 || density > 0);
+  }
+
+  /**
+   * Retrieves the factor an amount in one unit is multiplied by to express it in another unit.
+   *
+   * @param from the unit of the amount
+   * @param to the unit to convert the amount to
+   * @return the conversion factor
+   * @throws IllegalArgumentException if the units do not measure the same dimension
+   */
+  public static double getFactor(ValidUnit from, ValidUnit to) {
+    return getFactor(from, to, Double.NaN);
+  }
+
+  /**
+   * Retrieves the factor an amount of an ingredient with the given density, in one unit, is
+   * multiplied by to express it in another unit.
+   *
+   * @param from the unit of the amount
+   * @param to the unit to convert the amount to
+   * @param density the density of the ingredient in grams per millilitre, or NaN if unknown
+   * @return the conversion factor
+   * @throws IllegalArgumentException if the units cannot be converted with the given density
+   */
+  public static double getFactor(ValidUnit from, ValidUnit to, double density) {
+    if (!isConvertible(from, to, density)) {
+      throw new IllegalArgumentException("Illegal operation: convert " + from + " to " + to + ".");
+    }
+    double factor = FACTORS[from.ordinal()][to.ordinal()];
+    return switch (DENSITY_EXPONENTS[from.ordinal()][to.ordinal()]) {
+      case 1 -> factor * density;
+      case -1 -> factor / density;
+      default -> factor;
+    };
+  }
+
+  /**
+   * Converts an amount from one unit to another, without rounding and without modifying any
+   * measurement.
+   *
+   * @param amount the amount to be converted
+   * @param from the unit of the amount
+   * @param to the unit to convert the amount to
+   * @return the amount expressed in the target unit
+   * @throws IllegalArgumentException if the units do not measure the same dimension
+   */
+  public static float convert(float amount, ValidUnit from, ValidUnit to) {
+    return (float) (amount * getFactor(from, to));
+  }
+
+  /**
+   * Converts an amount of an ingredient with the given density from one unit to another, without
+   * rounding and without modifying any measurement.
+   *
+   * @param amount the amount to be converted
+   * @param from the unit of the amount
+   * @param to the unit to convert the amount to
+   * @param density the density of the ingredient in grams per millilitre, or NaN if unknown
+   * @return the amount expressed in the target unit
+   * @throws IllegalArgumentException if the units cannot be converted with the given density
+   */
+  public static float convert(float amount, ValidUnit from, ValidUnit to, double density) {
+    return (float) (amount * getFactor(from, to, density));
+  }
+
+  /**
+   * Retrieves the multiplier associated with a specific measurement unit, that is the number of
+   * the unit in one standard unit (kilogram, litre or piece).
    *
    * @param unit the valid unit for which the multiplier is to be determined.
    * @return the multiplier value for the given unit, or 0.0f if the unit is unknown.
    */
   public static float getMultiplier(ValidUnit unit) {
-    float multiplier;
-    switch (unit) {
-      case KG -> multiplier = 1.0f;
-      case G -> multiplier = 1000.0f;
-      case L -> multiplier = 1.0f;
-      case DL -> multiplier = 10.0f;
-      case ML -> multiplier = 1000.0f;
-      default -> multiplier = 0.0f;
+    ValidUnit standardUnit = getStandardUnit(unit);
+    return isConvertible(standardUnit, unit) ? convert(1, standardUnit, unit) : 0.0f;
+  }
+
+  /**
+   * Retrieves the base unit of the dimension the given unit belongs to. Grams are the base unit of
+   * solids, millilitres the base unit of liquids and pieces the base unit of counted ingredients.
+   *
+   * @param unit the unit whose base unit is to be determined
+   * @return the base unit, or UNKNOWN if the unit is unknown
+   */
+  public static ValidUnit getBaseUnit(ValidUnit unit) {
+    return BASE_UNITS[unit.ordinal()];
+  }
+
+  /**
+   * Retrieves the base unit of the given dimension.
+   *
+   * @param dimension the dimension whose base unit is to be determined
+   * @return the base unit, or UNKNOWN for NONE
+   */
+  public static ValidUnit getBaseUnit(Dimension dimension) {
+    return BASE_UNIT_BY_DIMENSION[dimension.ordinal()];
+  }
+
+  /**
+   * Retrieves the standard unit of the dimension the given unit belongs to. Kilograms are the
+   * standard unit of solids, litres the standard unit of liquids and pieces the standard unit of
+   * counted ingredients.
+   *
+   * @param unit the unit whose standard unit is to be determined
+   * @return the standard unit, or UNKNOWN if the unit is unknown
+   */
+  public static ValidUnit getStandardUnit(ValidUnit unit) {
+    return switch (unit.getDimension()) {
+      case MASS -> ValidUnit.KG;
+      case VOLUME -> ValidUnit.L;
+      case COUNT -> ValidUnit.PCS;
+      default -> ValidUnit.UNKNOWN;
+    };
+  }
+
+  /**
+   * Converts an amount in the given unit to the base unit of its dimension, without modifying any
+   * measurement.
+   *
+   * @param amount the amount to be converted
+   * @param unit the unit of the amount
+   * @return the amount expressed in grams, millilitres or pieces, rounded to two decimal places
+   * @throws IllegalArgumentException if the unit is unknown
+   */
+  public static float toBaseAmount(float amount, ValidUnit unit) {
+    if (unit.getDimension() == Dimension.NONE) {
+      throw new IllegalArgumentException("Measurement Unit is unknown.");
     }
-    return multiplier;
+    return roundToTwoDecimals(convert(amount, unit, getBaseUnit(unit)));
   }
 
   /**
@@ -48,42 +194,18 @@ public class UnitConverter {
   }
 
   /**
-   * Converts the given measurement to a standard unit based on its ingredient type. If the type is
-   * "SOLID", it converts the measurement to kilograms. If the type is "LIQUID", it converts the
-   * measurement to liters.
+   * Converts the given measurement to the standard unit of its dimension: kilograms for solids,
+   * litres for liquids and pieces for counted ingredients.
    *
    * @param measurement the measurement to be converted; can be null
    */
   public static void convertToStandard(Measurement measurement) {
-    String ingredientType = "";
-    if (measurement != null) {
-      ingredientType = measurement.getIngredientType();
-    }
-    if (ingredientType.equals("SOLID")) {
-      convertToKG(measurement);
-    } else if (ingredientType.equals("LIQUID")) {
-      convertToLiter(measurement);
-    }
-  }
-
-  /**
-   * Converts the given measurement to a standard format based on its ingredient type. For the
-   * "SOLID" type, it is converted using specific factors for kilograms and grams. For the "LIQUID"
-   * type, it is converted using factors for liters, deciliters, and milliliters.
-   *
-   * @param measurement the measurement to be converted; must not be null
-   * @return a list containing the converted value and the associated unit, or null if the
-   *     ingredient type is unsupported
-   */
-  public static List<Object> getStandardData(Measurement measurement) {
-    String ingredientType = measurement.getIngredientType();
-    List<Object> data = null;
-    if (ingredientType.equals("SOLID")) {
-      data = convertSolid(measurement, ValidUnit.KG, 1, 0.001f);
-    } else if (ingredientType.equals("LIQUID")) {
-      data = convertLiquid(measurement, ValidUnit.L, 1, 0.1f, 0.001f);
+    if (measurement != null && measurement.getUnit() != null) {
+      ValidUnit standardUnit = getStandardUnit(measurement.getUnit());
+      if (standardUnit != ValidUnit.UNKNOWN) {
+        convertMeasurement(measurement, standardUnit);
+      }
     }
-    return data;
   }
 
   /**
@@ -103,8 +225,7 @@ public class UnitConverter {
    * @param measurement the measurement to be converted; must not be null
    */
   public static void convertToGrams(Measurement measurement) {
-    List<Object> data = convertSolid(measurement, ValidUnit.G, 1000, 1);
-    updateMeasurement(measurement, data);
+    convertMeasurement(measurement, ValidUnit.G);
   }
 
   /**
@@ -113,8 +234,7 @@ public class UnitConverter {
    * @param measurement the measurement to be converted; must not be null
    */
   public static void convertToKG(Measurement measurement) {
-    List<Object> data = convertSolid(measurement, ValidUnit.KG, 1, 0.001f);
-    updateMeasurement(measurement, data);
+    convertMeasurement(measurement, ValidUnit.KG);
   }
 
   /**
@@ -123,8 +243,7 @@ public class UnitConverter {
    * @param measurement the measurement to be converted; must not be null
    */
   public static void convertToLiter(Measurement measurement) {
-    List<Object> data = convertLiquid(measurement, ValidUnit.L, 1, 0.1f, 0.001f);
-    updateMeasurement(measurement, data);
+    convertMeasurement(measurement, ValidUnit.L);
   }
 
   /**
@@ -133,8 +252,7 @@ public class UnitConverter {
    * @param measurement the measurement to be converted; must not be null
    */
   public static void convertToDeciLiter(Measurement measurement) {
-    List<Object> data = convertLiquid(measurement, ValidUnit.DL, 10, 1f, 0.01f);
-    updateMeasurement(measurement, data);
+    convertMeasurement(measurement, ValidUnit.DL);
   }
 
   /**
@@ -143,12 +261,13 @@ public class UnitConverter {
    * @param measurement the measurement to be converted; must not be null
    */
   public static void convertToMilliLiter(Measurement measurement) {
-    List<Object> data = convertLiquid(measurement, ValidUnit.ML, 1000, 100f, 1f);
-    updateMeasurement(measurement, data);
+    convertMeasurement(measurement, ValidUnit.ML);
   }
 
   /**
    * Converts the given measurement to the specified target unit based on its current valid unit.
+   * Mass and volume are converted into each other using the density of the ingredient, if it is
+   * registered in the DensityRegistry.
    *
    * @param measurement the measurement to be converted; must not be null
    * @param targetUnit the unit to convert the measurement to; must not be null
@@ -157,88 +276,117 @@ public class UnitConverter {
    */
   public static void autoMergeUnit(Measurement measurement, ValidUnit targetUnit) {
     if (targetUnit != null && measurement.getUnit() != null) {
-      switch (targetUnit) {
-        case L -> convertToLiter(measurement);
-        case DL -> convertToDeciLiter(measurement);
-        case ML -> convertToMilliLiter(measurement);
-        case KG -> convertToKG(measurement);
-        case G -> convertToGrams(measurement);
-        default ->
-            throw new IllegalArgumentException(
-                "Illegal operation: cannot convert from %s to %s"
-                    .formatted(measurement.getUnit(), targetUnit));
+      convertMeasurement(measurement, targetUnit);
+    }
+  }
+
+  /**
+   * Converts the given measurement in place to the target unit, rounding the amount to two decimal
+   * places. Mass and volume are converted using the density of the ingredient.
+   *
+   * @param measurement the measurement to be converted; must not be null
+   * @param targetUnit the unit to convert the measurement to
+   * @throws IllegalArgumentException if the conversion between the current unit and the target unit
+   *     is not allowed
+   */
+  private static void convertMeasurement(Measurement measurement, ValidUnit targetUnit) {
+    float amount =
+        convert(
+            measurement.getAmount(),
+            measurement.getUnit(),
+            targetUnit,
+            DensityRegistry.getDensity(measurement.getIngredientId()));
+    measurement.setAmount(roundToTwoDecimals(amount));
+    measurement.setUnit(targetUnit);
+  }
+
+  /**
+   * Creates the table of conversion factors between base units, indexed by the ordinals of the
+   * source and target units. Pairs of units that cannot be converted, even with a density, hold
+   * NaN.
+   *
+   * @return the table of conversion factors
+   */
+  private static double[][] createFactors() {
+    double[][] factors = new double[UNITS.length][UNITS.length];
+    for (ValidUnit from : UNITS) {
+      for (ValidUnit to : UNITS) {
+        boolean convertible =
+            (from.getDimension() == to.getDimension() && from.getDimension() != Dimension.NONE)
+                || getDensityExponent(from, to) != 0;
+        factors[from.ordinal()][to.ordinal()] =
+            convertible ? from.getBaseFactor() / to.getBaseFactor() : Double.NaN;
       }
     }
+    return factors;
   }
 
   /**
-   * Updates the specified measurement with the provided data.
+   * Creates the table of density exponents, indexed by the ordinals of the source and target
+   * units.
    *
-   * @param sourceMeasurement the measurement object to be updated; must not be null
-   * @param data a list containing the new amount as the first element and the new valid unit as the
-   *     last element; must not be null
+   * @return the table of density exponents
    */
-  public static void updateMeasurement(Measurement sourceMeasurement, List<Object> data) {
-    sourceMeasurement.setAmount((Float) data.getFirst());
-    sourceMeasurement.setUnit((ValidUnit) data.getLast());
+  private static int[][] createDensityExponents() {
+    int[][] exponents = new int[UNITS.length][UNITS.length];
+    for (ValidUnit from : UNITS) {
+      for (ValidUnit to : UNITS) {
+        exponents[from.ordinal()][to.ordinal()] = getDensityExponent(from, to);
+      }
+    }
+    return exponents;
   }
 
   /**
-   * Converts a given solid measurement to the specified target unit.
+   * Determines how the density enters the conversion between two units: grams are millilitres
+   * multiplied by the density, and millilitres are grams divided by it.
    *
-   * @param measurement the measurement to be converted; must not be null
-   * @param targetUnit the unit to convert the measurement to; must not be null
-   * @param factorFromKG conversion factor to apply when the current unit is kilograms
-   * @param factorFromG conversion factor to apply when the current unit is grams
-   * @return a list containing the converted amount and target unit
-   * @throws IllegalArgumentException if the conversion between the current unit and the target unit
-   *     is not allowed
+   * @param from the unit of the amount
+   * @param to the unit to convert the amount to
+   * @return 1 from volume to mass, -1 from mass to volume, 0 otherwise
    */
-  private static List<Object> convertSolid(
-      Measurement measurement, ValidUnit targetUnit, float factorFromKG, float factorFromG) {
-    float amount = measurement.getAmount();
-    ValidUnit currentUnit = measurement.getUnit();
-    switch (currentUnit) {
-      case KG -> amount *= factorFromKG;
-      case G -> amount *= factorFromG;
-      default ->
-          throw new IllegalArgumentException(
-              "Illegal operation: convert " + currentUnit + " to " + targetUnit + ".");
+  private static int getDensityExponent(ValidUnit from, ValidUnit to) {
+    if (from.getDimension() == Dimension.VOLUME && to.getDimension() == Dimension.MASS) {
+      return 1;
     }
-    amount = roundToTwoDecimals(amount);
-    return List.of(amount, targetUnit);
+    if (from.getDimension() == Dimension.MASS && to.getDimension() == Dimension.VOLUME) {
+      return -1;
+    }
+    return 0;
   }
 
   /**
-   * Converts a given liquid measurement to the specified target unit.
+   * Creates the table of base units, indexed by the ordinal of the dimension.
    *
-   * @param sourceMeasurement the measurement to be converted; must not be null
-   * @param targetUnit the unit to convert the measurement to; must not be null
-   * @param factorFromL conversion factor to apply when the current unit is liters
-   * @param factorFromDL conversion factor to apply when the current unit is deciliters
-   * @param factorFromML conversion factor to apply when the current unit is milliliters
-   * @return a list containing the converted amount and target unit
-   * @throws IllegalArgumentException if the conversion between the current unit and the target unit
-   *     is not allowed
+   * @return the table of base units
    */
-  private static List<Object> convertLiquid(
-      Measurement sourceMeasurement,
-      ValidUnit targetUnit,
-      float factorFromL,
-      float factorFromDL,
-      float factorFromML) {
-    float amount = sourceMeasurement.getAmount();
-    ValidUnit currentUnit = sourceMeasurement.getUnit();
-    switch (currentUnit) {
-      case L -> amount *= factorFromL;
-      case DL -> amount *= factorFromDL;
-      case ML -> amount *= factorFromML;
-      default ->
-          throw new IllegalArgumentException(
-              "Illegal operation: convert " + currentUnit + " to " + targetUnit + ".");
+  private static ValidUnit[] createBaseUnitsByDimension() {
+    ValidUnit[] baseUnits = new ValidUnit[Dimension.values().length];
+    for (ValidUnit unit : UNITS) {
+      baseUnits[unit.getDimension().ordinal()] = BASE_UNITS[unit.ordinal()];
+    }
+    return baseUnits;
+  }
+
+  /**
+   * Creates the table of base units, indexed by the ordinal of the unit. The base unit of a
+   * dimension is the unit with a base factor of 1.
+   *
+   * @return the table of base units
+   */
+  private static ValidUnit[] createBaseUnits() {
+    ValidUnit[] baseUnits = new ValidUnit[UNITS.length];
+    for (ValidUnit unit : UNITS) {
+      baseUnits[unit.ordinal()] = ValidUnit.UNKNOWN;
+      for (ValidUnit candidate : UNITS) {
+        if (candidate.getDimension() == unit.getDimension()
+            && unit.getDimension() != Dimension.NONE
+            && candidate.getBaseFactor() == 1) {
+          baseUnits[unit.ordinal()] = candidate;
+        }
+      }
     }
-    amount = roundToTwoDecimals(amount);
-    return List.of(amount, targetUnit);
+    return baseUnits;
   }
 
   /**
@@ -1,19 +1,31 @@
 package dev.nheggoe.mealplanner.util.unit;
 
 import dev.nheggoe.mealplanner.util.Utility;
+import dev.nheggoe.mealplanner.util.input.UnitInput;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Registers and stores valid units for look-up and retrieval.
+ * Registers and stores valid units for look-up and retrieval. Besides the name of every ValidUnit,
+ * common aliases such as "grams", "kilo" or "litres" are accepted, in any letter case.
+ *
+ * <p>When the class is loaded, all aliases are compiled into a perfect hash table: a seed is
+ * searched for so that every alias hashes to its own slot. Looking up a unit is then a single hash
+ * of the input characters, one slot and one comparison, without creating a lowercase copy of the
+ * input.
  *
  * @author Nick Heggø
- * @version 2024-12-04
+ * @version 2024-12-12
  */
 public class UnitRegistry {
-  private static final Map<String, ValidUnit> UNIT_MAP = new HashMap<>();
+  private static final int FNV_PRIME = 0x01000193;
+  private static final int MAX_SEEDS_PER_SIZE = 1 << 12;
+
+  private static String[] aliasTable;
+  private static ValidUnit[] unitTable;
+  private static int mask;
+  private static int seed;
 
   private UnitRegistry() {}
 
@@ -28,7 +40,79 @@ public class UnitRegistry {
    * @return the matching ValidUnit if found; otherwise, ValidUnit.UNKNOWN.
    */
   public static ValidUnit findUnit(String input) {
-    return UNIT_MAP.getOrDefault(Utility.createKey(input), ValidUnit.UNKNOWN);
+    if (input == null) {
+      return ValidUnit.UNKNOWN;
+    }
+    return findUnit(input, 0, input.length());
+  }
+
+  /**
+   * Finds the ValidUnit named by a region of the given characters. Whitespace around the name is
+   * ignored.
+   *
+   * @param input the characters containing the name of the unit
+   * @param start the index of the first character of the region
+   * @param end the index after the last character of the region
+   * @return the matching ValidUnit if found; otherwise, ValidUnit.UNKNOWN.
+   */
+  public static ValidUnit findUnit(CharSequence input, int start, int end) {
+    while (start < end && Character.isWhitespace(input.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(input.charAt(end - 1))) {
+      end--;
+    }
+    int slot = hash(input, start, end, seed) & mask;
+    String alias = aliasTable[slot];
+    if (alias == null || alias.length() != end - start) {
+      return ValidUnit.UNKNOWN;
+    }
+    for (int i = 0; i < alias.length(); i++) {
+      if (alias.charAt(i) != Character.toLowerCase(input.charAt(start + i))) {
+        return ValidUnit.UNKNOWN;
+      }
+    }
+    return unitTable[slot];
+  }
+
+  /**
+   * Parses a quantity consisting of an amount followed by a unit, such as "500 g", "1.5 kilo" or
+   * "500g". Anything after the first word of the unit is ignored.
+   *
+   * @param input the quantity to be parsed
+   * @return the parsed amount and unit; the unit is UNKNOWN if it is not recognised
+   * @throws IllegalArgumentException if the input is null, the amount or the unit is missing, or
+   *     the amount is not a number
+   */
+  public static UnitInput parseQuantity(String input) {
+    if (input == null) {
+      throw new IllegalArgumentException("Missing unit inputs.");
+    }
+    int length = input.length();
+    int amountStart = 0;
+    while (amountStart < length && Character.isWhitespace(input.charAt(amountStart))) {
+      amountStart++;
+    }
+    int amountEnd = amountStart;
+    while (amountEnd < length && isAmountCharacter(input.charAt(amountEnd))) {
+      amountEnd++;
+    }
+    int unitStart = amountEnd;
+    while (unitStart < length && Character.isWhitespace(input.charAt(unitStart))) {
+      unitStart++;
+    }
+    int unitEnd = unitStart;
+    while (unitEnd < length && !Character.isWhitespace(input.charAt(unitEnd))) {
+      unitEnd++;
+    }
+    if (amountEnd == amountStart || unitEnd == unitStart) {
+      throw new IllegalArgumentException("Missing unit inputs.");
+    }
+    String amount = input.substring(amountStart, amountEnd);
+    if (!isNumber(amount)) {
+      throw new IllegalArgumentException("Invalid amount " + amount + ", please enter a number.");
+    }
+    return new UnitInput(Float.parseFloat(amount), findUnit(input, unitStart, unitEnd));
   }
 
   /**
@@ -42,22 +126,138 @@ public class UnitRegistry {
   }
 
   /**
-   * Initializes the UNIT_MAP by registering valid measurement units. Filters out the UNKNOWN unit
-   * and registers the rest into the map using the UnitRegistry::addUnitToMap method.
+   * Initializes the lookup table by compiling the names and aliases of all valid units, except
+   * UNKNOWN, into a perfect hash table. The table starts at twice the number of aliases and is
+   * doubled until a seed is found that gives every alias its own slot.
    */
   private static void initializeValidUnits() {
+    List<String> aliases = new ArrayList<>();
+    List<ValidUnit> units = new ArrayList<>();
     Arrays.stream(ValidUnit.values())
         .filter(unit -> unit != ValidUnit.UNKNOWN)
-        .forEach(UnitRegistry::addUnitToMap);
+        .forEach(
+            unit -> {
+              aliases.add(Utility.createKey(unit.name()));
+              units.add(unit);
+              for (String alias : getAliases(unit)) {
+                aliases.add(alias);
+                units.add(unit);
+              }
+            });
+
+    int size = Integer.highestOneBit(aliases.size() * 2 - 1) << 1;
+    while (!tryCompile(aliases, units, size)) {
+      size <<= 1;
+    }
+  }
+
+  /**
+   * Searches for a seed that places every alias in its own slot of a table of the given size, and
+   * installs the table if one is found.
+   *
+   * @param aliases the aliases to be placed, in lowercase
+   * @param units the unit of each alias
+   * @param size the size of the table, a power of two
+   * @return true if the table was installed, false if no seed was found for this size
+   */
+  private static boolean tryCompile(List<String> aliases, List<ValidUnit> units, int size) {
+    for (int candidateSeed = 1; candidateSeed <= MAX_SEEDS_PER_SIZE; candidateSeed++) {
+      String[] candidateAliases = new String[size];
+      ValidUnit[] candidateUnits = new ValidUnit[size];
+      boolean collisionFree = true;
+      for (int i = 0; i < aliases.size() && collisionFree; i++) {
+        String alias = aliases.get(i);
+        int slot = hash(alias, 0, alias.length(), candidateSeed) & (size - 1);
+        if (candidateAliases[slot] == null) {
+          candidateAliases[slot] = alias;
+          candidateUnits[slot] = units.get(i);
+        } else {
+          collisionFree = candidateAliases[slot].equals(alias);
+        }
+      }
+      if (collisionFree) {
+        aliasTable = candidateAliases;
+        unitTable = candidateUnits;
+        mask = size - 1;
+        seed = candidateSeed;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Retrieves the aliases of the given unit, besides its name.
+   *
+   * @param unit the unit whose aliases are to be retrieved
+   * @return the aliases of the unit, in lowercase
+   */
+  private static String[] getAliases(ValidUnit unit) {
+    return switch (unit) {
+      case KG -> new String[] {"kgs", "kilo", "kilos", "kilogram", "kilograms"};
+      case G -> new String[] {"gr", "grs", "gram", "grams", "gramme", "grammes"};
+      case LB -> new String[] {"lbs", "pound", "pounds"};
+      case OZ -> new String[] {"ounce", "ounces"};
+      case L -> new String[] {"ltr", "liter", "liters", "litre", "litres"};
+      case DL -> new String[] {"deciliter", "deciliters", "decilitre", "decilitres"};
+      case ML -> new String[] {"milliliter", "milliliters", "millilitre", "millilitres"};
+      case CUP -> new String[] {"cups"};
+      case TBSP -> new String[] {"tbs", "tablespoon", "tablespoons"};
+      case TSP -> new String[] {"teaspoon", "teaspoons"};
+      case PCS -> new String[] {"pc", "piece", "pieces"};
+      default -> new String[0];
+    };
+  }
+
+  /**
+   * Hashes a region of the given characters, ignoring letter case, using FNV-1a started from the
+   * given seed.
+   *
+   * @param input the characters to be hashed
+   * @param start the index of the first character of the region
+   * @param end the index after the last character of the region
+   * @param hashSeed the seed of the hash
+   * @return the hash of the region
+   */
+  private static int hash(CharSequence input, int start, int end, int hashSeed) {
+    int hash = hashSeed * FNV_PRIME;
+    for (int i = start; i < end; i++) {
+      hash = (hash ^ Character.toLowerCase(input.charAt(i))) * FNV_PRIME;
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Checks whether the given character can be part of the amount of a quantity.
+   *
+   * @param c the character to be checked
+   * @return true for digits, the decimal point and signs; false otherwise
+   */
+  private static boolean isAmountCharacter(char c) {
+    return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+';
   }
 
   /**
-   * Adds a ValidUnit to the UNIT_MAP using a generated key.
+   * Checks whether the given amount characters form a decimal number: an optional sign, followed
+   * by digits with at most one decimal point, and at least one digit.
    *
-   * @param unit the ValidUnit to be added to the map.
+   * @param amount the characters of the amount
+   * @return true if the amount can be parsed as a number, false otherwise
    */
-  private static void addUnitToMap(ValidUnit unit) {
-    String key = Utility.createKey(unit.name());
-    UNIT_MAP.put(key, unit);
+  private static boolean isNumber(String amount) {
+    boolean hasDigit = false;
+    boolean hasPoint = false;
+    int start = amount.charAt(0) == '-' || amount.charAt(0) == '+' ? 1 : 0;
+    for (int i = start; i < amount.length(); i++) {
+      char c = amount.charAt(i);
+      if (c == '.' && !hasPoint) {
+        hasPoint = true;
+      } else if (c >= '0' && c <= '9') {
+        hasDigit = true;
+      } else {
+        return false;
+      }
+    }
+    return hasDigit;
   }
 }
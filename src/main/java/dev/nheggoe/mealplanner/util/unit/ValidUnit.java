@@ -3,17 +3,57 @@ package dev.nheggoe.mealplanner.util.unit;
 /**
  * Enumeration representing valid measurement units. This enumeration defines a set of units that
  * can be used to quantify ingredients, substances, or other measurable entities. It includes units
- * for weight (KG, G), volume (L, DL, ML), and a placeholder for unknown or unrecognized units
- * (UNKNOWN).
+ * for weight (KG, G, LB, OZ), volume (L, DL, ML, CUP, TBSP, TSP), counted pieces (PCS), and a
+ * placeholder for unknown or unrecognized units (UNKNOWN). Every unit knows its dimension and how
+ * many base units (grams, millilitres or pieces) it holds. Culinary and imperial units use their US
+ * customary sizes.
  *
  * @author Nick Heggø
- * @version 2024-11-08
+ * @version 2024-12-12
  */
 public enum ValidUnit {
-  KG,
-  G,
-  L,
-  DL,
-  ML,
-  UNKNOWN
+  KG(Dimension.MASS, 1000),
+  G(Dimension.MASS, 1),
+  L(Dimension.VOLUME, 1000),
+  DL(Dimension.VOLUME, 100),
+  ML(Dimension.VOLUME, 1),
+  LB(Dimension.MASS, 453.59237),
+  OZ(Dimension.MASS, 28.349523125),
+  CUP(Dimension.VOLUME, 236.5882365),
+  TBSP(Dimension.VOLUME, 14.78676478125),
+  TSP(Dimension.VOLUME, 4.92892159375),
+  PCS(Dimension.COUNT, 1),
+  UNKNOWN(Dimension.NONE, 0);
+
+  private final Dimension dimension;
+  private final double baseFactor;
+
+  /**
+   * Constructs a ValidUnit.
+   *
+   * @param dimension the dimension measured by the unit
+   * @param baseFactor the number of base units in one of this unit
+   */
+  ValidUnit(Dimension dimension, double baseFactor) {
+    this.dimension = dimension;
+    this.baseFactor = baseFactor;
+  }
+
+  /**
+   * Retrieves the dimension measured by the unit.
+   *
+   * @return the dimension, NONE for UNKNOWN
+   */
+  public Dimension getDimension() {
+    return dimension;
+  }
+
+  /**
+   * Retrieves the number of base units of the dimension held by one of this unit.
+   *
+   * @return the factor to the base unit, 0 for UNKNOWN
+   */
+  public double getBaseFactor() {
+    return baseFactor;
+  }
 }
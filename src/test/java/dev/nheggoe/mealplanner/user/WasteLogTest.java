@@ -0,0 +1,89 @@
+package dev.nheggoe.mealplanner.user;
+
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.L;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.ML;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.WasteLog.WasteTotal;
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the WasteLog class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class WasteLogTest {
+
+  @Test
+  void testRecordIngredients() {
+    WasteLog wasteLog = new WasteLog();
+    Ingredient milk = new Ingredient("Milk", 1.5f, L, 30, 1);
+    Ingredient flour = new Ingredient("Flour", 2, KG, 40, 1);
+    int day = (int) LocalDate.of(2024, 12, 12).toEpochDay();
+    wasteLog.record(milk, day);
+    wasteLog.record(flour, day + 1);
+    wasteLog.record(new Ingredient("Milk", 500, ML, 10, 1), day + 1);
+
+    assertEquals(3, wasteLog.size());
+    assertEquals(ML, wasteLog.getBaseUnit(0));
+    assertEquals(1500, wasteLog.getAmount(0), 1e-3);
+    assertEquals(day + 1, wasteLog.getDay(2));
+    assertEquals(8000, wasteLog.getTotalValue());
+
+    List<WasteTotal> totals = wasteLog.getTotalsByIngredient();
+    assertEquals(
+        new WasteTotal(milk.getIngredientId(), ML, 2000, 4000, 2), roundAmount(totals.get(0)));
+    assertEquals(
+        new WasteTotal(flour.getIngredientId(), G, 2000, 4000, 1), roundAmount(totals.get(1)));
+    assertEquals(3000, wasteLog.getTotalValue(day, day));
+    assertEquals(0, wasteLog.getTotalValue(day + 2, day + 90));
+    assertEquals(8000, wasteLog.getTotalValue(Integer.MIN_VALUE + 1, day + 90));
+    assertEquals(day, wasteLog.getFirstDay());
+    assertThrows(IndexOutOfBoundsException.class, () -> wasteLog.getDay(3));
+    assertThrows(IllegalArgumentException.class, () -> wasteLog.record(0, KG, 1, 100, day));
+  }
+
+  @Test
+  void testRollupsMatchEvents() {
+    WasteLog wasteLog = new WasteLog();
+    Random random = new Random(42);
+    int firstDay = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+    for (int i = 0; i < 5000; i++) {
+      int day = firstDay + random.nextInt(400);
+      wasteLog.record(random.nextInt(5), G, 10, random.nextInt(1000), day);
+    }
+    for (int query = 0; query < 200; query++) {
+      int from = firstDay - 10 + random.nextInt(420);
+      int to = from + random.nextInt(120);
+      long expected = 0;
+      for (int i = 0; i < wasteLog.size(); i++) {
+        if (wasteLog.getDay(i) >= from && wasteLog.getDay(i) <= to) {
+          expected += wasteLog.getValue(i);
+        }
+      }
+      assertEquals(expected, wasteLog.getTotalValue(from, to), from + ".." + to);
+    }
+  }
+
+  /**
+   * Rounds the amount of a waste total to whole units, so that it can be compared exactly.
+   *
+   * @param total the waste total
+   * @return the waste total with its amount rounded
+   */
+  private WasteTotal roundAmount(WasteTotal total) {
+    return new WasteTotal(
+        total.ingredientId(),
+        total.baseUnit(),
+        Math.round(total.amount()),
+        total.value(),
+        total.count());
+  }
+}
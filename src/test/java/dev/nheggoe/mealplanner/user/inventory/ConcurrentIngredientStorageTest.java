@@ -0,0 +1,169 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Multi-threaded stress tests for the ConcurrentIngredientStorage class, checking that merging and
+ * removing lots from many threads leaves the storage and its listeners consistent.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class ConcurrentIngredientStorageTest {
+  private static final int THREADS = 8;
+  private static final int ROUNDS = 2000;
+  private static final String[] NAMES = {"Flour", "Sugar", "Rice", "Oats", "Pasta"};
+  private static final int EXPIRY_DAYS = 7;
+
+  private ConcurrentIngredientStorage storage;
+  private ExpiryIndex expiryIndex;
+  private IngredientIndex ingredientIndex;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void beforeEach() {
+    storage = new ConcurrentIngredientStorage("Pantry", 4);
+    expiryIndex = new ExpiryIndex();
+    ingredientIndex = new IngredientIndex();
+    storage.addListener(expiryIndex);
+    storage.addListener(ingredientIndex);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterEach
+  void afterEach() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void testConcurrentMergeKeepsTotals() throws Exception {
+    runConcurrently(
+        thread -> {
+          for (int i = 0; i < ROUNDS; i++) {
+            String name = NAMES[(thread + i) % NAMES.length];
+            storage.addIngredient(new Ingredient(name, 1, KG, 1, i % EXPIRY_DAYS + 1));
+          }
+        });
+
+    int lotsPerName = THREADS * ROUNDS / NAMES.length;
+    for (String name : NAMES) {
+      assertEquals(EXPIRY_DAYS, storage.getIngredientList(name).size());
+      assertEquals(lotsPerName, storage.getTotalAmount(name, KG), 1e-6);
+      float lotSum = 0;
+      for (Ingredient lot : storage.getIngredientList(name)) {
+        lotSum += lot.getAmount();
+      }
+      assertEquals(lotsPerName, lotSum, 1e-3);
+      assertEquals(1, ingredientIndex.findStorages(name).size());
+      assertEquals(EXPIRY_DAYS, ingredientIndex.findLots(name).get(storage).size());
+    }
+    assertEquals(THREADS * ROUNDS * 100L, storage.getAllValue());
+    assertEquals(NAMES.length * EXPIRY_DAYS, expiryIndex.size());
+  }
+
+  @Test
+  void testConcurrentRemoveRemovesEachLotOnce() throws Exception {
+    List<Ingredient> lots = new ArrayList<>();
+    for (String name : NAMES) {
+      for (int day = 1; day <= 40; day++) {
+        Ingredient lot = new Ingredient(name, day, KG, 1, day);
+        lots.add(lot);
+        storage.addIngredient(lot);
+      }
+    }
+    AtomicInteger removed = new AtomicInteger();
+    runConcurrently(
+        thread -> {
+          for (Ingredient lot : lots) {
+            if (storage.removeIngredient(lot)) {
+              removed.incrementAndGet();
+            }
+          }
+        });
+
+    assertEquals(lots.size(), removed.get());
+    assertTrue(storage.getAllIngredients().isEmpty());
+    assertEquals(0, storage.getAllValue());
+    assertEquals(0, expiryIndex.size());
+    for (String name : NAMES) {
+      assertFalse(storage.isIngredientPresent(name));
+      assertEquals(0, storage.getTotalAmount(name, KG));
+      assertTrue(ingredientIndex.findStorages(name).isEmpty());
+    }
+  }
+
+  @Test
+  void testConcurrentAddAndRemove() throws Exception {
+    runConcurrently(
+        thread -> {
+          String name = NAMES[thread % NAMES.length];
+          for (int i = 0; i < ROUNDS; i++) {
+            Ingredient lot = new Ingredient(name, 1, KG, 1, thread * ROUNDS + i + 1);
+            storage.addIngredient(lot);
+            storage.findIngredient(name, lot.getExpiryDay());
+            storage.getAllIngredients();
+            assertTrue(storage.removeIngredient(lot));
+          }
+        });
+
+    assertTrue(storage.getAllIngredients().isEmpty());
+    assertEquals(0, storage.getAllValue());
+    assertEquals(0, expiryIndex.size());
+    for (String name : NAMES) {
+      assertTrue(ingredientIndex.findStorages(name).isEmpty());
+    }
+  }
+
+  @Test
+  void testInvalidStripes() {
+    assertThrows(IllegalArgumentException.class, () -> new ConcurrentIngredientStorage("a", 0));
+  }
+
+  /**
+   * Runs the given task on every thread of the pool at the same time, and waits for all of them.
+   *
+   * @param task the task to run, receiving the number of the thread
+   * @throws Exception if any of the tasks failed
+   */
+  private void runConcurrently(ThreadTask task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < THREADS; thread++) {
+      int threadNumber = thread;
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                task.run(threadNumber);
+                return null;
+              }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+  }
+
+  /** A task run by one of the threads of a stress test. */
+  private interface ThreadTask {
+    /**
+     * Runs the task.
+     *
+     * @param thread the number of the thread running the task
+     */
+    void run(int thread);
+  }
+}
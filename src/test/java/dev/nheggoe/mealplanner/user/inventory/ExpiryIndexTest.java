@@ -0,0 +1,73 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.util.DayClock;
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ExpiryIndex class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class ExpiryIndexTest {
+  private ExpiryIndex expiryIndex;
+  private IngredientStorage fridge;
+  private IngredientStorage freezer;
+
+  @BeforeEach
+  void beforeEach() {
+    expiryIndex = new ExpiryIndex();
+    fridge = new IngredientStorage("Fridge");
+    freezer = new IngredientStorage("Freezer");
+    fridge.addListener(expiryIndex);
+    freezer.addListener(expiryIndex);
+  }
+
+  @Test
+  void testFindExpiringBetween() {
+    fridge.addIngredient(new Ingredient("Milk", 1, ValidUnit.L, 20, 2));
+    fridge.addIngredient(new Ingredient("Cheese", 500, ValidUnit.G, 80, 10));
+    freezer.addIngredient(new Ingredient("Peas", 1, ValidUnit.KG, 30, 1));
+    int today = DayClock.today();
+
+    Map<IngredientStorage, List<Ingredient>> result =
+        expiryIndex.findExpiringBetween(today, today + 3);
+    assertEquals(2, result.size());
+    assertEquals("Milk", result.get(fridge).getFirst().getName());
+    assertEquals("Peas", result.get(freezer).getFirst().getName());
+    assertThrows(
+        IllegalArgumentException.class, () -> expiryIndex.findExpiringBetween(today, today - 1));
+  }
+
+  @Test
+  void testFindExpiringBefore() {
+    fridge.addIngredient(new Ingredient("expiredDemo"));
+    freezer.addIngredient(new Ingredient("Peas", 1, ValidUnit.KG, 30, 1));
+    Map<IngredientStorage, List<Ingredient>> expired =
+        expiryIndex.findExpiringBefore(DayClock.today());
+    assertEquals(1, expired.size());
+    assertTrue(expired.containsKey(fridge));
+    assertEquals(expired.get(fridge), expiryIndex.findExpiringBefore(fridge, DayClock.today()));
+    assertTrue(expiryIndex.findExpiringBefore(freezer, DayClock.today()).isEmpty());
+  }
+
+  @Test
+  void testIndexFollowsRemoval() {
+    Ingredient milk = new Ingredient("Milk", 1, ValidUnit.L, 20, 2);
+    fridge.addIngredient(milk);
+    fridge.addIngredient(new Ingredient("Milk", 1, ValidUnit.L, 20, 2));
+    assertEquals(1, expiryIndex.size());
+    fridge.removeIngredient(milk);
+    assertEquals(0, expiryIndex.size());
+
+    fridge.addIngredient(new Ingredient("expiredDemo"));
+    fridge.removeExpired();
+    assertEquals(0, expiryIndex.size());
+  }
+}
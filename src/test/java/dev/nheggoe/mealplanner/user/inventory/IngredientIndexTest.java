@@ -0,0 +1,60 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the IngredientIndex class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class IngredientIndexTest {
+  private IngredientIndex ingredientIndex;
+  private IngredientStorage fridge;
+  private IngredientStorage pantry;
+
+  @BeforeEach
+  void beforeEach() {
+    ingredientIndex = new IngredientIndex();
+    fridge = new IngredientStorage("Fridge");
+    pantry = new IngredientStorage("Pantry");
+    fridge.addListener(ingredientIndex);
+    pantry.addListener(ingredientIndex);
+  }
+
+  @Test
+  void testFindLots() {
+    Ingredient lateButter = new Ingredient("Butter", 250, ValidUnit.G, 30, 9);
+    Ingredient earlyButter = new Ingredient("Butter", 250, ValidUnit.G, 30, 2);
+    fridge.addIngredient(lateButter);
+    fridge.addIngredient(earlyButter);
+    pantry.addIngredients(List.of(new Ingredient("Butter", 1, ValidUnit.KG, 90, 30)));
+
+    Map<IngredientStorage, List<Ingredient>> lots = ingredientIndex.findLots("butter");
+    assertEquals(List.of(earlyButter, lateButter), lots.get(fridge));
+    assertEquals(1, lots.get(pantry).size());
+    assertEquals(Set.of(fridge, pantry), ingredientIndex.findStorages("Butter"));
+    assertTrue(ingredientIndex.findLots("Sugar").isEmpty());
+  }
+
+  @Test
+  void testIndexFollowsRemoval() {
+    Ingredient milk = new Ingredient("Milk", 1, ValidUnit.L, 20, 2);
+    fridge.addIngredient(milk);
+    Map<IngredientStorage, List<Ingredient>> before = ingredientIndex.findLots("Milk");
+    fridge.removeIngredient(milk);
+    assertEquals(List.of(milk), before.get(fridge));
+    assertTrue(ingredientIndex.findLots("Milk").isEmpty());
+
+    pantry.addIngredient(new Ingredient("Flour", 1, ValidUnit.KG, 20, 90));
+    ingredientIndex.removeStorage(pantry);
+    assertTrue(ingredientIndex.findStorages("Flour").isEmpty());
+  }
+}
@@ -1,12 +1,20 @@
 package dev.nheggoe.mealplanner.user.inventory;
 
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.L;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.PCS;
 import static org.junit.jupiter.api.Assertions.*;
 
 import dev.nheggoe.mealplanner.util.unit.ValidUnit;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -74,4 +82,165 @@ class IngredientStorageTest {
     Ingredient ingredient = ingredientStorage.findIngredient(name, expiryDate);
     assertEquals(2.3f, ingredient.getAmount());
   }
+
+  @Test
+  void testFindLotByExpiryDay() {
+    ingredientStorage.addIngredient(new Ingredient("Milk", 1, L, 20, 4));
+    ingredientStorage.addIngredient(new Ingredient("milk ", 1, L, 20, 4));
+    ingredientStorage.addIngredient(new Ingredient("Milk", 1, L, 20, 6));
+    assertEquals(2, ingredientStorage.getIngredientList("milk").size());
+    assertEquals(3, ingredientStorage.getTotalAmount("Milk", L), 1e-6);
+
+    Ingredient lot = ingredientStorage.getIngredientList("milk").getFirst();
+    assertSame(lot, ingredientStorage.findIngredient("MILK", lot.getExpiryDay()));
+    ingredientStorage.removeIngredient(lot);
+    assertNull(ingredientStorage.findIngredient("milk", lot.getExpiryDay()));
+    assertNull(ingredientStorage.findIngredient("bread", lot.getExpiryDay()));
+  }
+
+  @Test
+  void testRemoveMergedLotById() {
+    Ingredient flour = new Ingredient("Flour", 900, G, 20, 4);
+    ingredientStorage.addIngredient(flour);
+    ingredientStorage.addIngredient(new Ingredient("Flour", 300, G, 20, 4));
+    assertEquals(KG, flour.getUnit());
+    assertSame(flour, ingredientStorage.findIngredientById(flour.getLotId()));
+
+    assertTrue(ingredientStorage.removeIngredientById(flour.getLotId()));
+    assertFalse(ingredientStorage.isIngredientPresent("Flour"));
+    assertNull(ingredientStorage.findIngredientById(flour.getLotId()));
+    assertEquals(0, ingredientStorage.getAllValue());
+    assertFalse(ingredientStorage.removeIngredient(flour));
+    assertFalse(ingredientStorage.removeIngredient(new Ingredient("Flour", 900, G, 20, 4)));
+  }
+
+  @Test
+  void testRemoveIngredientsReportsRemovedLots() {
+    Ingredient milk = new Ingredient("Milk", 1, L, 20, 4);
+    Ingredient butter = new Ingredient("Butter", 250, G, 30, 4);
+    ingredientStorage.addIngredient(milk);
+    ingredientStorage.addIngredient(butter);
+    assertTrue(ingredientStorage.removeIngredient(milk));
+    assertEquals(List.of(butter), ingredientStorage.removeIngredients(List.of(milk, butter)));
+    assertTrue(ingredientStorage.removeIngredients(List.of(butter)).isEmpty());
+  }
+
+  @Test
+  void testUnconvertibleMergeLeavesTotalsIntact() {
+    Ingredient eggs = new Ingredient("Egg", 1, KG, 10, 4);
+    ingredientStorage.addIngredient(eggs);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ingredientStorage.addIngredient(new Ingredient("Egg", 2, PCS, 10, 4)));
+    assertEquals(1000, ingredientStorage.getAllValue());
+    assertEquals(1, ingredientStorage.getTotalAmount("Egg", KG), 1e-6);
+    assertEquals(1000, eggs.getValue());
+    assertSame(eggs, ingredientStorage.findIngredientById(eggs.getLotId()));
+  }
+
+  @Test
+  void testAddIngredients() {
+    ExpiryIndex expiryIndex = new ExpiryIndex();
+    ingredientStorage.addListener(expiryIndex);
+    ingredientStorage.addIngredient(new Ingredient("Flour", 1, KG, 10, 4));
+    ingredientStorage.addIngredients(
+        List.of(
+            new Ingredient("flour", 500, G, 5, 4),
+            new Ingredient("Flour", 2, KG, 20, 8),
+            new Ingredient("Flour ", 1, KG, 10, 8),
+            new Ingredient("Milk", 1, L, 20, 4)));
+
+    assertEquals(2, ingredientStorage.getIngredientList("flour").size());
+    assertEquals(4.5, ingredientStorage.getTotalAmount("Flour", KG), 1e-6);
+    assertEquals(1.5f, ingredientStorage.getIngredientList("flour").getFirst().getAmount());
+    assertEquals(6500, ingredientStorage.getAllValue());
+    assertEquals(3, expiryIndex.size());
+    List<Ingredient> withNull = Arrays.asList(new Ingredient("Egg", 1, KG, 1, 4), null);
+    assertThrows(IllegalArgumentException.class, () -> ingredientStorage.addIngredients(withNull));
+    assertFalse(ingredientStorage.isIngredientPresent("Egg"));
+  }
+
+  @Test
+  void testFailingBatchLeavesStorageUnchanged() {
+    ExpiryIndex expiryIndex = new ExpiryIndex();
+    IngredientIndex ingredientIndex = new IngredientIndex();
+    ingredientStorage.addListener(expiryIndex);
+    ingredientStorage.addListener(ingredientIndex);
+    ingredientStorage.addIngredient(new Ingredient("Egg", 1, KG, 10, 4));
+    List<Ingredient> eggs =
+        List.of(new Ingredient("Egg", 1, KG, 10, 9), new Ingredient("Egg", 3, PCS, 10, 4));
+    assertThrows(IllegalArgumentException.class, () -> ingredientStorage.addIngredients(eggs));
+    List<Ingredient> milkAndEggs =
+        List.of(new Ingredient("Milk", 1, L, 20, 4), new Ingredient("Egg", 3, PCS, 10, 4));
+    assertThrows(
+        IllegalArgumentException.class, () -> ingredientStorage.addIngredients(milkAndEggs));
+
+    assertEquals(1, ingredientStorage.getIngredientList("Egg").size());
+    assertFalse(ingredientStorage.isIngredientPresent("Milk"));
+    assertEquals(1, expiryIndex.size());
+    assertEquals(1, ingredientIndex.findLots("Egg").get(ingredientStorage).size());
+    assertEquals(1, ingredientStorage.getTotalAmount("Egg", KG), 1e-6);
+    assertEquals(1000, ingredientStorage.getAllValue());
+  }
+
+  @Test
+  void testAddIngredientsReportsMergedLots() {
+    Ingredient lot = new Ingredient("Flour", 1, KG, 10, 4);
+    ingredientStorage.addIngredient(lot);
+    Ingredient incoming = new Ingredient("Flour", 500, G, 5, 4);
+    Map<Ingredient, List<Ingredient>> reported = new HashMap<>();
+    ingredientStorage.addListener(
+        new StorageListener() {
+          @Override
+          public void ingredientAdded(IngredientStorage storage, Ingredient ingredient) {}
+
+          @Override
+          public void ingredientMerged(
+              IngredientStorage storage, Ingredient existingIngredient, Ingredient merged) {
+            reported.computeIfAbsent(existingIngredient, key -> new ArrayList<>()).add(merged);
+          }
+
+          @Override
+          public void ingredientRemoved(IngredientStorage storage, Ingredient ingredient) {}
+        });
+    Ingredient sameDay = new Ingredient("Sugar", 1, KG, 10, 2);
+    Ingredient alsoSameDay = new Ingredient("Sugar", 1, KG, 10, 2);
+    ingredientStorage.addIngredients(List.of(incoming));
+    ingredientStorage.addIngredients(List.of(sameDay, alsoSameDay));
+
+    assertEquals(Map.of(lot, List.of(incoming)), reported);
+    assertEquals(500, incoming.getAmount());
+    assertEquals(1, alsoSameDay.getAmount());
+    assertEquals(2, ingredientStorage.getTotalAmount("Sugar", KG), 1e-6);
+  }
+
+  @Test
+  void testIsIngredientEnoughDoesNotConvertLots() {
+    ingredientStorage.addIngredient(new Ingredient("Flour", 0.9f, ValidUnit.KG, 20, 4));
+    ingredientStorage.addIngredient(new Ingredient("Flour", 200, ValidUnit.G, 20, 6));
+    assertTrue(ingredientStorage.isIngredientEnough(List.of(new Measurement("flour", 1100, G))));
+    assertFalse(ingredientStorage.isIngredientEnough(List.of(new Measurement("flour", 1.2f, KG))));
+    assertTrue(ingredientStorage.isIngredientEnough(List.of(new Measurement("flour", 2, L))));
+    assertFalse(ingredientStorage.isIngredientEnough(List.of(new Measurement("flour", 3, L))));
+    assertFalse(ingredientStorage.isIngredientEnough(List.of(new Measurement("flour", 1, PCS))));
+    assertEquals(ValidUnit.KG, ingredientStorage.getIngredientList("flour").getFirst().getUnit());
+    assertEquals(1.1, ingredientStorage.getTotalAmount("Flour", ValidUnit.KG), 1e-6);
+
+    ingredientStorage.removeIngredient(ingredientStorage.getIngredientList("flour").getFirst());
+    assertEquals(200, ingredientStorage.getTotalAmount("Flour", ValidUnit.G), 1e-6);
+  }
+
+  @Test
+  void testAllValueFollowsChanges() {
+    Ingredient milk = new Ingredient("Milk", 1, L, 19.99f, 4);
+    ingredientStorage.addIngredient(milk);
+    ingredientStorage.addIngredient(new Ingredient("Milk", 1, L, 0.01f, 4));
+    ingredientStorage.addIngredient(new Ingredient("Flour", 1, KG, 12.5f, 4));
+    assertEquals(3250, ingredientStorage.getAllValue());
+    ingredientStorage.removeIngredient(milk);
+    assertEquals(1250, ingredientStorage.getAllValue());
+    ingredientStorage.addIngredient(new Ingredient("expiredDemo"));
+    ingredientStorage.removeExpired();
+    assertEquals(1250, ingredientStorage.getAllValue());
+  }
 }
@@ -2,8 +2,14 @@ package dev.nheggoe.mealplanner.user.inventory;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import dev.nheggoe.mealplanner.util.DayClock;
 import dev.nheggoe.mealplanner.util.unit.UnitConverter;
 import dev.nheggoe.mealplanner.util.unit.ValidUnit;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -23,6 +29,25 @@ class IngredientTest {
     mergedIngredient = new Ingredient("test", 300, ValidUnit.G, 40.0f, 4);
   }
 
+  @AfterEach
+  void afterEach() {
+    DayClock.resetClock();
+  }
+
+  @Test
+  void testExpiryFollowsDayClock() {
+    Clock clock = Clock.fixed(Instant.parse("2024-12-01T12:00:00Z"), ZoneOffset.UTC);
+    DayClock.setClock(clock);
+    Ingredient ingredient = new Ingredient("test", 1, ValidUnit.KG, 10, 2);
+    assertEquals(DayClock.today() + 2, ingredient.getExpiryDay());
+    assertFalse(ingredient.isExpired());
+
+    DayClock.setClock(Clock.offset(clock, Duration.ofDays(2)));
+    assertFalse(ingredient.isExpired());
+    DayClock.setClock(Clock.offset(clock, Duration.ofDays(3)));
+    assertTrue(ingredient.isExpired());
+  }
+
   @Test
   void testMerge() {
     testIngredient.merge(mergedIngredient);
@@ -34,6 +59,15 @@ class IngredientTest {
     assertEquals(expectedMergeResult.getExpiryDate(), testIngredient.getExpiryDate());
   }
 
+  @Test
+  void testFailedMergeKeepsValue() {
+    Ingredient eggs = new Ingredient("Egg", 1, ValidUnit.KG, 10, 4);
+    Ingredient pieces = new Ingredient("Egg", 2, ValidUnit.PCS, 10, 4);
+    assertThrows(IllegalArgumentException.class, () -> eggs.merge(pieces));
+    assertEquals(1000, eggs.getValue());
+    assertEquals(1, eggs.getAmount());
+  }
+
   @Test
   void testConvert() {
     UnitConverter.convertIngredient(testIngredient, ValidUnit.G);
@@ -50,6 +84,14 @@ class IngredientTest {
   void testEquals() {
     Ingredient ingredient1 = new Ingredient("test", 3.3f, ValidUnit.KG, 70.0f, 4);
     Ingredient ingredient2 = new Ingredient("test", 3.3f, ValidUnit.KG, 70.0f, 4);
-    assertEquals(ingredient1, ingredient2);
+    assertNotEquals(ingredient1, ingredient2);
+    assertNotEquals(ingredient1.getLotId(), ingredient2.getLotId());
+
+    long lotId = ingredient1.getLotId();
+    int hashCode = ingredient1.hashCode();
+    ingredient1.merge(ingredient2);
+    assertEquals(lotId, ingredient1.getLotId());
+    assertEquals(hashCode, ingredient1.hashCode());
+    assertEquals(ingredient1, ingredient1);
   }
 }
@@ -0,0 +1,86 @@
+package dev.nheggoe.mealplanner.user.inventory;
+
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.L;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.util.InputScanner;
+import dev.nheggoe.mealplanner.util.OutputHandler;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the InventoryManager class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class InventoryManagerTest {
+  private final PrintStream originalOut = System.out;
+  private final ByteArrayOutputStream outTest = new ByteArrayOutputStream();
+  private InventoryManager inventoryManager;
+
+  @BeforeEach
+  void beforeEach() {
+    System.setOut(new PrintStream(outTest));
+    OutputHandler outputHandler = new OutputHandler();
+    inventoryManager = new InventoryManager(new InputScanner(outputHandler), outputHandler);
+    inventoryManager.createIngredientStorage("Fridge");
+    inventoryManager.createIngredientStorage("Pantry");
+    inventoryManager.setCurrentStorage("fridge");
+    inventoryManager.addIngredientToCurrentStorage(new Ingredient("Butter", 250, G, 35, 2));
+    inventoryManager.addIngredientToCurrentStorage(new Ingredient("Milk", 1, L, 20, 5));
+    inventoryManager.setCurrentStorage("pantry");
+    inventoryManager.addIngredientToCurrentStorage(new Ingredient("Butter", 1, KG, 100, 6));
+    inventoryManager.addIngredientToCurrentStorage(new Ingredient("Rice", 2, KG, 40, 300));
+  }
+
+  @AfterEach
+  void restoreStreams() {
+    System.setOut(originalOut);
+  }
+
+  @Test
+  void testTotalValue() {
+    assertEquals(19500, inventoryManager.getTotalValueInMinorUnits());
+    inventoryManager.removeStorage("Pantry");
+    assertEquals(5500, inventoryManager.getTotalValueInMinorUnits());
+  }
+
+  @Test
+  void testAddIngredientsToCurrentStorage() {
+    inventoryManager.addIngredientsToCurrentStorage(
+        List.of(new Ingredient("Rice", 1, KG, 15, 300), new Ingredient("Sugar", 1, KG, 25, 300)));
+    assertEquals(23500, inventoryManager.getTotalValueInMinorUnits());
+    List<Measurement> riceAndSugar =
+        List.of(new Measurement("Rice", 3, KG), new Measurement("Sugar", 1, KG));
+    assertEquals(List.of("Pantry"), inventoryManager.findSufficientStorages(riceAndSugar));
+  }
+
+  @Test
+  void testFindSufficientStorages() {
+    List<Measurement> butterOnly = List.of(new Measurement("Butter", 200, G));
+    assertEquals(2, inventoryManager.findSufficientStorages(butterOnly).size());
+
+    List<Measurement> butterAndRice =
+        List.of(new Measurement("Butter", 500, G), new Measurement("Rice", 1, KG));
+    assertEquals(List.of("Pantry"), inventoryManager.findSufficientStorages(butterAndRice));
+
+    List<Measurement> unknown = List.of(new Measurement("Saffron", 1, G));
+    assertTrue(inventoryManager.findSufficientStorages(unknown).isEmpty());
+  }
+
+  @Test
+  void testExpiringAcrossStorages() {
+    assertEquals(2, inventoryManager.getExpiringWithin(7).size());
+    IngredientStorage fridge = inventoryManager.getStorage("fridge");
+    assertEquals(2, inventoryManager.getExpiringWithin(7).get(fridge).size());
+    inventoryManager.removeStorage("fridge");
+    assertEquals(1, inventoryManager.getExpiringWithin(7).size());
+  }
+}
@@ -0,0 +1,96 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import static dev.nheggoe.mealplanner.user.planner.TestRecipes.createRecipe;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.DL;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.recipe.CookBook;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.user.recipe.Step;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the CookableRecipeView class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class CookableRecipeViewTest {
+  private CookableRecipeView view;
+  private CookBook cookBook;
+  private IngredientStorage fridge;
+  private IngredientStorage pantry;
+  private Recipe toast;
+  private Recipe pancakes;
+
+  @BeforeEach
+  void beforeEach() {
+    fridge = new IngredientStorage("Fridge");
+    fridge.addIngredient(new Ingredient("Butter", 100, G, 15, 3));
+    fridge.addIngredient(new Ingredient("Milk", 5, DL, 10, 3));
+    pantry = new IngredientStorage("Pantry");
+    pantry.addIngredient(new Ingredient("Flour", 500, G, 10, 90));
+
+    toast = createRecipe("Butter Toast", new Measurement("Butter", 20, G));
+    pancakes =
+        createRecipe("Pancakes", new Measurement("Flour", 2, DL), new Measurement("Milk", 3, DL));
+    cookBook = new CookBook();
+    cookBook.addRecipe(toast);
+
+    view = new CookableRecipeView();
+    cookBook.addListener(view);
+    fridge.addListener(view);
+    pantry.addListener(view);
+  }
+
+  @Test
+  void testExistingRecipesAndStoragesAreTakenIn() {
+    assertEquals(Map.of(toast, List.of(fridge)), view.getCookableRecipes());
+  }
+
+  @Test
+  void testStockChangesAreTracked() {
+    Ingredient butter = new Ingredient("Butter", 50, G, 10, 3);
+    pantry.addIngredient(butter);
+    assertEquals(List.of(fridge, pantry), view.getCookableRecipes().get(toast));
+
+    pantry.removeIngredient(butter);
+    assertEquals(List.of(fridge), view.getCookableRecipes().get(toast));
+
+    fridge.removeIngredient(fridge.findIngredient("Butter").getFirst());
+    assertTrue(view.getCookableRecipes().isEmpty());
+  }
+
+  @Test
+  void testRecipeChangesAreTracked() {
+    cookBook.addRecipe(pancakes);
+    assertFalse(view.getCookableRecipes().containsKey(pancakes));
+
+    pantry.addIngredient(new Ingredient("Milk", 3, DL, 5, 3));
+    assertEquals(List.of(pantry), view.getCookableRecipes().get(pancakes));
+    assertEquals(List.of(toast, pancakes), List.copyOf(view.getCookableRecipes().keySet()));
+
+    cookBook.removeRecipe(pancakes);
+    pantry.removeListener(view);
+    assertEquals(Map.of(toast, List.of(fridge)), view.getCookableRecipes());
+  }
+
+  @Test
+  void testEditedRecipeIsCompiledAgain() {
+    toast.addStep(new Step("Dust.", List.of(new Measurement("Flour", 1, DL))));
+    assertTrue(view.getCookableRecipes().isEmpty());
+
+    pantry.addIngredient(new Ingredient("Butter", 20, G, 5, 3));
+    assertEquals(Map.of(toast, List.of(pantry)), view.getCookableRecipes());
+
+    toast.removeStep(1);
+    assertEquals(List.of(fridge, pantry), view.getCookableRecipes().get(toast));
+  }
+}
@@ -0,0 +1,79 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import static dev.nheggoe.mealplanner.user.planner.TestRecipes.createRecipe;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.L;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.ML;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.util.DayClock;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the MealPlanOptimiser class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class MealPlanOptimiserTest {
+  private List<IngredientStorage> storages;
+  private Recipe milkAndCream;
+  private Recipe creamSauce;
+  private Recipe milkPudding;
+  private Recipe flatbread;
+
+  @BeforeEach
+  void beforeEach() {
+    IngredientStorage fridge = new IngredientStorage("Fridge");
+    fridge.addIngredient(new Ingredient("Milk", 1, L, 20, 0));
+    IngredientStorage pantry = new IngredientStorage("Pantry");
+    pantry.addIngredient(new Ingredient("Cream", 200, ML, 30, 1));
+    pantry.addIngredient(new Ingredient("Flour", 1, KG, 10, 200));
+    storages = List.of(fridge, pantry);
+
+    milkAndCream =
+        createRecipe(
+            "Milk and Cream", new Measurement("Milk", 1, L), new Measurement("Cream", 100, ML));
+    creamSauce = createRecipe("Cream Sauce", new Measurement("Cream", 200, ML));
+    milkPudding = createRecipe("Milk Pudding", new Measurement("Milk", 1000, ML));
+    flatbread = createRecipe("Flatbread", new Measurement("Flour", 200, G));
+  }
+
+  @Test
+  void testLocalSearchImprovesGreedyPlan() {
+    // greedily, Milk and Cream saves the most today, but leaves too little cream for tomorrow
+    MealPlanOptimiser optimiser =
+        new MealPlanOptimiser(List.of(flatbread, milkAndCream, creamSauce, milkPudding), storages);
+    MealPlan plan = optimiser.optimise(3);
+
+    assertEquals(3, plan.getDays());
+    assertEquals(LocalDate.ofEpochDay(DayClock.today()), plan.getDate(0));
+    assertSame(milkPudding, plan.getRecipe(0));
+    assertSame(creamSauce, plan.getRecipe(1));
+    assertNull(plan.getRecipe(2));
+    assertEquals(5000, plan.getSavedValue());
+  }
+
+  @Test
+  void testNothingToSave() {
+    Recipe saffronRice = createRecipe("Saffron Rice", new Measurement("Saffron", 1, G));
+    Recipe bigPudding = createRecipe("Big Pudding", new Measurement("Milk", 2, L));
+    MealPlanOptimiser optimiser =
+        new MealPlanOptimiser(List.of(flatbread, saffronRice, bigPudding), storages);
+    MealPlan plan = optimiser.optimise(7);
+    assertTrue(plan.isEmpty());
+    assertEquals(0, plan.getSavedValue());
+
+    assertThrows(IllegalArgumentException.class, () -> optimiser.optimise(0));
+    assertThrows(IllegalArgumentException.class, () -> new MealPlanOptimiser(null, storages));
+    assertThrows(IllegalArgumentException.class, () -> new MealPlanOptimiser(List.of(), null));
+  }
+}
@@ -0,0 +1,126 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.L;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.ML;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.InventoryManager;
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.util.InputScanner;
+import dev.nheggoe.mealplanner.util.OutputHandler;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the PickPlanner class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class PickPlannerTest {
+  private InventoryManager inventoryManager;
+  private PickPlanner planner;
+
+  @BeforeEach
+  void beforeEach() {
+    OutputHandler outputHandler = new OutputHandler();
+    inventoryManager = new InventoryManager(new InputScanner(outputHandler), outputHandler);
+    inventoryManager.createIngredientStorage("Fridge");
+    inventoryManager.createIngredientStorage("Pantry");
+    inventoryManager.createIngredientStorage("Cellar");
+    addTo("Fridge", new Ingredient("Butter", 250, G, 35, 3));
+    addTo("Fridge", new Ingredient("Milk", 300, ML, 10, 2));
+    addTo("Pantry", new Ingredient("Butter", 1, KG, 100, 10));
+    addTo("Pantry", new Ingredient("Flour", 400, G, 10, 90));
+    addTo("Cellar", new Ingredient("Flour", 300, G, 10, 60));
+    addTo("Cellar", new Ingredient("Milk", 1, L, 20, 5));
+    planner = new PickPlanner(inventoryManager);
+  }
+
+  @Test
+  void testSingleStorageIsPreferred() {
+    PickPlan plan = planner.plan(List.of(new Measurement("Butter", 200, G)));
+    assertTrue(plan.isComplete());
+    assertEquals(List.of(storage("Fridge")), plan.getStorages());
+
+    plan = planner.plan(List.of(new Measurement("Flour", 500, G), new Measurement("Milk", 1, L)));
+    assertTrue(plan.isComplete());
+    assertEquals(List.of(storage("Cellar"), storage("Pantry")), plan.getStorages());
+  }
+
+  @Test
+  void testEarliestExpiringLotsArePicked() {
+    PickPlan plan =
+        planner.plan(List.of(new Measurement("Flour", 500, G), new Measurement("Milk", 1.2f, L)));
+    assertTrue(plan.isComplete());
+    assertEquals(3, plan.getStorages().size());
+    assertEquals(4, plan.getPicks().size());
+
+    List<PickPlan.Pick> flour = picksOf(plan, "Flour");
+    assertEquals(List.of(storage("Cellar"), storage("Pantry")), storagesOf(flour));
+    assertEquals(300, flour.get(0).amount(), 1e-3);
+    assertEquals(200, flour.get(1).amount(), 1e-3);
+
+    List<PickPlan.Pick> milk = picksOf(plan, "Milk");
+    assertEquals(List.of(storage("Fridge"), storage("Cellar")), storagesOf(milk));
+    assertEquals(300, milk.get(0).amount(), 1e-3);
+    assertEquals(0.9, milk.get(1).amount(), 1e-3);
+  }
+
+  @Test
+  void testPooledStockNotEnough() {
+    PickPlan plan = planner.plan(List.of(new Measurement("Flour", 1, KG)));
+    assertFalse(plan.isComplete());
+    assertTrue(plan.getPicks().isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> new PickPlanner(null));
+  }
+
+  /**
+   * Adds an ingredient to the storage with the given name.
+   *
+   * @param storageName the name of the storage
+   * @param ingredient the ingredient to be added
+   */
+  private void addTo(String storageName, Ingredient ingredient) {
+    inventoryManager.setCurrentStorage(storageName);
+    inventoryManager.addIngredientToCurrentStorage(ingredient);
+  }
+
+  /**
+   * Retrieves the picks of the plan taking the ingredient with the given name.
+   *
+   * @param plan the plan
+   * @param ingredientName the name of the ingredient
+   * @return the picks of the ingredient, in the order of the plan
+   */
+  private List<PickPlan.Pick> picksOf(PickPlan plan, String ingredientName) {
+    return plan.getPicks().stream()
+        .filter(pick -> pick.lot().getName().equals(ingredientName))
+        .toList();
+  }
+
+  /**
+   * Retrieves the storage of each of the given picks.
+   *
+   * @param picks the picks
+   * @return the storages, in the order of the picks
+   */
+  private List<IngredientStorage> storagesOf(List<PickPlan.Pick> picks) {
+    return picks.stream().map(PickPlan.Pick::storage).toList();
+  }
+
+  /**
+   * Retrieves the storage with the given name.
+   *
+   * @param storageName the name of the storage
+   * @return the storage
+   */
+  private IngredientStorage storage(String storageName) {
+    return inventoryManager.getStorage(storageName);
+  }
+}
@@ -0,0 +1,95 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import static dev.nheggoe.mealplanner.user.planner.TestRecipes.createRecipe;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.planner.RecipeCostEngine.Pricing;
+import dev.nheggoe.mealplanner.user.recipe.CookBook;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.user.recipe.Step;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the RecipeCostEngine class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class RecipeCostEngineTest {
+  private RecipeCostEngine engine;
+  private IngredientStorage fridge;
+  private IngredientStorage pantry;
+  private Ingredient freshButter;
+  private Recipe toast;
+  private Recipe bread;
+  private Recipe cake;
+
+  @BeforeEach
+  void beforeEach() {
+    engine = new RecipeCostEngine();
+    fridge = new IngredientStorage("Fridge");
+    freshButter = new Ingredient("Butter", 250, G, 25, 3);
+    fridge.addIngredient(freshButter);
+    fridge.addListener(engine);
+    pantry = new IngredientStorage("Pantry");
+    pantry.addListener(engine);
+    pantry.addIngredient(new Ingredient("Butter", 1, KG, 60, 10));
+    pantry.addIngredient(new Ingredient("Flour", 1, KG, 20, 90));
+
+    toast = createRecipe("Toast", new Measurement("Butter", 20, G));
+    bread =
+        createRecipe("Bread", new Measurement("Flour", 500, G), new Measurement("Butter", 10, G));
+    cake = createRecipe("Cake", new Measurement("Sugar", 100, G));
+    List.of(cake, bread, toast).forEach(engine::recipeAdded);
+  }
+
+  @Test
+  void testPricings() {
+    assertEquals(6, engine.getUnitPrice(freshButter.getIngredientId(), KG, Pricing.CHEAPEST));
+    assertEquals(6.8, engine.getUnitPrice(freshButter.getIngredientId(), G, Pricing.AVERAGE));
+    assertEquals(10, engine.getUnitPrice(freshButter.getIngredientId(), G, Pricing.FEFO));
+
+    assertEquals(120, engine.getCost(toast, Pricing.CHEAPEST));
+    assertEquals(136, engine.getCost(toast, Pricing.AVERAGE));
+    assertEquals(200, engine.getCost(toast, Pricing.FEFO));
+    assertEquals(1100, engine.getCost(bread, Pricing.FEFO));
+    assertEquals(RecipeCostEngine.UNKNOWN_COST, engine.getCost(cake, Pricing.AVERAGE));
+    assertEquals(List.of(toast, bread, cake), engine.getRecipesByCost(Pricing.AVERAGE));
+  }
+
+  @Test
+  void testPriceChangesReorderRecipes() {
+    pantry.addIngredient(new Ingredient("Sugar", 1, KG, 30, 300));
+    assertEquals(300, engine.getCost(cake, Pricing.CHEAPEST));
+    assertEquals(List.of(toast, cake, bread), engine.getRecipesByCost(Pricing.CHEAPEST));
+
+    fridge.removeIngredient(freshButter);
+    assertEquals(120, engine.getCost(toast, Pricing.FEFO));
+    assertEquals(1060, engine.getCost(bread, Pricing.FEFO));
+
+    pantry.removeListener(engine);
+    assertEquals(RecipeCostEngine.UNKNOWN_COST, engine.getCost(toast, Pricing.AVERAGE));
+    engine.recipeRemoved(toast);
+    assertEquals(List.of(cake, bread), engine.getRecipesByCost(Pricing.CHEAPEST));
+  }
+
+  @Test
+  void testEditedRecipeIsPricedAgain() {
+    CookBook cookBook = new CookBook();
+    cookBook.addRecipe(toast);
+    cookBook.addListener(engine);
+    toast.addStep(new Step("Add flour.", List.of(new Measurement("Flour", 500, G))));
+    assertEquals(1120, engine.getCost(toast, Pricing.CHEAPEST));
+    assertEquals(List.of(bread, toast, cake), engine.getRecipesByCost(Pricing.CHEAPEST));
+
+    toast.setName("Floury Toast");
+    assertEquals(1120, engine.getCost(toast, Pricing.CHEAPEST));
+  }
+}
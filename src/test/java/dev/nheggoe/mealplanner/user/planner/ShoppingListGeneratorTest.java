@@ -0,0 +1,74 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import static dev.nheggoe.mealplanner.user.planner.TestRecipes.createRecipe;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.DL;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.L;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.ML;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.PCS;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.inventory.Ingredient;
+import dev.nheggoe.mealplanner.user.inventory.IngredientStorage;
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ShoppingListGenerator class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class ShoppingListGeneratorTest {
+  private ShoppingListGenerator generator;
+  private Recipe pancakes;
+  private Recipe porridge;
+
+  @BeforeEach
+  void beforeEach() {
+    IngredientStorage fridge = new IngredientStorage("Fridge");
+    fridge.addIngredient(new Ingredient("Milk", 500, ML, 10, 5));
+    fridge.addIngredient(new Ingredient("Egg", 2, PCS, 10, 5));
+    IngredientStorage pantry = new IngredientStorage("Pantry");
+    pantry.addIngredient(new Ingredient("Milk", 1, L, 20, 30));
+    pantry.addIngredient(new Ingredient("Oats", 1, KG, 30, 200));
+    generator = new ShoppingListGenerator(List.of(fridge, pantry));
+
+    pancakes =
+        createRecipe(
+            "Pancakes",
+            new Measurement("Milk", 6, DL),
+            new Measurement("Egg", 3, PCS),
+            new Measurement("Flour", 250, G));
+    porridge =
+        createRecipe("Porridge", new Measurement("Milk", 1, L), new Measurement("Oats", 300, G));
+  }
+
+  @Test
+  void testShortfallIsAggregatedAcrossRecipes() {
+    assertEquals(
+        List.of(new Measurement("egg", 1, PCS), new Measurement("flour", 250, G)),
+        generator.generate(List.of(pancakes)));
+
+    Recipe bigPancakes =
+        createRecipe(
+            "Big Pancakes", new Measurement("Milk", 1, L), new Measurement("Flour", 1, KG));
+    assertEquals(
+        List.of(
+            new Measurement("egg", 1, PCS),
+            new Measurement("flour", 1.25f, KG),
+            new Measurement("milk", 1.1f, L)),
+        generator.generate(List.of(pancakes, porridge, bigPancakes)));
+  }
+
+  @Test
+  void testNothingMissing() {
+    assertTrue(generator.generate(List.of(porridge)).isEmpty());
+    assertTrue(generator.generate(List.<Recipe>of()).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> new ShoppingListGenerator(null));
+  }
+}
@@ -0,0 +1,30 @@
+package dev.nheggoe.mealplanner.user.planner;
+
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.user.recipe.Recipe;
+import dev.nheggoe.mealplanner.user.recipe.Step;
+import java.util.List;
+
+/**
+ * Recipes shared by the planner tests.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+final class TestRecipes {
+  private TestRecipes() {}
+
+  /**
+   * Creates a recipe with a single step using the given measurements.
+   *
+   * @param name the name of the recipe
+   * @param measurements the ingredients of the recipe
+   * @return the recipe
+   */
+  static Recipe createRecipe(String name, Measurement... measurements) {
+    Recipe recipe = new Recipe(name);
+    recipe.setDescription("Test recipe.");
+    recipe.addStep(new Step("Cook.", List.of(measurements)));
+    return recipe;
+  }
+}
@@ -0,0 +1,104 @@
+package dev.nheggoe.mealplanner.user.recipe;
+
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the CookBook class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class CookBookTest {
+  private CookBook cookBook;
+  private Recipe toast;
+
+  @BeforeEach
+  void beforeEach() {
+    cookBook = new CookBook();
+    toast = createRecipe("Butter Toast", 20);
+    cookBook.addRecipe(toast);
+  }
+
+  @Test
+  void testDuplicateContentIsRejected() {
+    Recipe copy = createRecipe("Butter Toast", 20);
+    assertNotEquals(toast, copy);
+    assertNotEquals(toast.getId(), copy.getId());
+    assertEquals(toast.getFingerprint(), copy.getFingerprint());
+    assertTrue(cookBook.isDuplicatePresent(copy));
+    assertThrows(IllegalArgumentException.class, () -> cookBook.addRecipe(copy));
+    assertThrows(IllegalArgumentException.class, () -> cookBook.addRecipe(toast));
+
+    Recipe moreButter = createRecipe("Butter Toast", 30);
+    assertNotEquals(toast.getFingerprint(), moreButter.getFingerprint());
+    cookBook.addRecipe(moreButter);
+    assertEquals(List.of(toast, moreButter), cookBook.getAllRecipe());
+  }
+
+  @Test
+  void testEditedRecipeKeepsItsIdentity() {
+    int hashCode = toast.hashCode();
+    long fingerprint = toast.getFingerprint();
+    toast.addStep(new Step("Serve.", null));
+    assertEquals(hashCode, toast.hashCode());
+    assertNotEquals(fingerprint, toast.getFingerprint());
+    assertTrue(cookBook.isRecipePresent(toast));
+    assertSame(toast, cookBook.getRecipe(toast.getId()));
+
+    cookBook.removeRecipe(toast);
+    assertFalse(cookBook.isRecipePresent(toast));
+    assertTrue(cookBook.getAllRecipe().isEmpty());
+    cookBook.addRecipe(createRecipe("Butter Toast", 20));
+  }
+
+  @Test
+  void testEditedRecipeIsIndexedAgain() {
+    toast.setName("Jam Toast");
+    toast.addStep(new Step("Top.", List.of(new Measurement("Jam", 30, G))));
+    assertEquals(List.of(toast), cookBook.findRecipesContainingName("jam"));
+    assertTrue(cookBook.findRecipesContainingName("butter").isEmpty());
+    assertEquals(List.of(toast), cookBook.findRecipesWithIngredients(List.of("Jam", "Butter")));
+    cookBook.addRecipe(createRecipe("Butter Toast", 20));
+
+    cookBook.removeRecipe(toast);
+    toast.removeStep(1);
+    assertTrue(cookBook.findRecipesWithIngredients(List.of("Jam")).isEmpty());
+  }
+
+  @Test
+  void testFindRecipesWithIngredients() {
+    Recipe pilaf = new Recipe("Pilaf");
+    pilaf.setDescription("Test recipe.");
+    pilaf.addStep(new Step("Fry.", List.of(new Measurement("Butter", 30, G))));
+    pilaf.addStep(new Step("Boil.", List.of(new Measurement("Rice", 200, G))));
+    cookBook.addRecipe(pilaf);
+
+    assertEquals(List.of(toast, pilaf), cookBook.findRecipesWithIngredients(List.of("butter")));
+    assertEquals(List.of(pilaf), cookBook.findRecipesWithIngredients(List.of("Rice", "Butter")));
+    assertTrue(cookBook.findRecipesWithIngredients(List.of("Rice", "Unobtainium")).isEmpty());
+
+    cookBook.removeRecipe(pilaf);
+    assertTrue(cookBook.findRecipesWithIngredients(List.of("Rice")).isEmpty());
+    assertEquals(List.of(toast), cookBook.findRecipesWithIngredients(List.of("Butter")));
+  }
+
+  /**
+   * Creates a recipe with a single step using the given amount of butter.
+   *
+   * @param name the name of the recipe
+   * @param grams the amount of butter in grams
+   * @return the recipe
+   */
+  private Recipe createRecipe(String name, float grams) {
+    Recipe recipe = new Recipe(name);
+    recipe.setDescription("Test recipe.");
+    recipe.addStep(new Step("Spread.", List.of(new Measurement("Butter", grams, G))));
+    return recipe;
+  }
+}
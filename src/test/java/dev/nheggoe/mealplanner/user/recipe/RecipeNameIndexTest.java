@@ -0,0 +1,93 @@
+package dev.nheggoe.mealplanner.user.recipe;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the RecipeNameIndex class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class RecipeNameIndexTest {
+  private RecipeNameIndex index;
+  private Recipe pancakes;
+  private Recipe cake;
+  private Recipe bread;
+
+  @BeforeEach
+  void beforeEach() {
+    index = new RecipeNameIndex();
+    pancakes = new Recipe("American Pancakes");
+    cake = new Recipe("Chocolate Cake");
+    bread = new Recipe("Banana Bread");
+    index.add(pancakes);
+    index.add(cake);
+    index.add(bread);
+  }
+
+  @Test
+  void testFindSubstring() {
+    assertEquals(List.of(pancakes, cake), index.find(" CAKE"));
+    assertEquals(List.of(bread), index.find("ana br"));
+    assertEquals(List.of(pancakes, bread), index.find("an"));
+    assertTrue(index.find("cakes with").isEmpty());
+    // every trigram of "ancan" is in "american pancakes", but not the whole text
+    assertTrue(index.find("ancan").isEmpty());
+  }
+
+  @Test
+  void testRemove() {
+    index.remove(cake);
+    assertEquals(List.of(pancakes), index.find("cake"));
+    index.remove(pancakes);
+    assertTrue(index.find("cake").isEmpty());
+    assertEquals(List.of(bread), index.find(""));
+  }
+
+  @Test
+  void testShortQueriesAndCompaction() {
+    assertEquals(List.of(bread), index.find("B"));
+    assertEquals(List.of(pancakes, cake), index.find("ca"));
+    assertTrue(index.find("zz").isEmpty());
+
+    Recipe pie = new Recipe("Apple Pie");
+    index.add(pie);
+    index.remove(pancakes);
+    index.remove(bread);
+    index.remove(pie);
+    index.add(pie);
+    assertEquals(List.of(cake, pie), index.find(""));
+    assertEquals(List.of(cake, pie), index.find("e"));
+    assertEquals(List.of(pie), index.find("pie"));
+    index.remove(cake);
+    assertEquals(List.of(pie), index.find("p"));
+  }
+
+  @Test
+  void testMatchesLinearScan() {
+    RecipeNameIndex large = new RecipeNameIndex();
+    List<Recipe> recipes = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      Recipe recipe = new Recipe("Recipe " + Integer.toString(i * 7919, 36));
+      recipes.add(recipe);
+      large.add(recipe);
+    }
+    for (int i = 0; i < recipes.size(); i += 3) {
+      large.remove(recipes.get(i));
+    }
+    for (String query : List.of("e 1", "ab", "pe z", "recipe 9", "0", "")) {
+      List<Recipe> expected = new ArrayList<>();
+      for (int i = 0; i < recipes.size(); i++) {
+        if (i % 3 != 0 && recipes.get(i).getName().toLowerCase().contains(query)) {
+          expected.add(recipes.get(i));
+        }
+      }
+      assertEquals(expected, large.find(query), query);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package dev.nheggoe.mealplanner.user.recipe;
+
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.DL;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.G;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.KG;
+import static dev.nheggoe.mealplanner.util.unit.ValidUnit.ML;
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import dev.nheggoe.mealplanner.util.IngredientRegistry;
+import dev.nheggoe.mealplanner.util.unit.UnitConverter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the Recipe class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class RecipeTest {
+  private Recipe recipe;
+
+  @BeforeEach
+  void beforeEach() {
+    recipe = new Recipe("Bread");
+    recipe.setDescription("Plain bread.");
+    recipe.addStep(new Step("Mix.", List.of(new Measurement("Flour", 500, G))));
+    recipe.addStep(new Step("Dust.", List.of(new Measurement("Flour", 0.1f, KG))));
+  }
+
+  @Test
+  void testRequirementsAreSummedAndCached() {
+    RequirementVector requirements = recipe.getRequirements();
+    assertEquals(1, requirements.size());
+    assertEquals(IngredientRegistry.findId("Flour"), requirements.getIngredientId(0));
+    assertEquals(G, requirements.getBaseUnit(0));
+    assertEquals(600, requirements.getAmount(0), 1e-3);
+    assertSame(requirements, recipe.getRequirements());
+    assertSame(recipe.getAllMeasurement(), recipe.getAllMeasurement());
+  }
+
+  @Test
+  void testRequirementsAcrossUnitsAreSummed() {
+    RequirementVector requirements =
+        RequirementVector.of(
+            List.of(
+                new Measurement("Milk", 1, DL),
+                new Measurement("Milk", 50, ML),
+                new Measurement("Milk", 103, G)));
+    assertEquals(1, requirements.size());
+    assertEquals(ML, requirements.getBaseUnit(0));
+    assertEquals(250, requirements.getAmount(0), 1e-6);
+  }
+
+  @Test
+  void testChangingStepsInvalidatesRequirements() {
+    recipe.getRequirements();
+    recipe.removeStep(0);
+    assertEquals(100, recipe.getRequirements().getAmount(0), 1e-3);
+
+    recipe.addStep(new Step("Salt.", List.of(new Measurement("Salt", 10, G))));
+    assertEquals(2, recipe.getRequirements().size());
+    assertEquals(2, recipe.getAllMeasurement().size());
+    assertThrows(UnsupportedOperationException.class, () -> recipe.getSteps().clear());
+  }
+
+  @Test
+  void testStepContentsCannotBeChanged() {
+    Measurement salt = new Measurement("Salt", 10, G);
+    List<Measurement> measurements = new ArrayList<>(List.of(salt));
+    recipe.addStep(new Step("Salt.", measurements));
+    long fingerprint = recipe.getFingerprint();
+    salt.setAmount(1000);
+    measurements.clear();
+
+    Measurement copy = recipe.getSteps().get(2).getMeasurements().getFirst();
+    assertEquals(new Measurement("Salt", 10, G), copy);
+    assertThrows(UnsupportedOperationException.class, () -> copy.setAmount(20));
+    assertThrows(UnsupportedOperationException.class, () -> UnitConverter.convertToKG(copy));
+    assertThrows(UnsupportedOperationException.class, () -> copy.merge(salt));
+    assertEquals(fingerprint, recipe.getFingerprint());
+    assertEquals(10, recipe.getRequirements().getAmount(1), 1e-3);
+  }
+}
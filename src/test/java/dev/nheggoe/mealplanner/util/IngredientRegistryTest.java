@@ -0,0 +1,42 @@
+package dev.nheggoe.mealplanner.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the IngredientRegistry class.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class IngredientRegistryTest {
+
+  @Test
+  void testSpellingsShareId() {
+    int id = IngredientRegistry.register("Registry Test Milk");
+    assertEquals(id, IngredientRegistry.register(" registry test milk"));
+    assertEquals(id, IngredientRegistry.findId("REGISTRY TEST MILK "));
+    assertEquals("registry test milk", IngredientRegistry.getKey(id));
+    assertNotEquals(id, IngredientRegistry.register("Registry Test Butter"));
+  }
+
+  @Test
+  void testInternSharesInstance() {
+    String spelling = new String("Registry Test Flour");
+    String interned = IngredientRegistry.intern(spelling);
+    assertSame(interned, IngredientRegistry.intern(new String("Registry Test Flour")));
+    assertEquals(spelling, interned);
+  }
+
+  @Test
+  void testUnknownNames() {
+    int size = IngredientRegistry.size();
+    assertEquals(IngredientRegistry.UNKNOWN_ID, IngredientRegistry.findId("Registry Test Saffron"));
+    assertEquals(IngredientRegistry.UNKNOWN_ID, IngredientRegistry.findId(null));
+    assertEquals(IngredientRegistry.UNKNOWN_ID, IngredientRegistry.register(null));
+    assertEquals(size, IngredientRegistry.size());
+    assertThrows(IllegalArgumentException.class, () -> IngredientRegistry.getKey(-1));
+    assertThrows(IllegalArgumentException.class, () -> IngredientRegistry.getKey(size));
+  }
+}
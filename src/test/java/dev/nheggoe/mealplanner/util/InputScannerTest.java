@@ -108,6 +108,15 @@ class InputScannerTest {
     assertEquals(ValidUnit.KG, input.getUnit());
   }
 
+  @Test
+  void testFetchUnitWithoutSpace() {
+    System.setIn(new ByteArrayInputStream("500Grams".getBytes()));
+    InputScanner inputScanner = new InputScanner();
+    UnitInput input = inputScanner.fetchUnit();
+    assertEquals(500f, input.getAmount());
+    assertEquals(ValidUnit.G, input.getUnit());
+  }
+
   @Test
   void testFetchUnitNegativeOne() {
     System.setIn(new ByteArrayInputStream("k".getBytes()));
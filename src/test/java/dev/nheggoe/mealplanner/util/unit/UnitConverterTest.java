@@ -1,8 +1,12 @@
 package dev.nheggoe.mealplanner.util.unit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import dev.nheggoe.mealplanner.user.inventory.Measurement;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -25,6 +29,11 @@ class UnitConverterTest {
     liquidMeasurement = new Measurement("test2", 123.456f, ValidUnit.DL);
   }
 
+  @AfterEach
+  void afterEach() {
+    DensityRegistry.removeDensity("Syrup");
+  }
+
   @Test
   void convertToStandard() {
     UnitConverter.convertToStandard(solidMeasurement);
@@ -68,4 +77,52 @@ class UnitConverterTest {
     assertEquals(12345.6f, liquidMeasurement.getAmount());
     assertEquals(ValidUnit.ML, liquidMeasurement.getUnit());
   }
+
+  @Test
+  void convertBetweenUnits() {
+    assertEquals(1.5f, UnitConverter.convert(1500, ValidUnit.G, ValidUnit.KG));
+    assertEquals(250f, UnitConverter.convert(2.5f, ValidUnit.DL, ValidUnit.ML));
+    assertEquals(7f, UnitConverter.convert(7, ValidUnit.L, ValidUnit.L));
+    assertEquals(ValidUnit.G, UnitConverter.getBaseUnit(ValidUnit.KG));
+    assertEquals(ValidUnit.ML, UnitConverter.getBaseUnit(ValidUnit.L));
+  }
+
+  @Test
+  void convertBetweenDimensions() {
+    assertFalse(UnitConverter.isConvertible(ValidUnit.KG, ValidUnit.L));
+    assertFalse(UnitConverter.isConvertible(ValidUnit.UNKNOWN, ValidUnit.UNKNOWN));
+    assertThrows(
+        IllegalArgumentException.class, () -> UnitConverter.convert(1, ValidUnit.G, ValidUnit.ML));
+    assertThrows(
+        IllegalArgumentException.class, () -> UnitConverter.convertToKG(liquidMeasurement));
+  }
+
+  @Test
+  void convertKitchenAndImperialUnits() {
+    assertEquals(3f, UnitConverter.convert(1, ValidUnit.TBSP, ValidUnit.TSP), 1e-5f);
+    assertEquals(16f, UnitConverter.convert(1, ValidUnit.CUP, ValidUnit.TBSP), 1e-5f);
+    assertEquals(16f, UnitConverter.convert(1, ValidUnit.LB, ValidUnit.OZ), 1e-5f);
+    assertEquals(453.59f, UnitConverter.toBaseAmount(1, ValidUnit.LB));
+    assertEquals(ValidUnit.PCS, UnitConverter.getBaseUnit(ValidUnit.PCS));
+    assertFalse(UnitConverter.isConvertible(ValidUnit.PCS, ValidUnit.G, 1.0));
+  }
+
+  @Test
+  void convertWithDensity() {
+    assertFalse(UnitConverter.isConvertible(ValidUnit.CUP, ValidUnit.G));
+    assertEquals(500f, UnitConverter.convert(0.5f, ValidUnit.L, ValidUnit.G, 1.0));
+    assertEquals(2f, UnitConverter.convert(1.06f, ValidUnit.KG, ValidUnit.L, 0.53), 1e-5f);
+
+    DensityRegistry.setDensity("Syrup", 1.25);
+    Measurement syrup = new Measurement("syrup", 2, ValidUnit.DL);
+    UnitConverter.convertToGrams(syrup);
+    assertEquals(250f, syrup.getAmount());
+    assertEquals(ValidUnit.G, syrup.getUnit());
+
+    Measurement gravel = new Measurement("Gravel", 1, ValidUnit.KG);
+    assertThrows(IllegalArgumentException.class, () -> UnitConverter.convertToLiter(gravel));
+    assertThrows(IllegalArgumentException.class, () -> DensityRegistry.setDensity("Syrup", 0));
+    DensityRegistry.removeDensity("Syrup");
+    assertTrue(Double.isNaN(DensityRegistry.getDensity("syrup")));
+  }
 }
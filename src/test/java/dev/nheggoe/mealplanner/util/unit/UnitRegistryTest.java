@@ -0,0 +1,65 @@
+package dev.nheggoe.mealplanner.util.unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import dev.nheggoe.mealplanner.util.input.UnitInput;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the UnitRegistry class, covering unit names, aliases and the parsing of
+ * quantities.
+ *
+ * @author Nick Heggø
+ * @version 2024-12-12
+ */
+class UnitRegistryTest {
+
+  @Test
+  void testFindUnitByName() {
+    for (ValidUnit unit : ValidUnit.values()) {
+      if (unit != ValidUnit.UNKNOWN) {
+        assertEquals(unit, UnitRegistry.findUnit(unit.name()));
+        assertEquals(unit, UnitRegistry.findUnit(" " + unit.name().toLowerCase() + " "));
+      }
+    }
+  }
+
+  @Test
+  void testFindUnitByAlias() {
+    assertEquals(ValidUnit.G, UnitRegistry.findUnit("grams"));
+    assertEquals(ValidUnit.G, UnitRegistry.findUnit("Gr"));
+    assertEquals(ValidUnit.KG, UnitRegistry.findUnit("kilo"));
+    assertEquals(ValidUnit.L, UnitRegistry.findUnit("Litre"));
+    assertEquals(ValidUnit.ML, UnitRegistry.findUnit("millilitres"));
+    assertEquals(ValidUnit.TBSP, UnitRegistry.findUnit("tablespoons"));
+    assertEquals(ValidUnit.PCS, UnitRegistry.findUnit("piece"));
+    assertEquals(ValidUnit.UNKNOWN, UnitRegistry.findUnit("gramz"));
+    assertEquals(ValidUnit.UNKNOWN, UnitRegistry.findUnit(""));
+    assertEquals(ValidUnit.UNKNOWN, UnitRegistry.findUnit(null));
+  }
+
+  @Test
+  void testParseQuantity() {
+    UnitInput attached = UnitRegistry.parseQuantity("500g");
+    assertEquals(500f, attached.getAmount());
+    assertEquals(ValidUnit.G, attached.getUnit());
+
+    UnitInput spaced = UnitRegistry.parseQuantity(" 1.5  kilos extra");
+    assertEquals(1.5f, spaced.getAmount());
+    assertEquals(ValidUnit.KG, spaced.getUnit());
+
+    assertEquals(ValidUnit.UNKNOWN, UnitRegistry.parseQuantity("2 handfuls").getUnit());
+    assertThrows(IllegalArgumentException.class, () -> UnitRegistry.parseQuantity("500"));
+    assertThrows(IllegalArgumentException.class, () -> UnitRegistry.parseQuantity("kg"));
+    assertThrows(IllegalArgumentException.class, () -> UnitRegistry.parseQuantity(null));
+    assertEquals(0.5f, UnitRegistry.parseQuantity(".5 l").getAmount());
+    for (String invalid : List.of("- kg", "+ kg", ". kg", "1.2.3 kg", "1-2 kg", "-.kg")) {
+      IllegalArgumentException e =
+          assertThrows(IllegalArgumentException.class, () -> UnitRegistry.parseQuantity(invalid));
+      assertFalse(e instanceof NumberFormatException, invalid);
+    }
+  }
+}